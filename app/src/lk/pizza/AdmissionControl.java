@@ -0,0 +1,317 @@
+package lk.pizza;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Admission Control
+// Decides for every new order whether it goes into the kitchen now, waits in a bounded intake
+// queue, or is turned away with a reason the client can act on. Checks run cheapest first:
+//   1. a token bucket per user, so one customer (or one runaway script) cannot flood the kitchen
+//   2. a global token bucket, which caps the order rate as a whole during a promotion
+//   3. the kitchen's backlog; when it is full the order waits in the intake queue (DEFER) or is
+//      turned away (SHED), and once the intake queue is full it is turned away either way
+// Each bucket is one AtomicLong holding the time it will next be full (the GCRA form of a token
+// bucket), so taking a token is a single compare-and-set and nothing blocks on the request path.
+// Tokens taken by an order that a later check turns away, or that is withdrawn because it could not
+// be logged, are given back, so only placed orders count against a customer's allowance and the
+// global rate.
+//
+// A queued order is accepted like any other (charged, logged and RECEIVED) and moves into the
+// kitchen in arrival order as places free up; a new order never overtakes one already waiting.
+// The queue itself is not saved: after a restart the kitchen resumes every RECEIVED order.
+class AdmissionControl {
+    static final int DEFAULT_USER_BURST = 5;
+    static final long DEFAULT_USER_REFILL_MILLIS = 12_000;  // 5 orders a minute once the burst is used up
+    static final int DEFAULT_GLOBAL_BURST = 200;
+    static final long DEFAULT_GLOBAL_REFILL_MILLIS = 10;    // 100 orders a second
+    static final int DEFAULT_INTAKE_CAPACITY = 500;
+    static final long CAPACITY_RETRY_MILLIS = 30_000;       // Suggested wait when the kitchen is full
+
+    // What happens to an order that arrives while the kitchen is full
+    enum Overflow {
+        SHED,  // Turn it away
+        DEFER  // Accept it into the intake queue while there is room
+    }
+
+    // Why an order was turned away
+    enum Reason {
+        USER_RATE_LIMIT, GLOBAL_RATE_LIMIT, KITCHEN_FULL, INTAKE_FULL;
+
+        boolean isRateLimit() {
+            return this == USER_RATE_LIMIT || this == GLOBAL_RATE_LIMIT;
+        }
+    }
+
+    // A refill interval of 0 turns that bucket off
+    record Config(int userBurst, long userRefillMillis, int globalBurst, long globalRefillMillis, int intakeCapacity,
+                  Overflow overflow) {
+        static Config defaults() {
+            return new Config(DEFAULT_USER_BURST, DEFAULT_USER_REFILL_MILLIS, DEFAULT_GLOBAL_BURST,
+                    DEFAULT_GLOBAL_REFILL_MILLIS, DEFAULT_INTAKE_CAPACITY, Overflow.DEFER);
+        }
+
+        // No rate limits and no intake queue; only the kitchen's own backlog applies
+        static Config unlimited() {
+            return new Config(1, 0, 1, 0, 0, Overflow.SHED);
+        }
+    }
+
+    // Totals since start, and what is waiting now
+    record Stats(long accepted, long queued, long admittedFromQueue, long shedUserRate, long shedGlobalRate,
+                 long shedKitchenFull, long shedIntakeFull, int waiting, int trackedUsers) {
+        long shed() {
+            return shedUserRate + shedGlobalRate + shedKitchenFull + shedIntakeFull;
+        }
+    }
+
+    // An order that was turned away. Shedding has to stay cheap under overload, so no stack trace is
+    // taken and the message is only built if someone reads it.
+    static final class Rejected extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        final Reason reason;
+        final long retryAfterMillis;
+
+        Rejected(Reason reason, long retryAfterMillis) {
+            this.reason = reason;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String getMessage() {
+            long seconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+            return switch (reason) {
+                case USER_RATE_LIMIT -> "You are placing orders too quickly. Please try again in " + seconds
+                        + (seconds == 1 ? " second." : " seconds.");
+                case GLOBAL_RATE_LIMIT -> "We are taking too many orders right now. Please try again in " + seconds
+                        + (seconds == 1 ? " second." : " seconds.");
+                case KITCHEN_FULL -> "The kitchen is at capacity right now. Please try again in a few minutes.";
+                case INTAKE_FULL -> "The kitchen and its waiting line are full right now. Please try again in a few minutes.";
+            };
+        }
+    }
+
+    private final Config config;
+    private final KitchenScheduler kitchen;
+    private final LongSupplier nanoClock;
+    private final TokenBucket global;
+    private final ConcurrentHashMap<Long, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Order> intake = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger(); // Intake places taken, including orders not yet queued
+    private final ReentrantLock draining = new ReentrantLock(); // Not synchronized: callers include virtual threads
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder admittedFromQueue = new LongAdder();
+    private final LongAdder[] shed = new LongAdder[Reason.values().length];
+
+    AdmissionControl(Config config, KitchenScheduler kitchen, LongSupplier nanoClock) {
+        if (config.userBurst() < 1 || config.userRefillMillis() < 0 || config.globalBurst() < 1
+                || config.globalRefillMillis() < 0 || config.intakeCapacity() < 0 || config.overflow() == null) {
+            throw new IllegalArgumentException("Invalid admission configuration");
+        }
+        this.config = config;
+        this.kitchen = kitchen;
+        this.nanoClock = nanoClock;
+        this.global = config.globalRefillMillis() == 0 ? null
+                : new TokenBucket(config.globalBurst(), config.globalRefillMillis());
+        for (int i = 0; i < shed.length; i++) {
+            shed[i] = new LongAdder();
+        }
+    }
+
+    // ---- Intake ----
+
+    // Decide whether a validated order may be placed, and reserve its place in the kitchen or the
+    // intake queue. Marks the order awaitingKitchen when it has to wait; throws Rejected otherwise.
+    void admit(Order order) {
+        long now = nanoClock.getAsLong();
+        TokenBucket user = config.userRefillMillis() > 0 ? userBucket(order.user.id) : null;
+        if (user != null) {
+            long wait = user.tryTake(now);
+            if (wait > 0) {
+                throw reject(Reason.USER_RATE_LIMIT, TimeUnit.NANOSECONDS.toMillis(wait));
+            }
+        }
+        if (global != null) {
+            long wait = global.tryTake(now);
+            if (wait > 0) {
+                refund(user, null);
+                throw reject(Reason.GLOBAL_RATE_LIMIT, TimeUnit.NANOSECONDS.toMillis(wait));
+            }
+        }
+        // Only go straight in when nobody is waiting, so queued orders keep their turn
+        if (waiting.get() == 0 && kitchen.tryAdmit()) {
+            accepted.increment();
+            return;
+        }
+        if (config.overflow() == Overflow.SHED) {
+            refund(user, global);
+            throw reject(Reason.KITCHEN_FULL, CAPACITY_RETRY_MILLIS);
+        }
+        if (!reserveIntake()) {
+            refund(user, global);
+            throw reject(Reason.INTAKE_FULL, CAPACITY_RETRY_MILLIS);
+        }
+        order.awaitingKitchen = true;
+        queued.increment();
+    }
+
+    // Give back the kitchen or intake place and the rate tokens admit() took, for an order that
+    // could not be logged, so it counts against neither the customer's allowance nor the global rate
+    void withdraw(Order order) {
+        if (order.awaitingKitchen) {
+            order.awaitingKitchen = false;
+            waiting.decrementAndGet();
+            queued.decrement();
+        } else {
+            kitchen.cancelAdmit();
+            accepted.decrement();
+        }
+        // A bucket that has gone is already full again, so there is nothing to give back to it
+        refund(config.userRefillMillis() > 0 ? userBuckets.get(order.user.id) : null, global);
+    }
+
+    // Hand over an admitted order once it has been logged: into the kitchen, or into the intake queue
+    void enter(Order order) {
+        if (!order.awaitingKitchen) {
+            kitchen.submit(order);
+            return;
+        }
+        intake.add(order);
+        // The kitchen may have freed up while this order was being logged
+        drain();
+    }
+
+    // Move waiting orders into the kitchen while it has room; called whenever an order leaves the kitchen
+    void drain() {
+        if (waiting.get() == 0) {
+            return;
+        }
+        draining.lock();
+        try {
+            // Only the drainer takes from the queue, so a non-empty queue always yields an order
+            while (!intake.isEmpty()) {
+                Order next = intake.peek();
+                boolean rejected = next.paymentStatus.isRejected();
+                if (!rejected && !kitchen.tryAdmit()) {
+                    return;
+                }
+                intake.poll();
+                waiting.decrementAndGet();
+                next.awaitingKitchen = false;
+                // A declined card drops the order without using a place in the kitchen
+                if (!rejected) {
+                    admittedFromQueue.increment();
+                    kitchen.submit(next);
+                }
+            }
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    // ---- Reporting and upkeep ----
+
+    Stats stats() {
+        return new Stats(accepted.sum(), queued.sum(), admittedFromQueue.sum(),
+                shed[Reason.USER_RATE_LIMIT.ordinal()].sum(), shed[Reason.GLOBAL_RATE_LIMIT.ordinal()].sum(),
+                shed[Reason.KITCHEN_FULL.ordinal()].sum(), shed[Reason.INTAKE_FULL.ordinal()].sum(),
+                waiting.get(), userBuckets.size());
+    }
+
+    // Forget users whose bucket has refilled completely; they start again with a full one. Returns how
+    // many were dropped. Keeps the map to recent customers rather than everyone who ever ordered.
+    int evictIdleBuckets() {
+        long now = nanoClock.getAsLong();
+        int before = userBuckets.size();
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        return before - userBuckets.size();
+    }
+
+    private TokenBucket userBucket(Long userId) {
+        TokenBucket bucket = userBuckets.get(userId);
+        if (bucket == null) {
+            TokenBucket created = new TokenBucket(config.userBurst(), config.userRefillMillis());
+            bucket = userBuckets.putIfAbsent(userId, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    private boolean reserveIntake() {
+        while (true) {
+            int current = waiting.get();
+            if (current >= config.intakeCapacity()) {
+                return false;
+            }
+            if (waiting.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static void refund(TokenBucket user, TokenBucket global) {
+        if (user != null) {
+            user.refund();
+        }
+        if (global != null) {
+            global.refund();
+        }
+    }
+
+    private Rejected reject(Reason reason, long retryAfterMillis) {
+        shed[reason.ordinal()].increment();
+        return new Rejected(reason, retryAfterMillis);
+    }
+
+    // Holds up to burst tokens and gains one every interval. Stored as the time the bucket will be
+    // full again: each token taken pushes that time one interval further out, and a token is
+    // available as long as it stays within burst - 1 intervals of now.
+    private static final class TokenBucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong fullAtNanos = new AtomicLong(Long.MIN_VALUE);
+
+        TokenBucket(int burst, long refillMillis) {
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(refillMillis);
+            this.toleranceNanos = intervalNanos * (burst - 1);
+        }
+
+        // 0 when a token was taken, otherwise how long until the next one
+        long tryTake(long nowNanos) {
+            while (true) {
+                long current = fullAtNanos.get();
+                long fullAt = Math.max(current, nowNanos);
+                long wait = fullAt - toleranceNanos - nowNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAtNanos.compareAndSet(current, fullAt + intervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        // Give back a token taken by tryTake()
+        void refund() {
+            fullAtNanos.getAndAdd(-intervalNanos);
+        }
+
+        boolean isFull(long nowNanos) {
+            return fullAtNanos.get() <= nowNanos;
+        }
+    }
+}
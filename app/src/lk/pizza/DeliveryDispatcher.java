@@ -0,0 +1,212 @@
+package lk.pizza;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delivery Dispatcher
+// Groups delivery orders that are ready to leave the kitchen into rider runs, with one queue per
+// Colombo area. A run leaves as soon as its area has a full batch, or once the oldest order in the
+// area has waited for the dispatch window, so a quiet area still gets its orders out on time.
+// Each dispatch round only looks at the head of every area's queue, so it costs O(areas) however
+// many orders are waiting.
+//
+// Orders whose card payment was declined or failed while they waited are dropped from the run.
+class DeliveryDispatcher {
+    static final int DEFAULT_BATCH_SIZE = 4;
+    static final long DEFAULT_WINDOW_MILLIS = 3_000;
+    static final long DEFAULT_TICK_MILLIS = 250;
+
+    interface RunListener {
+        void onDispatched(Run run);
+    }
+
+    // Orders that leave together with one rider
+    record Run(long id, ColomboArea area, List<Order> orders, long dispatchedAtMillis) {
+    }
+
+    // Backlog and throughput of one area
+    record AreaStats(ColomboArea area, int waiting, long oldestWaitMillis, long runs, long ordersDispatched) {
+    }
+
+    private final int batchSize;
+    private final long windowNanos;
+    private final long tickMillis;
+    private final RunListener listener;
+    private final Lane[] lanes = new Lane[ColomboArea.values().length];
+    private final AtomicLong runIds = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    private long lastTickEndNanos; // Only touched by the scheduler thread once started
+    final Metrics.Ticks ticks = new Metrics.Ticks();
+
+    DeliveryDispatcher(RunListener listener) {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_WINDOW_MILLIS, DEFAULT_TICK_MILLIS, listener);
+    }
+
+    DeliveryDispatcher(int batchSize, long windowMillis, long tickMillis, RunListener listener) {
+        if (batchSize < 1 || windowMillis < 0 || tickMillis < 1) {
+            throw new IllegalArgumentException("Invalid dispatcher configuration");
+        }
+        this.batchSize = batchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.tickMillis = tickMillis;
+        this.listener = listener;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(ColomboArea.values()[i]);
+        }
+    }
+
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delivery-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastTickEndNanos = System.nanoTime();
+        scheduler.scheduleWithFixedDelay(this::dispatchQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Orders still waiting stay BAKING and are dispatched again after a restart
+    synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    // Take a delivery order that has finished baking; false if it is not one this dispatcher handles
+    boolean offer(Order order) {
+        if (order.type != OrderType.DELIVERY || order.area == null || order.status != OrderStatus.BAKING
+                || order.paymentStatus.isRejected()) {
+            return false;
+        }
+        Lane lane = lanes[order.area.ordinal()];
+        List<Order> full = lane.add(order, System.nanoTime(), batchSize);
+        if (full != null) {
+            // A full batch leaves at once rather than waiting for the next round
+            dispatch(lane.area, full);
+        }
+        return true;
+    }
+
+    // One dispatch round: every area with a full batch or an order past the window sends a run
+    void dispatchDue() {
+        long now = System.nanoTime();
+        for (Lane lane : lanes) {
+            List<Order> batch;
+            while ((batch = lane.takeDue(now, windowNanos, batchSize)) != null) {
+                dispatch(lane.area, batch);
+            }
+        }
+    }
+
+    int waitingCount() {
+        int waiting = 0;
+        for (Lane lane : lanes) {
+            waiting += lane.size();
+        }
+        return waiting;
+    }
+
+    List<AreaStats> stats() {
+        long now = System.nanoTime();
+        List<AreaStats> stats = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            stats.add(lane.stats(now));
+        }
+        return stats;
+    }
+
+    private void dispatch(ColomboArea area, List<Order> batch) {
+        List<Order> riding = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            if (!order.paymentStatus.isRejected()) {
+                riding.add(order);
+            }
+        }
+        lanes[area.ordinal()].dispatched(riding.size());
+        if (!riding.isEmpty() && listener != null) {
+            Run run = new Run(runIds.incrementAndGet(), area, List.copyOf(riding), System.currentTimeMillis());
+            listener.onDispatched(run);
+        }
+    }
+
+    private void dispatchQuietly() {
+        long started = System.nanoTime();
+        long allocated = Metrics.threadAllocatedBytes();
+        try {
+            dispatchDue();
+        } catch (RuntimeException e) {
+            // Never let one bad run cancel the periodic task
+            System.err.println("❌ Delivery dispatch failed: " + e);
+        }
+        ticks.record(lastTickEndNanos + TimeUnit.MILLISECONDS.toNanos(tickMillis), started, allocated);
+        lastTickEndNanos = System.nanoTime();
+    }
+
+    // A queued order and when it became ready
+    private record Waiting(Order order, long readyNanos) {
+    }
+
+    // One area's queue of ready orders, oldest first
+    private static final class Lane {
+        final ColomboArea area;
+        private final ArrayDeque<Waiting> waiting = new ArrayDeque<>();
+        private long runs;
+        private long ordersDispatched;
+
+        Lane(ColomboArea area) {
+            this.area = area;
+        }
+
+        // Queue the order; returns a full batch if it completed one
+        synchronized List<Order> add(Order order, long nowNanos, int batchSize) {
+            waiting.add(new Waiting(order, nowNanos));
+            return waiting.size() >= batchSize ? take(batchSize) : null;
+        }
+
+        // A batch that should leave now, or null if the area can keep waiting
+        synchronized List<Order> takeDue(long nowNanos, long windowNanos, int batchSize) {
+            if (waiting.isEmpty()) {
+                return null;
+            }
+            if (waiting.size() < batchSize && nowNanos - waiting.peek().readyNanos() < windowNanos) {
+                return null;
+            }
+            return take(batchSize);
+        }
+
+        synchronized void dispatched(int orders) {
+            if (orders > 0) {
+                runs++;
+                ordersDispatched += orders;
+            }
+        }
+
+        synchronized int size() {
+            return waiting.size();
+        }
+
+        synchronized AreaStats stats(long nowNanos) {
+            long oldestWait = waiting.isEmpty() ? 0
+                    : TimeUnit.NANOSECONDS.toMillis(Math.max(0, nowNanos - waiting.peek().readyNanos()));
+            return new AreaStats(area, waiting.size(), oldestWait, runs, ordersDispatched);
+        }
+
+        private List<Order> take(int batchSize) {
+            int count = Math.min(batchSize, waiting.size());
+            List<Order> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(waiting.poll().order());
+            }
+            return batch;
+        }
+    }
+}
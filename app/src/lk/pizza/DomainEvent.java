@@ -0,0 +1,37 @@
+package lk.pizza;
+
+import java.util.List;
+
+// Domain Events
+// Everything that changes durable state is recorded as one of these events in the event log.
+// Replaying them in order on top of the latest snapshot rebuilds users, pizzas and orders.
+sealed interface DomainEvent {
+    record UserRegistered(long userId, String name, String contactNumber) implements DomainEvent {}
+
+    record PizzaCreated(long pizzaId, String name, String crust, String sauce, String cheese,
+                        List<String> toppings, double basePrice) implements DomainEvent {}
+
+    // A user saved a custom pizza (new or an existing one with the same configuration) to their menu
+    record CustomPizzaSaved(long userId, long pizzaId) implements DomainEvent {}
+
+    // A never-ordered custom pizza dropped from the menu
+    record PizzaRetired(long pizzaId) implements DomainEvent {}
+
+    // A whole cart in one event; totalCents is what the customer was charged
+    record OrderPlaced(long orderId, long userId, List<OrderLine> lines, OrderType type, String deliveryAddress,
+                       long createdAtMillis, long totalCents, PaymentStatus payment) implements DomainEvent {}
+
+    // atMillis is when the order reached the status
+    record StatusAdvanced(long orderId, OrderStatus status, long atMillis) implements DomainEvent {}
+
+    // reference is the gateway's authorization reference, or empty when there is none
+    record PaymentChanged(long orderId, PaymentStatus status, String reference) implements DomainEvent {}
+
+    record RatingAdded(long orderId, double rating, String feedback) implements DomainEvent {}
+
+    record AddressUpdated(long userId, String address) implements DomainEvent {}
+
+    // One loyalty ledger transaction; the per-user sequence orders them and makes replays idempotent
+    record PointsTransaction(long userId, long sequence, LoyaltyLedger.Kind kind, int points, int balance,
+                             long orderId, long atMillis) implements DomainEvent {}
+}
@@ -0,0 +1,544 @@
+package lk.pizza;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Event Log
+// Append-only, group-committed log of domain events. Callers encode their event and hand it to a
+// single writer thread, which writes everything that queued up while the previous batch was being
+// forced to disk in one go. Appends never wait for the disk; callers that need durability can
+// wait for a sequence number with awaitDurable().
+//
+// The log is split into segment files named after the first sequence number they contain.
+// Record layout: [int bodyLength][int crc32(seq + body)][long seq][body]
+// A torn record can only be the last one written before a crash, so recovery cuts it off the
+// newest segment; a bad record anywhere else stops recovery instead of skipping ahead.
+class EventLog implements Closeable {
+    static final String SEGMENT_PREFIX = "events-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private static final byte USER_REGISTERED = 1;
+    private static final byte PIZZA_CREATED = 2;
+    private static final byte ORDER_PLACED = 3;
+    private static final byte STATUS_ADVANCED = 4;
+    private static final byte RATING_ADDED = 5;
+    private static final byte ADDRESS_UPDATED = 6;
+    private static final byte PIZZA_RETIRED = 7;
+    private static final byte PAYMENT_CHANGED = 8;
+    private static final byte POINTS_TRANSACTION = 9;
+    private static final byte CUSTOM_PIZZA_SAVED = 10;
+
+    interface Replay {
+        void accept(long seq, DomainEvent event);
+    }
+
+    private final Path directory;
+    private final Object appendLock = new Object();
+    private final Object durableLock = new Object();
+    private List<byte[]> pending = new ArrayList<>(); // Guarded by appendLock
+    private long nextSeq; // Guarded by appendLock
+    private boolean rotateRequested; // Guarded by appendLock
+    private boolean closed; // Guarded by appendLock
+    private volatile long durableSeq;
+    private volatile long segmentStartSeq;
+    private FileChannel channel; // Only touched by the writer thread once started
+    private volatile IOException failure;
+    private final Thread writer;
+
+    // Open the log for appending; new records start a fresh segment after lastSeq
+    EventLog(Path directory, long lastSeq) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.nextSeq = lastSeq + 1;
+        this.durableSeq = lastSeq;
+        this.segmentStartSeq = nextSeq;
+        this.channel = openSegment(nextSeq);
+        this.writer = new Thread(this::writeLoop, "event-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Queue events for the same group commit with consecutive sequence numbers; returns the last one
+    long appendAll(List<DomainEvent> events) {
+        List<byte[]> bodies = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            byte[] body = encode(event);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Event too large: " + body.length + " bytes");
+            }
+            bodies.add(body);
+        }
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Event log is closed");
+            }
+            for (byte[] body : bodies) {
+                long seq = nextSeq++;
+                byte[] record = new byte[HEADER_BYTES + body.length];
+                ByteBuffer.wrap(record).putInt(body.length).putInt(0).putLong(seq).put(body);
+                pending.add(record);
+            }
+            appendLock.notify();
+            return nextSeq - 1;
+        }
+    }
+
+    // Queue an event for the next group commit and return its sequence number
+    long append(DomainEvent event) {
+        byte[] body = encode(event);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Event too large: " + body.length + " bytes");
+        }
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Event log is closed");
+            }
+            long seq = nextSeq++;
+            byte[] record = new byte[HEADER_BYTES + body.length];
+            ByteBuffer.wrap(record).putInt(body.length).putInt(0).putLong(seq).put(body);
+            pending.add(record);
+            appendLock.notify();
+            return seq;
+        }
+    }
+
+    void awaitDurable(long seq) throws IOException, InterruptedException {
+        synchronized (durableLock) {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw failure;
+                }
+                durableLock.wait();
+            }
+        }
+    }
+
+    // Wait up to timeoutMillis for seq to reach the disk. A log that cannot get there in time is
+    // failed on the spot, so a caller that gives up and undoes its change never finds the records
+    // made durable behind its back. Interrupts do not cut the wait short; they are kept for the caller.
+    void awaitDurable(long seq, long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean interrupted = false;
+        try {
+            synchronized (durableLock) {
+                while (durableSeq < seq) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        fail(new IOException("Event log write took longer than " + timeoutMillis + " ms"));
+                        throw failure;
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(durableLock, remaining);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    long durableSeq() {
+        return durableSeq;
+    }
+
+    // True once a write has failed; from then on every append is refused
+    boolean failed() {
+        return failure != null;
+    }
+
+    // Start a new segment and return its first sequence number; every earlier segment is then sealed
+    long rotate() throws IOException, InterruptedException {
+        synchronized (appendLock) {
+            rotateRequested = true;
+            appendLock.notify();
+            while (rotateRequested) {
+                if (failure != null) {
+                    throw failure;
+                }
+                appendLock.wait();
+            }
+            return segmentStartSeq;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            closed = true;
+            appendLock.notify();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeLoop() {
+        CRC32 crc = new CRC32();
+        try {
+            while (true) {
+                List<byte[]> batch;
+                long rotateAt = -1;
+                boolean stop;
+                synchronized (appendLock) {
+                    while (pending.isEmpty() && !rotateRequested && !closed) {
+                        appendLock.wait();
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    if (rotateRequested) {
+                        // This batch holds everything before nextSeq, so later appends belong to the new segment
+                        rotateAt = nextSeq;
+                    }
+                    stop = closed;
+                }
+                if (!batch.isEmpty() && failure == null) {
+                    writeBatch(batch, crc);
+                }
+                if (rotateAt >= 0) {
+                    channel.close();
+                    channel = openSegment(rotateAt);
+                    synchronized (appendLock) {
+                        segmentStartSeq = rotateAt;
+                        rotateRequested = false;
+                        appendLock.notifyAll();
+                    }
+                }
+                if (stop && batch.isEmpty()) {
+                    channel.close();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Event log writer interrupted"));
+        }
+    }
+
+    private void writeBatch(List<byte[]> batch, CRC32 crc) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long lastSeq = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            byte[] record = batch.get(i);
+            crc.reset();
+            crc.update(record, 8, record.length - 8);
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            buffer.putInt(4, (int) crc.getValue());
+            lastSeq = buffer.getLong(8);
+            buffers[i] = buffer;
+        }
+        long start = channel.position();
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+        // One force per batch: this is where the group commit pays off
+        channel.force(false);
+        synchronized (durableLock) {
+            if (failure == null) {
+                durableSeq = lastSeq;
+                durableLock.notifyAll();
+                return;
+            }
+        }
+        // A caller timed out on this batch and has undone it already; take it back off the disk
+        channel.truncate(start);
+        channel.force(false);
+    }
+
+    private void fail(IOException e) {
+        synchronized (durableLock) {
+            if (failure != null) {
+                return;
+            }
+            failure = e;
+            durableLock.notifyAll();
+        }
+        System.err.println("❌ Event log writer stopped: " + e.getMessage());
+        synchronized (appendLock) {
+            closed = true;
+            appendLock.notifyAll();
+        }
+    }
+
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        return FileChannel.open(segmentPath(directory, firstSeq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static Path segmentPath(Path directory, long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    // All segment files in the directory, ordered by their first sequence number
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort(Comparator.comparingLong(EventLog::segmentStartSeq));
+        return segments;
+    }
+
+    static long segmentStartSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Where a replay stopped: the last sequence number applied and, when it did not get to the end,
+    // the index of the segment it stopped in and the bytes of that segment read intact (-1 when the
+    // segment does not follow on from the one before, so none of it was read)
+    private record Replayed(long lastSeq, int stoppedAt, long intactBytes) {
+    }
+
+    // Replay every record with seq > afterSeq, in order; returns the last sequence number applied.
+    // Stops at the first torn or corrupt record, and at a segment that does not follow on from the
+    // last record applied, so a record is never applied when one before it was lost.
+    static long replay(List<Path> segments, long afterSeq, Replay replay) throws IOException {
+        return replaySegments(segments, afterSeq, replay).lastSeq();
+    }
+
+    // Replay the whole log at startup; returns the last sequence number applied. A torn record at
+    // the end of the newest segment is what a crash mid-write leaves behind: it was never reported
+    // durable, so it is cut off and appends carry on after the last intact record. Damage anywhere
+    // else would drop records from the middle of the history, so recovery refuses to go on.
+    static long recover(Path directory, long afterSeq, Replay replay) throws IOException {
+        List<Path> segments = listSegments(directory);
+        Replayed replayed = replaySegments(segments, afterSeq, replay);
+        if (replayed.stoppedAt() < 0) {
+            return replayed.lastSeq();
+        }
+        Path segment = segments.get(replayed.stoppedAt());
+        if (replayed.stoppedAt() == segments.size() - 1 && replayed.intactBytes() >= 0) {
+            System.err.println("⚠️ Cutting a torn record off the end of " + segment.getFileName());
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(replayed.intactBytes());
+                channel.force(true);
+            }
+            return replayed.lastSeq();
+        }
+        throw new IOException("The event log is damaged at " + segment.getFileName() + ", after sequence number "
+                + replayed.lastSeq() + ". Later records cannot be replayed in order; move this segment and the"
+                + " ones after it aside to start from there.");
+    }
+
+    private static Replayed replaySegments(List<Path> segments, long afterSeq, Replay replay) throws IOException {
+        long lastSeq = afterSeq;
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            if (segmentStartSeq(segment) > lastSeq + 1) {
+                return new Replayed(lastSeq, i, -1);
+            }
+            long intactBytes = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (length < 1 || length > MAX_BODY_BYTES) {
+                        return new Replayed(lastSeq, i, intactBytes);
+                    }
+                    byte[] record = new byte[8 + length];
+                    int expectedCrc;
+                    try {
+                        expectedCrc = in.readInt();
+                        in.readFully(record);
+                    } catch (EOFException e) {
+                        return new Replayed(lastSeq, i, intactBytes);
+                    }
+                    crc.reset();
+                    crc.update(record);
+                    if ((int) crc.getValue() != expectedCrc) {
+                        return new Replayed(lastSeq, i, intactBytes);
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(record);
+                    long seq = buffer.getLong();
+                    if (seq > lastSeq) {
+                        replay.accept(seq, decode(new DataInputStream(new ByteArrayInputStream(record, 8, length))));
+                        lastSeq = seq;
+                    }
+                    intactBytes += HEADER_BYTES + length;
+                }
+            }
+        }
+        return new Replayed(lastSeq, -1, -1);
+    }
+
+    static byte[] encode(DomainEvent event) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            switch (event) {
+                case DomainEvent.UserRegistered e -> {
+                    out.writeByte(USER_REGISTERED);
+                    out.writeLong(e.userId());
+                    writeString(out, e.name());
+                    writeString(out, e.contactNumber());
+                }
+                case DomainEvent.PizzaCreated e -> {
+                    out.writeByte(PIZZA_CREATED);
+                    out.writeLong(e.pizzaId());
+                    writeString(out, e.name());
+                    writeString(out, e.crust());
+                    writeString(out, e.sauce());
+                    writeString(out, e.cheese());
+                    writeStrings(out, e.toppings());
+                    out.writeDouble(e.basePrice());
+                }
+                case DomainEvent.CustomPizzaSaved e -> {
+                    out.writeByte(CUSTOM_PIZZA_SAVED);
+                    out.writeLong(e.userId());
+                    out.writeLong(e.pizzaId());
+                }
+                case DomainEvent.PizzaRetired e -> {
+                    out.writeByte(PIZZA_RETIRED);
+                    out.writeLong(e.pizzaId());
+                }
+                case DomainEvent.OrderPlaced e -> {
+                    out.writeByte(ORDER_PLACED);
+                    out.writeLong(e.orderId());
+                    out.writeLong(e.userId());
+                    out.writeByte(e.type().ordinal());
+                    writeString(out, e.deliveryAddress());
+                    out.writeLong(e.createdAtMillis());
+                    out.writeLong(e.totalCents());
+                    out.writeInt(e.lines().size());
+                    for (OrderLine line : e.lines()) {
+                        out.writeLong(line.pizzaId());
+                        out.writeInt(line.quantity());
+                    }
+                    out.writeByte(e.payment().ordinal());
+                }
+                case DomainEvent.PaymentChanged e -> {
+                    out.writeByte(PAYMENT_CHANGED);
+                    out.writeLong(e.orderId());
+                    out.writeByte(e.status().ordinal());
+                    writeString(out, e.reference());
+                }
+                case DomainEvent.StatusAdvanced e -> {
+                    out.writeByte(STATUS_ADVANCED);
+                    out.writeLong(e.orderId());
+                    out.writeByte(e.status().ordinal());
+                    out.writeLong(e.atMillis());
+                }
+                case DomainEvent.RatingAdded e -> {
+                    out.writeByte(RATING_ADDED);
+                    out.writeLong(e.orderId());
+                    out.writeDouble(e.rating());
+                    writeString(out, e.feedback());
+                }
+                case DomainEvent.AddressUpdated e -> {
+                    out.writeByte(ADDRESS_UPDATED);
+                    out.writeLong(e.userId());
+                    writeString(out, e.address());
+                }
+                case DomainEvent.PointsTransaction e -> {
+                    out.writeByte(POINTS_TRANSACTION);
+                    out.writeLong(e.userId());
+                    out.writeLong(e.sequence());
+                    out.writeByte(e.kind().ordinal());
+                    out.writeInt(e.points());
+                    out.writeInt(e.balance());
+                    out.writeLong(e.orderId());
+                    out.writeLong(e.atMillis());
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen for an in-memory stream
+        }
+    }
+
+    static DomainEvent decode(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case USER_REGISTERED -> new DomainEvent.UserRegistered(in.readLong(), readString(in), readString(in));
+            case PIZZA_CREATED -> new DomainEvent.PizzaCreated(in.readLong(), readString(in), readString(in),
+                    readString(in), readString(in), readStrings(in), in.readDouble());
+            case PIZZA_RETIRED -> new DomainEvent.PizzaRetired(in.readLong());
+            case CUSTOM_PIZZA_SAVED -> new DomainEvent.CustomPizzaSaved(in.readLong(), in.readLong());
+            case PAYMENT_CHANGED -> new DomainEvent.PaymentChanged(in.readLong(), PaymentStatus.values()[in.readByte()],
+                    readString(in));
+            case ORDER_PLACED -> readOrderPlaced(in);
+            case STATUS_ADVANCED -> new DomainEvent.StatusAdvanced(in.readLong(), OrderStatus.values()[in.readByte()],
+                    in.readLong());
+            case RATING_ADDED -> new DomainEvent.RatingAdded(in.readLong(), in.readDouble(), readString(in));
+            case ADDRESS_UPDATED -> new DomainEvent.AddressUpdated(in.readLong(), readString(in));
+            case POINTS_TRANSACTION -> new DomainEvent.PointsTransaction(in.readLong(), in.readLong(),
+                    LoyaltyLedger.Kind.values()[in.readByte()], in.readInt(), in.readInt(), in.readLong(), in.readLong());
+            default -> throw new IOException("Unknown event type " + type);
+        };
+    }
+
+    private static DomainEvent.OrderPlaced readOrderPlaced(DataInputStream in) throws IOException {
+        long orderId = in.readLong();
+        long userId = in.readLong();
+        OrderType type = OrderType.values()[in.readByte()];
+        String deliveryAddress = readString(in);
+        long createdAtMillis = in.readLong();
+        long totalCents = in.readLong();
+        OrderLine[] lines = new OrderLine[in.readInt()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = new OrderLine(in.readLong(), in.readInt());
+        }
+        PaymentStatus payment = PaymentStatus.values()[in.readByte()];
+        return new DomainEvent.OrderPlaced(orderId, userId, List.of(lines), type, deliveryAddress, createdAtMillis,
+                totalCents, payment);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeShort(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+}
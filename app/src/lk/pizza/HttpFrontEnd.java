@@ -0,0 +1,592 @@
+package lk.pizza;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// HTTP Front End
+// JSON API over OrderService on the JDK's built-in HTTP server. Every request runs on its own
+// virtual thread, so a blocked request costs a few hundred bytes rather than a platform thread,
+// and each client carries its own session token instead of sharing the console's currentUser.
+//
+//   POST /api/signup          {"name", "contactNumber"}              -> {"token", "user"}
+//   POST /api/login           {"contactNumber"}                      -> {"token", "user"}
+//   POST /api/logout
+//   GET  /api/me                                                     -> user
+//   GET  /api/loyalty                                                -> {"balance", "tier", "transactions": []}
+//   PUT  /api/address         {"area" (1-15), "street", "identifier"} -> user
+//   GET  /api/menu                                                   -> [pizza] (the public menu)
+//   GET  /api/pizzas                                                 -> [pizza] (the user's own custom pizzas)
+//   POST /api/pizzas          {"name", "crust", "sauce", "cheese", "toppings": []} -> pizza
+//   GET  /api/recommendations                                        -> {"usual": [pizza], "alsoLike": [pizza]}
+//   GET  /api/promotions                                             -> [promotion]
+//   GET  /api/kitchen                                                -> {"backlog", ..., "estimates": {type: millis}}
+//   GET  /api/dispatch                                               -> {"waiting", "areas": []} (rider backlog)
+//   GET  /api/admission                                              -> {"accepted", "queued", "shed", ...}
+//   GET  /api/orders                                                 -> [order]
+//   POST /api/orders          {"pizzaId" or "items": [{"pizzaId", "quantity"}], "type", "paymentMethod",
+//                              "cardNumber", "expiryMonth", "expiryYear"}  -> order (+ "reorderKey" for a card)
+//   GET  /api/orders/reorder                                         -> {"orderId", "items", "type", "payment", ...}
+//   POST /api/orders/reorder  {"reorderKey" or "cardNumber"} (card orders only) -> order (the last order again)
+//   GET  /api/orders/{id}                                            -> order
+//   POST /api/orders/{id}/rating {"rating" (1-5), "feedback"}        -> order
+//   GET  /api/notifications                                          -> [notification] (unread only)
+//   GET  /metrics                                                    -> Prometheus text (see Metrics)
+//
+// Everything except signup, login, menu, promotions, kitchen, dispatch and admission needs
+// "Authorization: Bearer <token>". An order turned away by admission control gets 429 (rate limit)
+// or 503 (kitchen full) with a Retry-After header and {"error", "reason", "retryAfterSeconds"}. A
+// change that cannot be saved because the event log has failed gets 503 with a Retry-After header.
+class HttpFrontEnd {
+    static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    // An error that maps directly to an HTTP status
+    static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final OrderService service;
+    private final SessionStore sessions;
+    private final LatencyRecorder requestLatency;
+    private final LongAdder[] responses = new LongAdder[6]; // By status class: 1xx .. 5xx
+    private HttpServer server;
+    private ExecutorService executor;
+
+    HttpFrontEnd(OrderService service, SessionStore sessions) {
+        this.service = service;
+        this.sessions = sessions;
+        this.requestLatency = service.metrics.timer("pizza_http_request_seconds", "Time to handle one API request");
+        for (int i = 1; i < responses.length; i++) {
+            LongAdder counter = new LongAdder();
+            responses[i] = counter;
+            service.metrics.counter("pizza_http_responses_total", "API responses by status class",
+                    "code=\"" + i + "xx\"", counter::sum);
+        }
+        service.metrics.gauge("pizza_sessions", "Signed-in API sessions", sessions::size);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        OrderService service = new OrderService(Path.of(System.getProperty("pizza.dataDir", "data")));
+        service.start();
+        HttpFrontEnd frontEnd = new HttpFrontEnd(service, new SessionStore());
+        frontEnd.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            frontEnd.stop();
+            try {
+                service.shutdown();
+            } catch (IOException e) {
+                System.err.println("❌ Failed to flush saved data: " + e.getMessage());
+            }
+        }));
+        System.out.println("🍕 Pizza ordering API listening on http://localhost:" + frontEnd.port() + "/api/");
+    }
+
+    synchronized void start(int port) throws IOException {
+        // The server writes headers and body separately; without TCP_NODELAY, Nagle's algorithm and
+        // the client's delayed ACK add ~40 ms to every keep-alive response
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        // A large accept backlog so connection bursts from many terminals queue instead of being refused
+        server = HttpServer.create(new InetSocketAddress(port), 4096);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.createContext("/metrics", this::scrape);
+        server.start();
+    }
+
+    synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) {
+        long started = System.nanoTime();
+        try (exchange) {
+            int status = 200;
+            String body;
+            try {
+                body = route(exchange);
+            } catch (HttpError e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = error(e.getMessage());
+            } catch (NoSuchElementException e) {
+                status = 404;
+                body = error(e.getMessage());
+            } catch (AdmissionControl.Rejected e) {
+                status = e.reason.isRateLimit() ? 429 : 503;
+                body = rejected(new StringBuilder(), e).toString();
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds(e)));
+            } catch (Persistence.Unavailable e) {
+                status = 503;
+                body = error(e.getMessage());
+                exchange.getResponseHeaders().set("Retry-After",
+                        Long.toString(Persistence.UNAVAILABLE_RETRY_AFTER_SECONDS));
+            } catch (IllegalStateException e) {
+                status = 409;
+                body = error(e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                body = error("Internal error.");
+                System.err.println("❌ Request failed: " + e);
+            }
+            byte[] bytes = null;
+            if (exchange.getRequestURI().getPath().equals("/api/menu")) {
+                // The menu comes already encoded with its catalog version
+                MenuCatalog.Snapshot menu = service.menu();
+                bytes = body == menu.json ? menu.jsonBytes : null;
+            }
+            if (bytes == null) {
+                bytes = body.getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            responses[status / 100].increment();
+        } catch (IOException e) {
+            // The client went away; nothing left to do for this exchange
+        }
+        requestLatency.recordSince(started);
+    }
+
+    // Plain-text metrics for a Prometheus scraper; open like the menu, as it holds no customer data
+    private void scrape(HttpExchange exchange) {
+        try (exchange) {
+            byte[] bytes = service.metrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // The scraper went away
+        }
+    }
+
+    private String route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        String resource = path[0];
+
+        switch (resource) {
+            case "signup" -> {
+                requireMethod(method, "POST");
+                Map<String, Object> request = readBody(exchange);
+                User user = service.signUp(Json.string(request, "name"), Json.string(request, "contactNumber"));
+                return signedIn(user);
+            }
+            case "login" -> {
+                requireMethod(method, "POST");
+                Map<String, Object> request = readBody(exchange);
+                return signedIn(service.login(Json.string(request, "contactNumber")));
+            }
+            case "menu" -> {
+                requireMethod(method, "GET");
+                return service.menu().json;
+            }
+            case "promotions" -> {
+                requireMethod(method, "GET");
+                StringBuilder out = new StringBuilder("[");
+                for (Promotion promotion : service.promotions()) {
+                    if (out.length() > 1) {
+                        out.append(',');
+                    }
+                    out.append("{\"description\":");
+                    Json.quote(out, promotion.description).append(",\"discount\":").append(promotion.discountAmount)
+                            .append(",\"minOrderAmount\":").append(promotion.minOrderAmount)
+                            .append(",\"pizzaId\":").append(promotion.pizzaId)
+                            .append(",\"minTier\":\"").append(promotion.minTier.name())
+                            .append("\",\"stackable\":").append(promotion.stackable).append('}');
+                }
+                return out.append(']').toString();
+            }
+            case "kitchen" -> {
+                requireMethod(method, "GET");
+                return kitchen();
+            }
+            case "dispatch" -> {
+                requireMethod(method, "GET");
+                return dispatch(service.dispatchStats());
+            }
+            case "admission" -> {
+                requireMethod(method, "GET");
+                return admission(service.admissionStats());
+            }
+            default -> {
+                // Everything else acts on behalf of a signed-in user
+            }
+        }
+
+        SessionStore.Session session = authenticate(exchange);
+        User user = service.findUser(session.userId);
+        switch (resource) {
+            case "logout" -> {
+                requireMethod(method, "POST");
+                sessions.remove(session.token);
+                return "{}";
+            }
+            case "me" -> {
+                requireMethod(method, "GET");
+                return user(user);
+            }
+            case "loyalty" -> {
+                requireMethod(method, "GET");
+                return loyalty(user);
+            }
+            case "address" -> {
+                requireMethod(method, "PUT");
+                Map<String, Object> request = readBody(exchange);
+                service.updateAddress(user, Json.number(request, "area", 1, ColomboArea.values().length) - 1,
+                        requireText(request, "street"), requireText(request, "identifier"));
+                return user(user);
+            }
+            case "recommendations" -> {
+                requireMethod(method, "GET");
+                Recommender.Recommendations recommendations = service.recommendations(user);
+                StringBuilder out = new StringBuilder("{\"usual\":");
+                pizzas(out, recommendations.usual()).append(",\"alsoLike\":");
+                return pizzas(out, recommendations.alsoLike()).append('}').toString();
+            }
+            case "pizzas" -> {
+                if (method.equals("GET")) {
+                    return service.menuFor(user).customJson;
+                }
+                requireMethod(method, "POST");
+                Map<String, Object> request = readBody(exchange);
+                return service.customizePizza(user, Json.string(request, "name"), Json.string(request, "crust"),
+                        Json.string(request, "sauce"), Json.string(request, "cheese"),
+                        Json.strings(request, "toppings")).appendJson(new StringBuilder()).toString();
+            }
+            case "notifications" -> {
+                requireMethod(method, "GET");
+                return notifications(service.unreadNotifications(user));
+            }
+            case "orders" -> {
+                return orders(exchange, method, path, user);
+            }
+            default -> throw new HttpError(404, "Unknown resource.");
+        }
+    }
+
+    private String orders(HttpExchange exchange, String method, String[] path, User user) throws IOException {
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                StringBuilder out = new StringBuilder("[");
+                for (Order order : service.ordersFor(user)) {
+                    if (out.length() > 1) {
+                        out.append(',');
+                    }
+                    order(out, order);
+                }
+                return out.append(']').toString();
+            }
+            requireMethod(method, "POST");
+            OrderService.CartRequest cart = cart(user, readBody(exchange));
+            Order order = service.placeOrder(user, cart.lines(), cart.type(), cart.payment());
+            StringBuilder out = order(new StringBuilder(), order);
+            // The key that lets this client repeat the order without the card number; never shown again
+            String reorderKey = order.takeReorderKey();
+            if (reorderKey != null) {
+                out.setLength(out.length() - 1);
+                Json.quote(out.append(",\"reorderKey\":"), reorderKey).append('}');
+            }
+            return out.toString();
+        }
+        if (path.length == 2 && path[1].equals("reorder")) {
+            if (method.equals("GET")) {
+                return reorderTemplate(user);
+            }
+            requireMethod(method, "POST");
+            Map<String, Object> request = readBody(exchange);
+            String reorderKey = Json.string(request, "reorderKey");
+            Order order = service.reorder(user, reorderKey != null ? reorderKey : Json.string(request, "cardNumber"));
+            return order(new StringBuilder(), order).toString();
+        }
+
+        long orderId;
+        try {
+            orderId = Long.parseLong(path[1]);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Unknown order.");
+        }
+        if (path.length == 2) {
+            requireMethod(method, "GET");
+            return order(new StringBuilder(), service.findOrder(user, orderId)).toString();
+        }
+        if (path.length == 3 && path[2].equals("rating")) {
+            requireMethod(method, "POST");
+            Map<String, Object> request = readBody(exchange);
+            service.rate(user, orderId, Json.string(request, "feedback"), Json.number(request, "rating", 1, 5));
+            return order(new StringBuilder(), service.findOrder(user, orderId)).toString();
+        }
+        throw new HttpError(404, "Unknown resource.");
+    }
+
+    // An order request: a single "pizzaId", or "items" with quantities
+    private static OrderService.CartRequest cart(User user, Map<String, Object> request) {
+        List<OrderLine> lines = new ArrayList<>();
+        List<Map<String, Object>> items = Json.objects(request, "items");
+        if (items.isEmpty()) {
+            lines.add(new OrderLine(Json.number(request, "pizzaId"), 1));
+        }
+        for (Map<String, Object> item : items) {
+            long quantity = item.containsKey("quantity") ? Json.number(item, "quantity") : 1;
+            if (quantity < 1 || quantity > OrderLine.MAX_QUANTITY) {
+                throw new IllegalArgumentException("Quantity must be between 1 and " + OrderLine.MAX_QUANTITY + ".");
+            }
+            lines.add(new OrderLine(Json.number(item, "pizzaId"), (int) quantity));
+        }
+        OrderType type = parseOrderType(Json.string(request, "type"));
+        String paymentMethod = Json.string(request, "paymentMethod");
+        OrderService.PaymentDetails payment = paymentMethod == null || paymentMethod.equals("Cash")
+                ? OrderService.PaymentDetails.cash()
+                : new OrderService.PaymentDetails(paymentMethod, Json.string(request, "cardNumber"),
+                Json.number(request, "expiryMonth", 1, 12), Json.number(request, "expiryYear", 0, 9999));
+        return new OrderService.CartRequest(user, lines, type, payment);
+    }
+
+    private SessionStore.Session authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        String token = header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+        SessionStore.Session session = sessions.find(token);
+        if (session == null) {
+            throw new HttpError(401, "Please log in.");
+        }
+        return session;
+    }
+
+    private String signedIn(User user) {
+        SessionStore.Session session = sessions.create(user.id);
+        StringBuilder out = new StringBuilder("{\"token\":");
+        Json.quote(out, session.token).append(",\"user\":").append(user(user));
+        return out.append('}').toString();
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Request body too large.");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!actual.equals(expected)) {
+            throw new HttpError(405, "Use " + expected + " for this resource.");
+        }
+    }
+
+    private static String requireText(Map<String, Object> request, String field) {
+        String value = Json.string(request, field);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Field '" + field + "' is required.");
+        }
+        return value;
+    }
+
+    private static OrderType parseOrderType(String type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Field 'type' must be PICKUP or DELIVERY.");
+        }
+        try {
+            return OrderType.valueOf(type.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Field 'type' must be PICKUP or DELIVERY.");
+        }
+    }
+
+    // ---- JSON views ----
+
+    private static String error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    private static StringBuilder rejected(StringBuilder out, AdmissionControl.Rejected rejected) {
+        Json.quote(out.append("{\"error\":"), rejected.getMessage()).append(",\"reason\":\"")
+                .append(rejected.reason.name()).append("\",\"retryAfterSeconds\":").append(retryAfterSeconds(rejected));
+        return out.append('}');
+    }
+
+    private static long retryAfterSeconds(AdmissionControl.Rejected rejected) {
+        return Math.max(1, (rejected.retryAfterMillis + 999) / 1000);
+    }
+
+    private static StringBuilder pizzas(StringBuilder out, List<Pizza> pizzas) {
+        out.append('[');
+        for (int i = 0; i < pizzas.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            pizzas.get(i).appendJson(out);
+        }
+        return out.append(']');
+    }
+
+    private static String user(User user) {
+        StringBuilder out = new StringBuilder("{\"id\":").append(user.id.longValue()).append(",\"name\":");
+        Json.quote(out, user.name).append(",\"contactNumber\":");
+        Json.quote(out, user.contactNumber).append(",\"address\":");
+        LoyaltyLedger.Transaction last = user.loyalty.last(); // Balance and tier from one read
+        Json.quote(out, user.address).append(",\"area\":");
+        area(out, user.area).append(",\"loyaltyPoints\":").append(last.balance)
+                .append(",\"loyaltyTier\":\"").append(last.tier.name()).append('"');
+        return out.append('}').toString();
+    }
+
+    private static String loyalty(User user) {
+        List<LoyaltyLedger.Transaction> history = user.loyalty.history();
+        LoyaltyLedger.Transaction last = history.isEmpty() ? user.loyalty.last() : history.get(history.size() - 1);
+        StringBuilder out = new StringBuilder("{\"balance\":").append(last.balance)
+                .append(",\"tier\":\"").append(last.tier.name()).append("\",\"transactions\":[");
+        for (int i = 0; i < history.size(); i++) {
+            LoyaltyLedger.Transaction t = history.get(i);
+            out.append(i == 0 ? "{\"sequence\":" : ",{\"sequence\":").append(t.sequence)
+                    .append(",\"kind\":\"").append(t.kind.name()).append("\",\"points\":").append(t.points)
+                    .append(",\"balance\":").append(t.balance).append(",\"orderId\":").append(t.orderId)
+                    .append(",\"at\":").append(t.atMillis).append('}');
+        }
+        return out.append("]}").toString();
+    }
+
+    private static StringBuilder order(StringBuilder out, Order order) {
+        out.append("{\"id\":").append(order.id.longValue())
+                .append(",\"pizzaId\":").append(order.pizza.id.longValue()).append(",\"pizza\":");
+        Json.quote(out, order.pizza.name).append(",\"items\":[");
+        for (int i = 0; i < order.items.size(); i++) {
+            Order.Item item = order.items.get(i);
+            out.append(i == 0 ? "{\"pizzaId\":" : ",{\"pizzaId\":").append(item.pizza().id.longValue())
+                    .append(",\"pizza\":");
+            Json.quote(out, item.pizza().name).append(",\"quantity\":").append(item.quantity()).append('}');
+        }
+        out.append("],\"type\":\"").append(order.type.name())
+                .append("\",\"status\":\"").append(order.status.name())
+                .append("\",\"payment\":\"").append(order.paymentStatus.name()).append("\",\"deliveryAddress\":");
+        Json.quote(out, order.deliveryAddress).append(",\"area\":");
+        area(out, order.area).append(",\"createdAt\":").append(order.createdAt.getTime())
+                .append(",\"readyEstimate\":").append(order.readyEstimateMillis)
+                .append(",\"queued\":").append(order.awaitingKitchen)
+                .append(",\"total\":");
+        TextFormat.appendCents(out, order.totalCents).append(",\"feedback\":");
+        Json.quote(out, order.feedback).append(",\"rating\":");
+        return TextFormat.appendFixed(out, order.pizzaRating, 1).append('}');
+    }
+
+    private static String reorderTemplate(User user) {
+        ReorderTemplate last = user.lastOrder;
+        if (last == null) {
+            throw new NoSuchElementException("No previous order to repeat.");
+        }
+        StringBuilder out = new StringBuilder("{\"orderId\":").append(last.orderId()).append(",\"items\":[");
+        for (int i = 0; i < last.items().size(); i++) {
+            Order.Item item = last.items().get(i);
+            out.append(i == 0 ? "{\"pizzaId\":" : ",{\"pizzaId\":").append(item.pizza().id.longValue())
+                    .append(",\"pizza\":");
+            Json.quote(out, item.pizza().name).append(",\"quantity\":").append(item.quantity()).append('}');
+        }
+        out.append("],\"type\":\"").append(last.type().name()).append("\",\"deliveryAddress\":");
+        Json.quote(out, last.deliveryAddress()).append(",\"payment\":");
+        return Json.quote(out, last.paymentLabel()).append('}').toString();
+    }
+
+    private static StringBuilder area(StringBuilder out, ColomboArea area) {
+        return area == null ? out.append("null") : Json.quote(out, area.label);
+    }
+
+    private String kitchen() {
+        KitchenScheduler.Stats stats = service.kitchenStats();
+        StringBuilder out = new StringBuilder("{\"backlog\":").append(stats.backlog())
+                .append(",\"prepQueued\":").append(stats.prepQueued()).append(",\"prepBusy\":").append(stats.prepBusy())
+                .append(",\"ovenQueued\":").append(stats.ovenQueued()).append(",\"ovenBusy\":").append(stats.ovenBusy())
+                .append(",\"completed\":").append(stats.completed()).append(",\"rejected\":").append(stats.rejected())
+                .append(",\"estimates\":{");
+        for (OrderType type : OrderType.values()) {
+            out.append(type.ordinal() == 0 ? "\"" : ",\"").append(type.name()).append("\":")
+                    .append(service.kitchenEstimateMillis(type));
+        }
+        return out.append("}}").toString();
+    }
+
+    private static String dispatch(List<DeliveryDispatcher.AreaStats> stats) {
+        int waiting = 0;
+        StringBuilder areas = new StringBuilder("[");
+        for (DeliveryDispatcher.AreaStats area : stats) {
+            waiting += area.waiting();
+            if (areas.length() > 1) {
+                areas.append(',');
+            }
+            area(areas.append("{\"area\":"), area.area()).append(",\"waiting\":").append(area.waiting())
+                    .append(",\"oldestWaitMillis\":").append(area.oldestWaitMillis())
+                    .append(",\"runs\":").append(area.runs())
+                    .append(",\"ordersDispatched\":").append(area.ordersDispatched()).append('}');
+        }
+        return new StringBuilder("{\"waiting\":").append(waiting).append(",\"areas\":").append(areas).append("]}")
+                .toString();
+    }
+
+    private static String admission(AdmissionControl.Stats stats) {
+        return new StringBuilder("{\"accepted\":").append(stats.accepted())
+                .append(",\"queued\":").append(stats.queued())
+                .append(",\"admittedFromQueue\":").append(stats.admittedFromQueue())
+                .append(",\"waiting\":").append(stats.waiting())
+                .append(",\"shed\":").append(stats.shed())
+                .append(",\"shedByReason\":{\"USER_RATE_LIMIT\":").append(stats.shedUserRate())
+                .append(",\"GLOBAL_RATE_LIMIT\":").append(stats.shedGlobalRate())
+                .append(",\"KITCHEN_FULL\":").append(stats.shedKitchenFull())
+                .append(",\"INTAKE_FULL\":").append(stats.shedIntakeFull())
+                .append("},\"trackedUsers\":").append(stats.trackedUsers()).append('}').toString();
+    }
+
+    private String notifications(List<Notification> notifications) {
+        StringBuilder out = new StringBuilder("[");
+        for (Notification notification : notifications) {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            Order order = service.orders.findById(notification.orderId());
+            out.append("{\"orderId\":").append(notification.orderId())
+                    .append(",\"previous\":\"").append(notification.previous().name())
+                    .append("\",\"current\":\"").append(notification.current().name())
+                    .append("\",\"timestamp\":").append(notification.timestampMillis()).append(",\"message\":");
+            Json.quote(out, notification.render(new StringBuilder(), order == null ? "Unknown" : order.pizzaNames()).toString());
+            out.append('}');
+        }
+        return out.append(']').toString();
+    }
+}
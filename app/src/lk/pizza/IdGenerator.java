@@ -0,0 +1,23 @@
+package lk.pizza;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Id Generator
+// Hands out unique, increasing ids. incrementAndGet is a single atomic add, so concurrent callers
+// never retry or block each other and two callers can never receive the same id.
+class IdGenerator {
+    private final AtomicLong lastId = new AtomicLong();
+
+    long next() {
+        return lastId.incrementAndGet();
+    }
+
+    // Make sure ids assigned elsewhere (e.g. restored records) are never handed out again
+    void observe(long id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    long last() {
+        return lastId.get();
+    }
+}
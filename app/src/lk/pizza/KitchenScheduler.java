@@ -0,0 +1,427 @@
+package lk.pizza;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Kitchen Scheduler
+// Moves orders through the kitchen at the pace its stations allow. Preparing needs one of a fixed
+// number of prep stations and baking one of a fixed number of oven slots; an order waits in a
+// queue until one frees up, so RECEIVED, PREPARING and BAKING reflect real throughput instead of
+// a fixed timer. Each stage keeps one queue per order type, served oldest first, except that the
+// priority type counts as having waited the aging limit longer; so it goes first at equal waits,
+// and the other type never waits more than the aging limit behind it.
+//
+// The kitchen takes at most maxBacklog orders at once (queued or being worked on). Intake reserves
+// a place with tryAdmit() before an order is created, so a saturated kitchen turns new orders away
+// instead of letting every queue grow.
+//
+// All time comes from the clock passed in, and advance(now) does all the work. start() calls it
+// on a timer against the wall clock; a simulation calls it with its own clock instead, which makes
+// runs fully deterministic (see bench/KitchenSimulation).
+class KitchenScheduler {
+    static final int DEFAULT_PREP_STATIONS = 4;
+    static final int DEFAULT_OVEN_SLOTS = 6;
+    static final long DEFAULT_PREP_MILLIS = 10_000;
+    static final long DEFAULT_BAKE_MILLIS = 10_000;
+    static final int DEFAULT_MAX_BACKLOG = 200;
+    static final long DEFAULT_AGING_MILLIS = 60_000;
+    static final long DEFAULT_TICK_MILLIS = 100;
+    static final int ADVANCE_BATCH = 32; // Station finishes handled per hold of the lock
+
+    // Station counts, stage times and queueing policy
+    record Config(int prepStations, int ovenSlots, long prepMillis, long bakeMillis, int maxBacklog,
+                  OrderType priority, long agingMillis) {
+        static Config defaults() {
+            return new Config(DEFAULT_PREP_STATIONS, DEFAULT_OVEN_SLOTS, DEFAULT_PREP_MILLIS, DEFAULT_BAKE_MILLIS,
+                    DEFAULT_MAX_BACKLOG, OrderType.PICKUP, DEFAULT_AGING_MILLIS);
+        }
+    }
+
+    // What the kitchen is doing right now
+    record Stats(int backlog, int prepQueued, int prepBusy, int ovenQueued, int ovenBusy, long completed,
+                 long rejected) {
+    }
+
+    private final Config config;
+    private final OrderRepository orders;
+    private final OrderLifecycleEngine.StatusListener statusListener;
+    private final Consumer<Order> onBaked;
+    private final LongSupplier clock;
+    private final Stage prep;
+    private final Stage oven;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private long completed; // Guarded by lock
+    private long rejected;  // Guarded by lock
+    private long lastTickEndNanos; // Only touched by the scheduler thread once started
+    final Metrics.Ticks ticks = new Metrics.Ticks();
+    private ScheduledExecutorService scheduler;
+
+    KitchenScheduler(Config config, OrderRepository orders, OrderLifecycleEngine.StatusListener statusListener,
+                     Consumer<Order> onBaked, LongSupplier clock) {
+        if (config.prepStations() < 1 || config.ovenSlots() < 1 || config.prepMillis() < 0 || config.bakeMillis() < 0
+                || config.maxBacklog() < 1 || config.agingMillis() < 0 || config.priority() == null) {
+            throw new IllegalArgumentException("Invalid kitchen configuration");
+        }
+        this.config = config;
+        this.orders = orders;
+        this.statusListener = statusListener;
+        this.onBaked = onBaked;
+        this.clock = clock;
+        this.prep = new Stage(config.prepStations(), config.prepMillis());
+        this.oven = new Stage(config.ovenSlots(), config.bakeMillis());
+    }
+
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kitchen-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastTickEndNanos = System.nanoTime();
+        scheduler.scheduleWithFixedDelay(this::advanceQuietly, DEFAULT_TICK_MILLIS, DEFAULT_TICK_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Orders still in the kitchen keep their status and are resumed after a restart
+    synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    // ---- Intake ----
+
+    // Reserve a place for a new order; false when the kitchen is saturated
+    boolean tryAdmit() {
+        while (true) {
+            int current = backlog.get();
+            if (current >= config.maxBacklog()) {
+                return false;
+            }
+            if (backlog.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Give back a place reserved with tryAdmit() for an order that will not be submitted after all
+    void cancelAdmit() {
+        backlog.decrementAndGet();
+    }
+
+    // Queue a newly placed RECEIVED order; its place was reserved with tryAdmit()
+    void submit(Order order) {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            order.readyEstimateMillis = now + estimateLocked(order.type, now);
+            prep.enqueue(order, now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Take back an order restored after a restart; false if it is past the kitchen. An order that was
+    // baking is treated as baked: by the time we are back up its bake would long be over.
+    boolean resume(Order order) {
+        if (order.paymentStatus.isRejected()) {
+            return false;
+        }
+        switch (order.status) {
+            case RECEIVED, PREPARING -> {
+                backlog.incrementAndGet();
+                submit(order);
+                return true;
+            }
+            case BAKING -> {
+                onBaked.accept(order);
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    // ---- Progress ----
+
+    // Finish all work due by now and start whatever the freed stations can take. Status changes are
+    // reported after the lock is released, in the order they happened. A tick can find hundreds of
+    // finishes due; they are taken ADVANCE_BATCH at a time, so submit() gets the lock in between
+    // instead of holding up the orders being placed until the whole tick is done.
+    void advance(long nowMillis) {
+        boolean more = true;
+        while (more) {
+            List<Runnable> changes = new ArrayList<>();
+            lock.lock();
+            try {
+                more = advanceLocked(nowMillis, changes);
+            } finally {
+                lock.unlock();
+            }
+            for (Runnable change : changes) {
+                change.run();
+            }
+        }
+    }
+
+    // Up to ADVANCE_BATCH of the finishes due by now; true if more are still due
+    private boolean advanceLocked(long nowMillis, List<Runnable> changes) {
+        // Stations free up in time order, so an order never starts before the one ahead of it finished
+        for (int finished = 0; finished < ADVANCE_BATCH; finished++) {
+            long next = Math.min(prep.nextFinishMillis(), oven.nextFinishMillis());
+            if (next > nowMillis) {
+                fill(nowMillis, changes);
+                return false;
+            }
+            if (prep.nextFinishMillis() == next) {
+                Order order = prep.finishNext();
+                oven.enqueue(order, next);
+            } else {
+                Order order = oven.finishNext();
+                completed++;
+                backlog.decrementAndGet();
+                changes.add(() -> onBaked.accept(order));
+            }
+            fill(next, changes);
+        }
+        return true;
+    }
+
+    // When advance() next has work to do: the earliest finish of any station, or Long.MAX_VALUE
+    long nextEventMillis() {
+        lock.lock();
+        try {
+            return Math.min(prep.nextFinishMillis(), oven.nextFinishMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // How long until a new order of this type would leave the oven, from the current queue depths
+    long estimateMillis(OrderType type) {
+        lock.lock();
+        try {
+            return estimateLocked(type, clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int backlog() {
+        return backlog.get();
+    }
+
+    boolean isSaturated() {
+        return backlog.get() >= config.maxBacklog();
+    }
+
+    Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(backlog.get(), prep.queued(), prep.busy(), oven.queued(), oven.busy(), completed, rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Start queued orders on free stations, taking each stage's queues in priority order
+    private void fill(long nowMillis, List<Runnable> changes) {
+        fillStage(prep, nowMillis, changes);
+        fillStage(oven, nowMillis, changes);
+    }
+
+    private void fillStage(Stage stage, long nowMillis, List<Runnable> changes) {
+        while (stage.hasFreeStation()) {
+            Waiting next = stage.pollNext(config.priority(), config.agingMillis());
+            if (next == null) {
+                return;
+            }
+            Order order = next.order();
+            if (order.paymentStatus.isRejected()) {
+                // The card payment did not go through; the order goes no further
+                rejected++;
+                backlog.decrementAndGet();
+                continue;
+            }
+            // A station may have freed up before the order arrived between two ticks
+            long startMillis = Math.max(nowMillis, next.sinceMillis());
+            stage.begin(order, startMillis);
+            if (stage == oven) {
+                order.readyEstimateMillis = startMillis + config.bakeMillis();
+            }
+            // RECEIVED starts preparing, PREPARING starts baking; a resumed PREPARING order just preps again
+            OrderStatus target = stage == prep ? OrderStatus.PREPARING : OrderStatus.BAKING;
+            if (order.status != target) {
+                OrderStatus previous = orders.advance(order);
+                OrderStatus current = order.status;
+                if (previous != null && statusListener != null) {
+                    changes.add(() -> statusListener.onStatusChanged(order, previous, current));
+                }
+            }
+        }
+    }
+
+    // Replays the queues as they stand: the orders ahead take the stations as they free up, then
+    // the new order does. Orders that arrive later, and aging, are not foreseen. Every station of a
+    // stage takes equally long and is free within one service time of now, so each order a station
+    // takes finishes after all that were taken before it: the stations are taken round robin in the
+    // order they free up. That makes the cost O(backlog + stations), bounded by maxBacklog.
+    private long estimateLocked(OrderType type, long nowMillis) {
+        // Prep: orders already being prepared, then the queued ones ahead, then this one
+        int ahead = prep.queuedAhead(type, config.priority());
+        long[] toOven = new long[oven.queued() + prep.busy() + ahead + 1];
+        int arrivals = 0;
+        for (int i = 0; i < oven.queued(); i++) {
+            toOven[arrivals++] = nowMillis;
+        }
+        for (int i = 0; i < prep.stations.length; i++) {
+            if (prep.stations[i] != null) {
+                toOven[arrivals++] = Math.max(nowMillis, prep.finishMillis[i]);
+            }
+        }
+        long[] prepFree = prep.freeTimes(nowMillis);
+        Arrays.sort(prepFree);
+        for (int i = 0; i <= ahead; i++) {
+            int station = i % prepFree.length;
+            prepFree[station] += prep.serviceMillis;
+            toOven[arrivals++] = prepFree[station];
+        }
+        // Ovens: everything reaching the oven queue before this order goes in first
+        long ready = toOven[arrivals - 1];
+        Arrays.sort(toOven, 0, arrivals - 1);
+        long[] ovenFree = oven.freeTimes(nowMillis);
+        Arrays.sort(ovenFree);
+        int slot = 0;
+        for (int i = 0; i < arrivals - 1 && toOven[i] <= ready; i++) {
+            ovenFree[slot] = Math.max(ovenFree[slot], toOven[i]) + oven.serviceMillis;
+            slot = (slot + 1) % ovenFree.length;
+        }
+        return Math.max(ovenFree[slot], ready) + oven.serviceMillis - nowMillis;
+    }
+
+    private void advanceQuietly() {
+        long started = System.nanoTime();
+        long allocated = Metrics.threadAllocatedBytes();
+        try {
+            advance(clock.getAsLong());
+        } catch (RuntimeException e) {
+            // Never let one bad order cancel the periodic task
+            System.err.println("❌ Kitchen scheduling failed: " + e);
+        }
+        // Runs are spaced a fixed delay apart, so each is due that long after the previous one ended
+        ticks.record(lastTickEndNanos + TimeUnit.MILLISECONDS.toNanos(DEFAULT_TICK_MILLIS), started, allocated);
+        lastTickEndNanos = System.nanoTime();
+    }
+
+    // A queued order and when it joined the queue
+    private record Waiting(Order order, long sinceMillis) {
+    }
+
+    // One kind of station (prep or oven) with its two queues; guarded by the scheduler's lock
+    private static final class Stage {
+        final Order[] stations;
+        final long[] finishMillis;
+        final long serviceMillis;
+        final ArrayDeque<Waiting> pickups = new ArrayDeque<>();
+        final ArrayDeque<Waiting> deliveries = new ArrayDeque<>();
+        int busy;
+
+        Stage(int stationCount, long serviceMillis) {
+            this.stations = new Order[stationCount];
+            this.finishMillis = new long[stationCount];
+            this.serviceMillis = serviceMillis;
+        }
+
+        void enqueue(Order order, long nowMillis) {
+            (order.type == OrderType.PICKUP ? pickups : deliveries).add(new Waiting(order, nowMillis));
+        }
+
+        // The priority queue's head, unless the other queue's head has waited the aging limit longer
+        Waiting pollNext(OrderType priority, long agingMillis) {
+            ArrayDeque<Waiting> first = priority == OrderType.PICKUP ? pickups : deliveries;
+            ArrayDeque<Waiting> second = first == pickups ? deliveries : pickups;
+            Waiting other = second.peek();
+            if (other != null && (first.isEmpty() || other.sinceMillis() + agingMillis <= first.peek().sinceMillis())) {
+                return second.poll();
+            }
+            return first.poll();
+        }
+
+        boolean hasFreeStation() {
+            return busy < stations.length;
+        }
+
+        void begin(Order order, long nowMillis) {
+            for (int i = 0; i < stations.length; i++) {
+                if (stations[i] == null) {
+                    stations[i] = order;
+                    finishMillis[i] = nowMillis + serviceMillis;
+                    busy++;
+                    return;
+                }
+            }
+            throw new IllegalStateException("No free station");
+        }
+
+        // When each station is next free: its finish time, or now if idle
+        long[] freeTimes(long nowMillis) {
+            long[] free = new long[stations.length];
+            for (int i = 0; i < stations.length; i++) {
+                free[i] = stations[i] == null ? nowMillis : Math.max(nowMillis, finishMillis[i]);
+            }
+            return free;
+        }
+
+        long nextFinishMillis() {
+            long next = Long.MAX_VALUE;
+            for (int i = 0; i < stations.length; i++) {
+                if (stations[i] != null && finishMillis[i] < next) {
+                    next = finishMillis[i];
+                }
+            }
+            return next;
+        }
+
+        // Free the station that finishes first and return its order
+        Order finishNext() {
+            int earliest = -1;
+            for (int i = 0; i < stations.length; i++) {
+                if (stations[i] != null && (earliest < 0 || finishMillis[i] < finishMillis[earliest])) {
+                    earliest = i;
+                }
+            }
+            Order order = stations[earliest];
+            stations[earliest] = null;
+            busy--;
+            return order;
+        }
+
+        int busy() {
+            return busy;
+        }
+
+        int queued() {
+            return pickups.size() + deliveries.size();
+        }
+
+        // Queued orders a new order of this type would wait behind (ignoring aging)
+        int queuedAhead(OrderType type, OrderType priority) {
+            return type == priority ? (priority == OrderType.PICKUP ? pickups : deliveries).size() : queued();
+        }
+    }
+}
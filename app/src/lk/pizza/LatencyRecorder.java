@@ -0,0 +1,110 @@
+package lk.pizza;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency Recorder
+// A fixed-size log-linear histogram of durations in nanoseconds, in the spirit of HdrHistogram.
+// Each power of two is split into 32 linear buckets, so any value from 1 ns to an hour is kept to
+// within about 3%, in some 1,200 buckets. Recording computes a bucket index from the value's
+// leading zeros and does one atomic increment: no locks, no allocation, a few nanoseconds.
+// Threads are spread over a few stripes so that, on a many-core machine, concurrent recorders do
+// not all contend for the same cache lines.
+//
+// Snapshots read the counts while writers keep recording, so a snapshot taken mid-burst may miss
+// the handful of events recorded while it was being read. Longer values are counted as an hour.
+class LatencyRecorder {
+    static final long MAX_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = index(MAX_TRACKABLE_NANOS) + 1;
+    private static final int STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // A point-in-time copy of the histogram
+    static final class Snapshot {
+        final long count;
+        final long totalNanos;
+        final long maxNanos;
+        private final long[] counts;
+
+        private Snapshot(long count, long totalNanos, long maxNanos, long[] counts) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.counts = counts;
+        }
+
+        // The smallest recorded value that at least this fraction of all values are at or below
+        long percentileNanos(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestEquivalent(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+    }
+
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        counts.getAndIncrement(stripe * BUCKETS + index(value));
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        // A new maximum is rare once the recorder has warmed up, so this CAS almost never runs
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    // Record the time since a System.nanoTime() reading taken at the start of the work
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = counts.get(stripe * BUCKETS + i);
+                merged[i] += c;
+                count += c;
+            }
+        }
+        return new Snapshot(count, totalNanos.sum(), maxNanos.get(), merged);
+    }
+
+    // Values below 64 get a bucket each; above that, the top six bits pick the bucket within the
+    // value's power of two
+    private static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // The largest value that falls in this bucket
+    private static long highestEquivalent(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index - (long) shift * SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,285 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Live Aggregates
+// Running figures for dashboards, updated as orders are placed, move through the kitchen and are
+// rated, rather than recomputed by scanning the orders:
+//   - how many orders are in each status right now
+//   - orders and revenue per order type since start
+//   - per minute: orders and revenue per type, orders reaching each status, ratings, and the
+//     most ordered pizzas, kept for the last hour in a ring of one bucket per minute
+// Windows are built from those buckets: the last complete minute (tumbling), and the last 5 and 60
+// minutes up to now (sliding). The most ordered pizzas are tracked per minute with a Space-Saving
+// summary of a few dozen counters, which finds the heavy hitters of any number of distinct pizzas;
+// summaries of several minutes are merged with the error bound each count may carry. Memory is the
+// same at ten orders an hour or ten thousand.
+//
+// Updates are counter increments on the caller's thread; only the per-minute pizza summary takes a
+// (short, uncontended) lock. Dashboards read an immutable Snapshot that publish() rebuilds about
+// once a second, so reading never locks or allocates. Declined card payments take their revenue
+// back out; orders with a declined payment are not counted in any status.
+class LiveAggregates {
+    static final int MINUTES_KEPT = 60;
+    static final int PIZZA_COUNTERS = 32;  // Space-Saving counters per minute
+    static final int TOP_PIZZAS = 10;
+    static final long PUBLISH_INTERVAL_MILLIS = 1_000;
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final int TYPES = OrderType.values().length;
+    private static final int STATUSES = OrderStatus.values().length;
+    // Per-minute counter layout
+    private static final int ORDERS = 0;                    // By type
+    private static final int CENTS = ORDERS + TYPES;        // By type
+    private static final int REACHED = CENTS + TYPES;       // By status
+    private static final int RATINGS = REACHED + STATUSES;
+    private static final int RATING_TENTHS = RATINGS + 1;
+    private static final int COUNTERS = RATING_TENTHS + 1;
+
+    // count may overstate the pizza's true count by up to error
+    record PizzaCount(long pizzaId, long count, long error) {
+    }
+
+    // Figures for orders placed (and statuses reached, and ratings given) in [fromMillis, toMillis)
+    record Window(long fromMillis, long toMillis, long orders, double ordersPerMinute,
+                  Map<OrderType, Long> ordersByType, Map<OrderType, Long> revenueCentsByType,
+                  Map<OrderStatus, Long> reached, long ratings, double averageRating, List<PizzaCount> topPizzas) {
+        long revenueCents() {
+            long total = 0;
+            for (long cents : revenueCentsByType.values()) {
+                total += cents;
+            }
+            return total;
+        }
+    }
+
+    record Snapshot(long atMillis, Map<OrderStatus, Long> ordersByStatus, Map<OrderType, Long> ordersByType,
+                    Map<OrderType, Long> revenueCentsByType, Window lastMinute, Window last5Minutes,
+                    Window lastHour) {
+    }
+
+    private final LongSupplier clock;
+    private final LongAdder[] inStatus = adders(STATUSES);
+    private final LongAdder[] ordersByType = adders(TYPES);
+    private final LongAdder[] centsByType = adders(TYPES);
+    private final AtomicReferenceArray<Minute> minutes = new AtomicReferenceArray<>(MINUTES_KEPT);
+    private volatile Snapshot snapshot;
+
+    LiveAggregates(LongSupplier clock) {
+        this.clock = clock;
+        publish();
+    }
+
+    // ---- Updates ----
+
+    // A new order, once it has been accepted and logged
+    void placed(Order order) {
+        inStatus[OrderStatus.RECEIVED.ordinal()].increment();
+        count(order, clock.getAsLong());
+    }
+
+    void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        if (!order.paymentStatus.isRejected()) {
+            inStatus[previous.ordinal()].decrement();
+            inStatus[current.ordinal()].increment();
+        }
+        Minute minute = minute(clock.getAsLong(), true);
+        if (minute != null) {
+            minute.counts.incrementAndGet(REACHED + current.ordinal());
+        }
+    }
+
+    void rated(double rating) {
+        Minute minute = minute(clock.getAsLong(), true);
+        if (minute != null) {
+            minute.counts.incrementAndGet(RATINGS);
+            minute.counts.addAndGet(RATING_TENTHS, Math.round(rating * 10));
+        }
+    }
+
+    // A card payment that did not go through: its revenue comes back out, and it leaves its status
+    void rejected(Order order) {
+        inStatus[order.status.ordinal()].decrement();
+        centsByType[order.type.ordinal()].add(-order.totalCents);
+        Minute minute = minute(order.createdAt.getTime(), false);
+        if (minute != null) {
+            minute.counts.addAndGet(CENTS + order.type.ordinal(), -order.totalCents);
+        }
+    }
+
+    // An order loaded at start-up; orders from the last hour go back into their minutes
+    void recovered(Order order) {
+        if (order.paymentStatus.isRejected()) {
+            return;
+        }
+        inStatus[order.status.ordinal()].increment();
+        count(order, order.createdAt.getTime());
+        for (OrderStatus status : OrderStatus.values()) {
+            long at = order.statusMillis[status.ordinal()];
+            if (status != OrderStatus.RECEIVED && status.compareTo(order.status) <= 0 && at > 0) {
+                Minute minute = minute(at, true);
+                if (minute != null) {
+                    minute.counts.incrementAndGet(REACHED + status.ordinal());
+                }
+            }
+        }
+    }
+
+    private void count(Order order, long atMillis) {
+        int type = order.type.ordinal();
+        ordersByType[type].increment();
+        centsByType[type].add(order.totalCents);
+        Minute minute = minute(atMillis, true);
+        if (minute == null) {
+            return;
+        }
+        minute.counts.incrementAndGet(ORDERS + type);
+        minute.counts.addAndGet(CENTS + type, order.totalCents);
+        minute.counts.incrementAndGet(REACHED + OrderStatus.RECEIVED.ordinal());
+        minute.pizzaLock.lock();
+        try {
+            for (Order.Item item : order.items) {
+                minute.pizzas.add(item.pizza().id, item.quantity());
+            }
+        } finally {
+            minute.pizzaLock.unlock();
+        }
+    }
+
+    // The bucket for the minute holding atMillis; null if that minute is no longer kept. A bucket
+    // left over from an hour ago is replaced, unless create is false.
+    private Minute minute(long atMillis, boolean create) {
+        long number = Math.floorDiv(atMillis, MINUTE_MILLIS);
+        int slot = Math.floorMod(number, MINUTES_KEPT);
+        while (true) {
+            Minute current = minutes.get(slot);
+            if (current != null && current.number == number) {
+                return current;
+            }
+            if (!create || current != null && current.number > number) {
+                return null;
+            }
+            if (minutes.compareAndSet(slot, current, new Minute(number))) {
+                return minutes.get(slot);
+            }
+        }
+    }
+
+    // ---- Reads ----
+
+    // The figures as of the last publish(); never blocks
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    // Rebuild the snapshot from the live counters; called every PUBLISH_INTERVAL_MILLIS
+    void publish() {
+        long now = clock.getAsLong();
+        long thisMinute = Math.floorDiv(now, MINUTE_MILLIS);
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, inStatus[status.ordinal()].sum());
+        }
+        snapshot = new Snapshot(now, Collections.unmodifiableMap(byStatus), byType(ordersByType),
+                byType(centsByType),
+                window(thisMinute - 1, thisMinute, thisMinute * MINUTE_MILLIS),
+                window(thisMinute - 4, thisMinute + 1, now),
+                window(thisMinute - MINUTES_KEPT + 1, thisMinute + 1, now));
+    }
+
+    // Minutes [first, end), with figures up to toMillis
+    private Window window(long first, long end, long toMillis) {
+        long[] totals = new long[COUNTERS];
+        Map<Long, long[]> pizzas = new HashMap<>(); // pizzaId -> count, error, sum of the minimums where present
+        long minimums = 0;
+        for (long number = first; number < end; number++) {
+            Minute minute = minutes.get(Math.floorMod(number, MINUTES_KEPT));
+            if (minute == null || minute.number != number) {
+                continue;
+            }
+            for (int i = 0; i < COUNTERS; i++) {
+                totals[i] += minute.counts.get(i);
+            }
+            minute.pizzaLock.lock();
+            try {
+                SpaceSaving summary = minute.pizzas;
+                long minimum = summary.untrackedBound();
+                minimums += minimum;
+                for (int i = 0; i < summary.size(); i++) {
+                    long[] merged = pizzas.computeIfAbsent(summary.id(i), id -> new long[3]);
+                    merged[0] += summary.count(i);
+                    merged[1] += summary.error(i);
+                    merged[2] += minimum;
+                }
+            } finally {
+                minute.pizzaLock.unlock();
+            }
+        }
+
+        // A pizza missing from a full summary may have sold up to that summary's smallest count there
+        List<PizzaCount> top = new ArrayList<>(pizzas.size());
+        for (Map.Entry<Long, long[]> entry : pizzas.entrySet()) {
+            long[] merged = entry.getValue();
+            top.add(new PizzaCount(entry.getKey(), merged[0], merged[1] + minimums - merged[2]));
+        }
+        top.sort((a, b) -> Long.compare(b.count(), a.count()));
+
+        long fromMillis = first * MINUTE_MILLIS;
+        Map<OrderType, Long> orders = new EnumMap<>(OrderType.class);
+        Map<OrderType, Long> cents = new EnumMap<>(OrderType.class);
+        long orderCount = 0;
+        for (OrderType type : OrderType.values()) {
+            orders.put(type, totals[ORDERS + type.ordinal()]);
+            cents.put(type, totals[CENTS + type.ordinal()]);
+            orderCount += totals[ORDERS + type.ordinal()];
+        }
+        Map<OrderStatus, Long> reached = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            reached.put(status, totals[REACHED + status.ordinal()]);
+        }
+        double elapsedMinutes = Math.max(1, toMillis - fromMillis) / (double) MINUTE_MILLIS;
+        long ratings = totals[RATINGS];
+        return new Window(fromMillis, toMillis, orderCount, orderCount / elapsedMinutes,
+                Collections.unmodifiableMap(orders), Collections.unmodifiableMap(cents),
+                Collections.unmodifiableMap(reached), ratings,
+                ratings == 0 ? 0 : totals[RATING_TENTHS] / 10.0 / ratings,
+                List.copyOf(top.subList(0, Math.min(TOP_PIZZAS, top.size()))));
+    }
+
+    private static Map<OrderType, Long> byType(LongAdder[] adders) {
+        Map<OrderType, Long> values = new EnumMap<>(OrderType.class);
+        for (OrderType type : OrderType.values()) {
+            values.put(type, adders[type.ordinal()].sum());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    // One minute's counters and its Space-Saving summary of pizzas ordered
+    private static final class Minute {
+        final long number; // Minutes since the epoch
+        final AtomicLongArray counts = new AtomicLongArray(COUNTERS);
+        final ReentrantLock pizzaLock = new ReentrantLock(); // Not synchronized: placeOrder runs on virtual threads
+        final SpaceSaving pizzas = new SpaceSaving(PIZZA_COUNTERS); // Guarded by pizzaLock
+
+        Minute(long number) {
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package lk.pizza;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+// Long Index
+// Concurrent map from primitive long keys to values. Keys are spread over lock stripes, and each
+// stripe is an open-addressing table with linear probing, so there is no boxing of keys and no
+// per-entry node objects. Reads are optimistic and only fall back to a read lock if a writer
+// touched the same stripe in the meantime.
+class LongIndex<V> {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int STRIPES = 64; // Must be a power of two
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    LongIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    V get(long key) {
+        checkKey(key);
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.tryOptimisticRead();
+        Object value = stripe.table.find(key, hash);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                value = stripe.table.find(key, hash);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        @SuppressWarnings("unchecked") V result = (V) value;
+        return result;
+    }
+
+    boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    // Store a value, replacing any previous mapping; returns the previous value or null
+    V put(long key, V value) {
+        checkKey(key);
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            @SuppressWarnings("unchecked") V previous = (V) stripe.put(key, hash, value, true);
+            return previous;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Atomically create and store a value if the key is absent; returns the new value, or null if the key was taken
+    V insertIfAbsent(long key, LongFunction<? extends V> factory) {
+        checkKey(key);
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (stripe.table.find(key, hash) != null) {
+                return null;
+            }
+            V value = factory.apply(key);
+            stripe.put(key, hash, value, false);
+            return value;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(long hash) {
+        // High bits pick the stripe, low bits pick the slot inside it
+        return stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+    }
+
+    private static long mix(long key) {
+        // Murmur3 finalizer; contact numbers and ids are far from uniformly distributed
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    // Keys and values are swapped together on resize so an optimistic reader always sees a matching pair
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        Object find(long key, long hash) {
+            // Bounded probe so a torn optimistic read can never loop forever
+            for (int i = (int) hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == EMPTY) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        Table table = new Table(INITIAL_CAPACITY);
+        int size;
+
+        // Caller must hold the write lock
+        Object put(long key, long hash, Object value, boolean replace) {
+            if ((size + 1) * 4 > table.keys.length * 3) {
+                resize();
+            }
+            Table t = table;
+            for (int i = (int) hash & t.mask; ; i = (i + 1) & t.mask) {
+                long k = t.keys[i];
+                if (k == key) {
+                    Object previous = t.values[i];
+                    if (replace) {
+                        t.values[i] = value;
+                    }
+                    return previous;
+                }
+                if (k == EMPTY) {
+                    // Publish the value before the key so readers never match a key without its value
+                    t.values[i] = value;
+                    t.keys[i] = key;
+                    size++;
+                    return null;
+                }
+            }
+        }
+
+        private void resize() {
+            Table old = table;
+            Table grown = new Table(old.keys.length * 2);
+            for (int i = 0; i < old.keys.length; i++) {
+                long key = old.keys[i];
+                if (key != EMPTY) {
+                    for (int j = (int) mix(key) & grown.mask; ; j = (j + 1) & grown.mask) {
+                        if (grown.keys[j] == EMPTY) {
+                            grown.keys[j] = key;
+                            grown.values[j] = old.values[i];
+                            break;
+                        }
+                    }
+                }
+            }
+            table = grown;
+        }
+    }
+}
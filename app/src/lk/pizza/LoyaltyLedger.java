@@ -0,0 +1,194 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Loyalty Ledger
+// One user's loyalty points as an append-only chain of transactions. The newest transaction is the
+// head and carries the balance after it (and the tier for that balance), so reading the balance is
+// one volatile read, and an update is a single compare-and-set that appends the transaction and
+// changes the balance together. Concurrent orders on one account retry instead of blocking, and
+// none of their points are lost or spent twice.
+//
+// Sequence numbers are per user and gap-free. Events may reach the log out of order when two
+// updates race; replay puts them back in sequence order.
+class LoyaltyLedger {
+    enum Kind {
+        EARN,     // Points credited for an order
+        REDEEM,   // Points used up by a payment
+        ADJUST    // Correction: the opening entry, or cancelling an order that was never placed
+    }
+
+    // One entry of the chain; immutable once published
+    static final class Transaction {
+        final long sequence;
+        final Kind kind;
+        final int points;  // Change in balance: positive for EARN, negative for REDEEM, either for ADJUST
+        final int balance; // Balance after this transaction
+        final long orderId; // 0 when not tied to an order
+        final long atMillis;
+        final LoyaltyTier tier; // Cached so readers never recompute it
+        final Transaction previous;
+
+        Transaction(long sequence, Kind kind, int points, int balance, long orderId, long atMillis,
+                    Transaction previous) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.points = points;
+            this.balance = balance;
+            this.orderId = orderId;
+            this.atMillis = atMillis;
+            this.tier = LoyaltyTier.forPoints(balance);
+            this.previous = previous;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + sequence + " " + kind + " " + points + " -> " + balance;
+        }
+    }
+
+    // The balance before any transaction
+    private static final Transaction OPENING = new Transaction(0, Kind.ADJUST, 0, 0, 0, 0, null);
+
+    private final AtomicReference<Transaction> head = new AtomicReference<>(OPENING);
+
+    int balance() {
+        return head.get().balance;
+    }
+
+    LoyaltyTier tier() {
+        return head.get().tier;
+    }
+
+    Transaction last() {
+        return head.get();
+    }
+
+    // ---- Updates (lock-free) ----
+
+    Transaction earn(int points, long orderId, long nowMillis) {
+        if (points < 0) {
+            throw new IllegalArgumentException("Points earned cannot be negative.");
+        }
+        while (true) {
+            Transaction current = head.get();
+            Transaction next = new Transaction(current.sequence + 1, Kind.EARN, points, current.balance + points,
+                    orderId, nowMillis, current);
+            if (head.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Spend points if the balance covers them; returns null (and changes nothing) if it does not
+    Transaction redeem(int points, long orderId, long nowMillis) {
+        if (points < 0) {
+            throw new IllegalArgumentException("Points redeemed cannot be negative.");
+        }
+        while (true) {
+            Transaction current = head.get();
+            if (current.balance < points) {
+                return null;
+            }
+            Transaction next = new Transaction(current.sequence + 1, Kind.REDEEM, -points, current.balance - points,
+                    orderId, nowMillis, current);
+            if (head.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Earn, then redeem if the new balance covers it, as one atomic step. Returns the transactions
+    // appended, oldest first: the EARN, followed by the REDEEM when there was one.
+    List<Transaction> settleOrder(int earned, int redeemed, long orderId, long nowMillis) {
+        if (earned < 0 || redeemed < 0) {
+            throw new IllegalArgumentException("Points cannot be negative.");
+        }
+        while (true) {
+            Transaction current = head.get();
+            Transaction earn = new Transaction(current.sequence + 1, Kind.EARN, earned, current.balance + earned,
+                    orderId, nowMillis, current);
+            Transaction next = earn;
+            if (redeemed > 0 && earn.balance >= redeemed) {
+                next = new Transaction(earn.sequence + 1, Kind.REDEEM, -redeemed, earn.balance - redeemed, orderId,
+                        nowMillis, earn);
+            }
+            if (head.compareAndSet(current, next)) {
+                return next == earn ? List.of(earn) : List.of(earn, next);
+            }
+        }
+    }
+
+    // Take back transactions just appended (as returned by settleOrder), when what they paid for
+    // did not happen. Only possible while they are still the newest; returns false otherwise.
+    boolean revert(List<Transaction> appended) {
+        if (appended.isEmpty()) {
+            return true;
+        }
+        return head.compareAndSet(appended.get(appended.size() - 1), appended.get(0).previous);
+    }
+
+    // Take back transactions appended for something that did not happen. If another update got in
+    // since, they can no longer be unwound, so an ADJUST cancelling their points is appended instead;
+    // the balance can then dip below zero when the other update spent points these earned.
+    void undo(List<Transaction> appended, long nowMillis) {
+        if (revert(appended)) {
+            return;
+        }
+        int points = 0;
+        for (Transaction t : appended) {
+            points -= t.points;
+        }
+        long orderId = appended.get(0).orderId;
+        while (true) {
+            Transaction current = head.get();
+            Transaction next = new Transaction(current.sequence + 1, Kind.ADJUST, points, current.balance + points,
+                    orderId, nowMillis, current);
+            if (head.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // ---- History ----
+
+    // Every transaction, oldest first
+    List<Transaction> history() {
+        List<Transaction> history = new ArrayList<>();
+        for (Transaction t = head.get(); t != OPENING; t = t.previous) {
+            history.add(t);
+        }
+        Collections.reverse(history);
+        return history;
+    }
+
+    // ---- Recovery (single-threaded, before the ledger is shared) ----
+
+    // Put back a logged transaction; duplicates are ignored and late arrivals slot in by sequence
+    void replay(long sequence, Kind kind, int points, int balance, long orderId, long atMillis) {
+        Transaction current = head.get();
+        if (sequence > current.sequence) {
+            head.set(new Transaction(sequence, kind, points, balance, orderId, atMillis, current));
+            return;
+        }
+        // Rare: a later transaction was logged first. Unwind to the insertion point and rebuild.
+        List<Transaction> newer = new ArrayList<>();
+        Transaction below = current;
+        while (below.sequence > sequence) {
+            newer.add(below);
+            below = below.previous;
+        }
+        if (below.sequence == sequence) {
+            return;
+        }
+        Transaction rebuilt = new Transaction(sequence, kind, points, balance, orderId, atMillis, below);
+        for (int i = newer.size() - 1; i >= 0; i--) {
+            Transaction t = newer.get(i);
+            rebuilt = new Transaction(t.sequence, t.kind, t.points, t.balance, t.orderId, t.atMillis, rebuilt);
+        }
+        head.set(rebuilt);
+    }
+}
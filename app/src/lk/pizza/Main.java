@@ -0,0 +1,1037 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+// Order Status and Order Type Enums
+enum OrderStatus {
+    RECEIVED, PREPARING, BAKING, OUT_FOR_DELIVERY, DELIVERED;
+
+    // The stage that follows this one, or null once the order is delivered
+    OrderStatus next() {
+        return switch (this) {
+            case RECEIVED -> PREPARING;
+            case PREPARING -> BAKING;
+            case BAKING -> OUT_FOR_DELIVERY;
+            case OUT_FOR_DELIVERY -> DELIVERED;
+            case DELIVERED -> null;
+        };
+    }
+}
+
+enum OrderType {
+    PICKUP, DELIVERY
+}
+
+// The Colombo areas we deliver to. A delivery address starts with its area's label, e.g.
+// "Colombo 3 - Kollupitiya, Galle Road, 42".
+enum ColomboArea {
+    FORT("Colombo 1 - Fort"), SLAVE_ISLAND("Colombo 2 - Slave Island"), KOLLUPITIYA("Colombo 3 - Kollupitiya"),
+    BAMBALAPITIYA("Colombo 4 - Bambalapitiya"), HAVELOCK_TOWN("Colombo 5 - Havelock Town"),
+    WELLAWATTE("Colombo 6 - Wellawatte"), CINNAMON_GARDENS("Colombo 7 - Cinnamon Gardens"),
+    BORELLA("Colombo 8 - Borella"), DEMATAGODA("Colombo 9 - Dematagoda"), MARADANA("Colombo 10 - Maradana"),
+    PETTAH("Colombo 11 - Pettah"), HULFTSDORP("Colombo 12 - Hulftsdorp"), KOTAHENA("Colombo 13 - Kotahena"),
+    GRANDPASS("Colombo 14 - Grandpass"), MUTWAL("Colombo 15 - Mutwal");
+
+    final String label;
+
+    ColomboArea(String label) {
+        this.label = label;
+    }
+
+    static List<String> labels() {
+        List<String> labels = new ArrayList<>();
+        for (ColomboArea area : values()) {
+            labels.add(area.label);
+        }
+        return List.copyOf(labels);
+    }
+
+    // The area an address was built for, or null if it does not start with an area label
+    static ColomboArea fromAddress(String address) {
+        if (address == null) {
+            return null;
+        }
+        for (ColomboArea area : values()) {
+            if (address.startsWith(area.label)
+                    && (address.length() == area.label.length() || address.charAt(area.label.length()) == ',')) {
+                return area;
+            }
+        }
+        return null;
+    }
+}
+
+// Where an order's payment stands. Cash is paid on pickup or delivery; card payments are authorized
+// in the background (PENDING until then) and settled in batches afterwards.
+enum PaymentStatus {
+    CASH, PENDING, AUTHORIZED, SETTLED, DECLINED, FAILED;
+
+    // The kitchen stops working on an order whose card payment did not go through
+    boolean isRejected() {
+        return this == DECLINED || this == FAILED;
+    }
+}
+
+// Loyalty tiers, earned by the points a user currently holds
+enum LoyaltyTier {
+    BRONZE(0), SILVER(100), GOLD(500);
+
+    final int minPoints;
+
+    LoyaltyTier(int minPoints) {
+        this.minPoints = minPoints;
+    }
+
+    static LoyaltyTier forPoints(int points) {
+        return points >= GOLD.minPoints ? GOLD : points >= SILVER.minPoints ? SILVER : BRONZE;
+    }
+}
+
+// User Class
+class User {
+    Long id;
+    String name;
+    String contactNumber;
+    String address;
+    ColomboArea area; // Null until an address is set
+    final LoyaltyLedger loyalty = new LoyaltyLedger();
+    final Map<Long, Pizza> favoritePizzas = new LinkedHashMap<>(); // By pizza id, in the order added
+    SpaceSaving orderedPizzas; // How often each pizza was ordered, for recommendations; null until the first order
+    final List<Pizza> customPizzas = new ArrayList<>(); // Pizzas this user designed, oldest first; guarded by the user's lock
+    volatile MenuCatalog.UserMenu menu; // Cached menu as this user sees it; null once customPizzas changes
+    volatile ReorderTemplate lastOrder; // What a one-tap reorder repeats; null until there is one; written under the user's lock
+
+    User(Long id, String name, String contactNumber) {
+        this.id = id;
+        this.name = name;
+        this.contactNumber = contactNumber;
+        this.address = "Not Set";
+    }
+
+    void updateAddress(ColomboArea area, String address) {
+        this.area = area;
+        this.address = address;
+    }
+
+    int loyaltyPoints() {
+        return loyalty.balance();
+    }
+
+    // False if it was already a favorite
+    boolean addToFavorites(Pizza pizza) {
+        return favoritePizzas.putIfAbsent(pizza.id, pizza) == null;
+    }
+
+    boolean removeFromFavorites(Pizza pizza) {
+        return favoritePizzas.remove(pizza.id, pizza);
+    }
+
+    @Override
+    public String toString() {
+        return TextFormat.buffer()
+                .append("👤 User ID: ").append(id.longValue())
+                .append(" | Name: ").append(name)
+                .append(" | Contact: ").append(contactNumber)
+                .append(" | Address: ").append(address)
+                .append(" | Loyalty Points: ").append(loyalty.balance())
+                .append(" (").append(loyalty.tier().name()).append(')')
+                .toString();
+    }
+}
+
+// Pizza Class
+class Pizza {
+    // Usage marks for custom pizzas (see PizzaInternTable); other values are the last time it was chosen
+    static final long PINNED = Long.MAX_VALUE;   // Ordered at least once, so never evicted
+    static final long RETIRED = Long.MIN_VALUE;  // Evicted from the menu; can no longer be ordered
+    private static final AtomicLongFieldUpdater<Pizza> LAST_USED =
+            AtomicLongFieldUpdater.newUpdater(Pizza.class, "lastUsedMillis");
+
+    Long id;
+    String name;
+    final long configKey; // Crust, sauce, cheese and toppings, packed by PizzaConfig
+    double basePrice;
+    private volatile RatingAggregator ratings; // Created on the first rating; most custom pizzas never get one
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
+    Pizza(Long id, String name, long configKey, double basePrice) {
+        this.id = id;
+        this.name = name;
+        this.configKey = configKey;
+        this.basePrice = basePrice;
+    }
+
+    Pizza(Long id, String name, String crust, String sauce, String cheese, List<String> toppings, double basePrice) {
+        this(id, name, PizzaConfig.key(crust, sauce, cheese, toppings), basePrice);
+    }
+
+    String crust() {
+        return PizzaConfig.crust(configKey).label();
+    }
+
+    String sauce() {
+        return PizzaConfig.sauce(configKey).label();
+    }
+
+    String cheese() {
+        return PizzaConfig.cheese(configKey).label();
+    }
+
+    List<String> toppings() {
+        return PizzaConfig.toppingLabels(configKey);
+    }
+
+    // Note that the pizza was chosen again; false if it has been retired
+    boolean touch(long nowMillis) {
+        while (true) {
+            long current = lastUsedMillis;
+            if (current == RETIRED || current == PINNED) {
+                return current == PINNED;
+            }
+            if (current >= nowMillis || LAST_USED.compareAndSet(this, current, nowMillis)) {
+                return true;
+            }
+        }
+    }
+
+    // Mark the pizza as ordered so it stays on the menu; false if it has been retired
+    boolean pin() {
+        while (true) {
+            long current = lastUsedMillis;
+            if (current == RETIRED || current == PINNED) {
+                return current == PINNED;
+            }
+            if (LAST_USED.compareAndSet(this, current, PINNED)) {
+                return true;
+            }
+        }
+    }
+
+    boolean isRetired() {
+        return lastUsedMillis == RETIRED;
+    }
+
+    // Retire the pizza if it was never ordered and not chosen since the cutoff
+    boolean retireIfUnusedSince(long cutoffMillis) {
+        long current = lastUsedMillis;
+        return current != PINNED && current != RETIRED && current < cutoffMillis
+                && LAST_USED.compareAndSet(this, current, RETIRED);
+    }
+
+    // Safe to call concurrently; ratings are whole stars
+    void updateRating(double newRating) {
+        ratings().record((int) Math.round(newRating), System.currentTimeMillis());
+    }
+
+    RatingAggregator ratings() {
+        RatingAggregator current = ratings;
+        if (current == null) {
+            synchronized (this) {
+                current = ratings;
+                if (current == null) {
+                    current = new RatingAggregator();
+                    ratings = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Null until the pizza is first rated
+    RatingAggregator ratingsIfPresent() {
+        return ratings;
+    }
+
+    double rating() {
+        RatingAggregator current = ratings;
+        return current == null ? 0.0 : current.average();
+    }
+
+    double recentRating() {
+        RatingAggregator current = ratings;
+        return current == null ? 0.0 : current.decayedAverage();
+    }
+
+    long ratingCount() {
+        RatingAggregator current = ratings;
+        return current == null ? 0 : current.count();
+    }
+
+    // Rendered straight into the caller's buffer, so nothing is cached per pizza
+    StringBuilder appendDescription(StringBuilder out) {
+        out.append("🍕 Pizza: ").append(name).append(" | Crust: ").append(crust()).append(" | Sauce: ").append(sauce())
+                .append(" | Cheese: ").append(cheese()).append(" | Toppings: ");
+        return PizzaConfig.appendToppings(out, configKey).append(" | Base Price: $");
+    }
+
+    // Description, price and rating, as listed on the menu
+    StringBuilder appendListing(StringBuilder out) {
+        TextFormat.appendFixed(appendDescription(out), basePrice, 2).append(" | Rating: ");
+        return TextFormat.appendFixed(out, rating(), 2);
+    }
+
+    StringBuilder appendJson(StringBuilder out) {
+        out.append("{\"id\":").append(id.longValue()).append(",\"name\":");
+        Json.quote(out, name).append(",\"crust\":");
+        Json.quote(out, crust()).append(",\"sauce\":");
+        Json.quote(out, sauce()).append(",\"cheese\":");
+        Json.quote(out, cheese()).append(",\"toppings\":[");
+        List<String> toppings = toppings();
+        for (int i = 0; i < toppings.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Json.quote(out, toppings.get(i));
+        }
+        out.append("],\"basePrice\":");
+        TextFormat.appendFixed(out, basePrice, 2).append(",\"rating\":");
+        TextFormat.appendFixed(out, rating(), 2).append(",\"recentRating\":");
+        TextFormat.appendFixed(out, recentRating(), 2).append(",\"ratingCount\":");
+        return out.append(ratingCount()).append('}');
+    }
+
+    @Override
+    public String toString() {
+        return appendListing(TextFormat.buffer()).toString();
+    }
+}
+
+// Order Class
+// One or more pizzas with quantities, priced, paid and tracked as a single order. pizza is the
+// first item's pizza, for views that show one pizza per order.
+class Order {
+    // One line of an order; an order never holds two items for the same pizza
+    record Item(Pizza pizza, int quantity) {
+    }
+
+    Long id;
+    User user;
+    Pizza pizza;
+    List<Item> items;
+    OrderType type;
+    String deliveryAddress;
+    ColomboArea area; // Where a delivery goes, taken from the address; null for pickup
+    volatile OrderStatus status;
+    Date createdAt;
+    String feedback = "No feedback given";
+    Double pizzaRating = 0.0;
+    long totalCents; // Charged after promotions and loyalty discount
+    volatile PaymentStatus paymentStatus = PaymentStatus.SETTLED; // Placing sets CASH or PENDING; recovery the logged status
+    String paymentReference = ""; // The gateway's authorization reference for card payments
+    int pointsEarned; // Loyalty points to credit once a card payment is authorized
+    String reorderKey; // Issued with a new card to confirm reorders; in memory only, until takeReorderKey()
+    volatile long readyEstimateMillis; // When the kitchen expects it out of the oven; 0 if not known
+    volatile boolean awaitingKitchen; // Accepted, but waiting in the intake queue for room in the kitchen
+    final long[] statusMillis = new long[OrderStatus.values().length]; // When each status was reached, by ordinal; 0 if not known
+    int historyRow = -1; // Row in the OrderHistory once delivered; guarded by the history's lock
+
+    Order(Long id, User user, Pizza pizza, OrderType type, String deliveryAddress) {
+        this(id, user, List.of(new Item(pizza, 1)), type, deliveryAddress);
+    }
+
+    Order(Long id, User user, List<Item> items, OrderType type, String deliveryAddress) {
+        this.id = id;
+        this.user = user;
+        this.pizza = items.get(0).pizza();
+        this.items = List.copyOf(items);
+        this.type = type;
+        this.deliveryAddress = deliveryAddress;
+        this.area = type == OrderType.DELIVERY ? ColomboArea.fromAddress(deliveryAddress) : null;
+        this.status = OrderStatus.RECEIVED;
+        this.createdAt = new Date();
+        this.statusMillis[OrderStatus.RECEIVED.ordinal()] = createdAt.getTime();
+    }
+
+    synchronized void updateStatus() {
+        OrderStatus next = status.next();
+        if (next != null) {
+            status = next;
+        }
+    }
+
+    void addFeedback(String feedback) {
+        this.feedback = feedback;
+    }
+
+    // The rating counts once for every pizza in the order
+    void addPizzaRating(double rating) {
+        this.pizzaRating = rating;
+        for (Item item : items) {
+            item.pizza().updateRating(rating);
+        }
+    }
+
+    // The reorder key for the customer who placed this order, once; null if none was issued
+    String takeReorderKey() {
+        String key = reorderKey;
+        reorderKey = null;
+        return key;
+    }
+
+    // What the order is for, as priced: one line per pizza
+    List<OrderLine> lines() {
+        List<OrderLine> lines = new ArrayList<>(items.size());
+        for (Item item : items) {
+            lines.add(new OrderLine(item.pizza().id, item.quantity()));
+        }
+        return lines;
+    }
+
+    // Pizza names with quantities above one, e.g. "Margherita x2, Pepperoni"
+    StringBuilder appendPizzas(StringBuilder out) {
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            out.append(i == 0 ? "" : ", ").append(item.pizza().name);
+            if (item.quantity() > 1) {
+                out.append(" x").append(item.quantity());
+            }
+        }
+        return out;
+    }
+
+    String pizzaNames() {
+        return items.size() == 1 && items.get(0).quantity() == 1 ? pizza.name : appendPizzas(new StringBuilder()).toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = TextFormat.buffer()
+                .append("📦 Order ID: ").append(id.longValue())
+                .append(" | Pizza: ");
+        appendPizzas(out)
+                .append(" | Type: ").append(type.name())
+                .append(" | Status: ").append(status.name())
+                .append(" | Payment: ").append(paymentStatus.name())
+                .append(" | Address: ").append(deliveryAddress)
+                .append(" | Feedback: ").append(feedback)
+                .append(" | Rating: ");
+        return TextFormat.appendFixed(out, pizzaRating, 1).toString();
+    }
+}
+
+// Promotion Class
+// Immutable once built, so PromotionEngine can share promotions between snapshots and pricing threads.
+// Optional conditions: a validity window, a single pizza, and a minimum loyalty tier. Stackable
+// promotions combine with each other; an exclusive one competes against the stack (see PromotionEngine).
+class Promotion {
+    static final long ALWAYS = Long.MAX_VALUE;
+
+    final String description;
+    final double discountAmount;
+    final double minOrderAmount;
+    final long startMillis;
+    final long endMillis;      // Exclusive; ALWAYS for no end
+    final Long pizzaId;        // null applies to every pizza
+    final LoyaltyTier minTier;
+    final boolean stackable;
+
+    Promotion(String description, double discountAmount, double minOrderAmount) {
+        this(description, discountAmount, minOrderAmount, 0, ALWAYS, null, LoyaltyTier.BRONZE, false);
+    }
+
+    Promotion(String description, double discountAmount, double minOrderAmount, long startMillis, long endMillis,
+              Long pizzaId, LoyaltyTier minTier, boolean stackable) {
+        this.description = description;
+        this.discountAmount = discountAmount;
+        this.minOrderAmount = minOrderAmount;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.pizzaId = pizzaId;
+        this.minTier = minTier;
+        this.stackable = stackable;
+    }
+
+    // Conditions other than the order amount, which the engine's index has already checked
+    boolean appliesTo(long orderPizzaId, LoyaltyTier tier, long nowMillis) {
+        return nowMillis >= startMillis && nowMillis < endMillis
+                && (pizzaId == null || pizzaId == orderPizzaId)
+                && tier.compareTo(minTier) >= 0;
+    }
+
+    boolean isExpired(long nowMillis) {
+        return nowMillis >= endMillis;
+    }
+}
+
+// Payment Class
+// Loyalty rules applied when an order is paid. Amounts are in cents and nothing is printed, so the
+// same rules serve the console, the HTTP API and quotes.
+class Payment {
+    static final int DISCOUNT_PERCENT = 5;
+    static final long CENTS_PER_POINT_SPENT = 1000; // Paying $10 uses up one loyalty point
+
+    // 5% off for customers holding loyalty points, rounded to the nearest cent
+    static long loyaltyDiscountCents(int loyaltyPoints, long amountCents) {
+        return loyaltyPoints > 0 ? (amountCents * DISCOUNT_PERCENT + 50) / 100 : 0;
+    }
+
+    // Points a payment of this size uses up, if the user has that many
+    static int pointsSpent(long totalCents) {
+        return (int) (totalCents / CENTS_PER_POINT_SPENT);
+    }
+}
+
+// Main Pizza Ordering System
+// Console client of OrderService: one person at a keyboard, so the session is a single currentUser.
+class PizzaOrderingSystem {
+    static OrderService service = new OrderService(Path.of(System.getProperty("pizza.dataDir", "data")));
+    static Scanner scanner = new Scanner(System.in);
+    static User currentUser = null;
+    static String reorderKey = null; // From currentUser's last card order in this session
+
+    public static void main(String[] args) throws IOException {
+        service.start();
+        signUpOrLoginMenu();
+    }
+
+    static void shutdown() {
+        try {
+            service.shutdown();
+        } catch (IOException e) {
+            System.out.println("❌ Failed to flush saved data: " + e.getMessage());
+        }
+    }
+
+    static void signUpOrLoginMenu() {
+        System.out.println("👤 Welcome to the Pizza Ordering System");
+
+        while (true) {
+            System.out.println("\n📜 Menu:");
+            System.out.println("1. Sign Up");
+            System.out.println("2. Log In");
+            System.out.print("💡 Enter your choice: ");
+            int choice = validateMenuChoice();
+            if (choice == 1) {
+                signUp();
+                break;
+            } else if (choice == 2) {
+                login();
+                break;
+            } else {
+                System.out.println("❌ Invalid choice. Please enter a valid option.");
+            }
+        }
+
+        mainMenu();
+    }
+
+    static void signUp() {
+        System.out.println("\n🎉 Sign Up");
+
+        String name = getNonEmptyInput("💡 Enter your name: ");
+        String contactNumber = getValidContactNumber();
+
+        try {
+            currentUser = service.signUp(name, contactNumber);
+            reorderKey = null;
+            System.out.println("✅ Sign-Up successful! Welcome, " + currentUser.name);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
+    }
+
+    static void login() {
+        System.out.println("\n🔑 Log In");
+
+        String contactNumber = getNonEmptyInput("💡 Enter your contact number: ");
+        try {
+            currentUser = service.login(contactNumber);
+            reorderKey = null;
+            System.out.println("✅ Login successful! Welcome back, " + currentUser.name);
+        } catch (NoSuchElementException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
+    }
+
+    static void mainMenu() {
+        while (true) {
+            System.out.println("\n📜 Menu:");
+            System.out.println("1. Customize a Pizza");
+            System.out.println("2. Place an Order");
+            System.out.println("3. Update Delivery Address");
+            System.out.println("4. View User Profile and Favorites");
+            System.out.println("5. Add to Favorites");
+            System.out.println("6. Remove from Favorites");
+            System.out.println("7. View Notifications");
+            System.out.println("8. View Promotions");
+            System.out.println("9. Give Feedback and Rating");
+            System.out.println("10. Reorder Your Last Order");
+            System.out.println("11. Exit");
+            System.out.print("💡 Enter your choice: ");
+            int choice = validateMenuChoice();
+            switch (choice) {
+                case 1 -> customizePizza();
+                case 2 -> placeOrder();
+                case 3 -> updateAddress();
+                case 4 -> viewUserProfileAndFavorites();
+                case 5 -> addToFavorites();
+                case 6 -> removeFromFavorites();
+                case 7 -> viewNotifications();
+                case 8 -> viewPromotions();
+                case 9 -> giveFeedbackAndRating();
+                case 10 -> reorder();
+                case 11 -> {
+                    System.out.println("👋 Goodbye!");
+                    shutdown();
+                    return;
+                }
+                default -> System.out.println("❌ Invalid choice. Please enter a valid option.");
+            }
+        }
+    }
+
+    static int validateMenuChoice() {
+        while (true) {
+            try {
+                int choice = Integer.parseInt(scanner.nextLine().trim());
+                if (choice < 1 || choice > 11) {
+                    System.out.print("❌ Invalid choice. Please enter a valid option (1-11): ");
+                } else {
+                    return choice;
+                }
+            } catch (NumberFormatException e) {
+                System.out.print("❌ Invalid input. Please enter a number: ");
+            }
+        }
+    }
+
+    static String getNonEmptyInput(String prompt) {
+        String input;
+        while (true) {
+            System.out.print(prompt);
+            input = scanner.nextLine().trim();
+            if (!input.isEmpty()) {
+                return input;
+            }
+            System.out.println("❌ Input cannot be empty. Please try again.");
+        }
+    }
+
+    static String getValidContactNumber() {
+        while (true) {
+            String contactNumber = getNonEmptyInput("💡 Enter your contact number (10 digits): ");
+            if (isValidContactNumber(contactNumber)) {
+                return contactNumber;
+            } else {
+                System.out.println("❌ Invalid contact number. Please enter a valid 10-digit number.");
+            }
+        }
+    }
+
+    static boolean isValidContactNumber(String contactNumber) {
+        return UserRepository.parseContactNumber(contactNumber) >= 0;
+    }
+
+    static void customizePizza() {
+        System.out.println("\n🍕 Customize your Pizza");
+
+        String pizzaName = getNonEmptyInput("💡 Enter a name for your pizza (default: Custom Pizza): ");
+        String crust = getCrustChoice();
+        String sauce = getSauceChoice();
+        String cheese = getCheeseChoice();
+        List<String> toppings = getToppingsChoice();
+
+        Pizza customPizza = service.customizePizza(currentUser, pizzaName, crust, sauce, cheese, toppings);
+        System.out.println("✅ Custom pizza created: " + customPizza);
+    }
+
+    static String getCrustChoice() {
+        System.out.println("💡 Choose crust:");
+        return getChoiceFromMenu(OrderService.CRUSTS);
+    }
+
+    static String getSauceChoice() {
+        System.out.println("💡 Choose sauce:");
+        return getChoiceFromMenu(OrderService.SAUCES);
+    }
+
+    static String getCheeseChoice() {
+        System.out.println("💡 Choose cheese:");
+        return getChoiceFromMenu(OrderService.CHEESES);
+    }
+
+    static List<String> getToppingsChoice() {
+        List<String> toppings = new ArrayList<>();
+        System.out.println("💡 Choose toppings (enter numbers separated by commas):");
+        for (int i = 0; i < OrderService.TOPPINGS.size(); i++) {
+            System.out.printf("%d. %s\n", i + 1, OrderService.TOPPINGS.get(i));
+        }
+        System.out.print("💡 Enter your choices: ");
+        String[] choices = scanner.nextLine().split(",");
+        for (String choice : choices) {
+            try {
+                int toppingChoice = Integer.parseInt(choice.trim());
+                if (toppingChoice >= 1 && toppingChoice <= OrderService.TOPPINGS.size()) {
+                    toppings.add(OrderService.TOPPINGS.get(toppingChoice - 1));
+                } else {
+                    System.out.println("❌ Invalid topping number. Please try again.");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Invalid input. Please enter numbers separated by commas.");
+            }
+        }
+        return toppings;
+    }
+
+    static String getChoiceFromMenu(List<String> options) {
+        for (int i = 0; i < options.size(); i++) {
+            System.out.printf("%d. %s\n", i + 1, options.get(i));
+        }
+        System.out.printf("💡 Enter your choice (1-%d): ", options.size());
+        while (true) {
+            int choice = validateNumericInput();
+            if (choice >= 1 && choice <= options.size()) {
+                return options.get(choice - 1);
+            }
+            System.out.print("❌ Invalid choice. Please enter a valid option: ");
+        }
+    }
+
+    static void placeOrder() {
+        System.out.println("\n🍕 Place an Order");
+
+        // Show available pizzas and let the user fill a cart
+        List<Pizza> menu = viewPizzas();
+        List<OrderLine> cart = new ArrayList<>();
+        do {
+            Pizza pizza = menu.get(getValidPizzaChoice(menu.size()));
+            cart.add(new OrderLine(pizza.id, getQuantity()));
+        } while (cart.size() < OrderService.MAX_CART_LINES && addAnotherPizza());
+
+        // Choose delivery or pickup
+        OrderType type = getDeliveryChoice() ? OrderType.DELIVERY : OrderType.PICKUP;
+        if (type == OrderType.DELIVERY && currentUser.address.equals("Not Set")) {
+            System.out.println("❌ Address not set. Please update your address first.");
+            return;
+        }
+
+        // Ask for payment method
+        String paymentMethod = getPaymentMethod();
+        if (paymentMethod == null) {
+            System.out.println("❌ Invalid payment method. Please select a valid option.");
+            return;
+        }
+
+        OrderService.PaymentDetails payment = OrderService.PaymentDetails.cash();
+        if (!paymentMethod.equals("Cash")) {
+            System.out.println("🔐 Please provide card details for " + paymentMethod);
+
+            // Capture card details; the service validates them
+            String cardNumber = getCardNumber();
+            int expiryMonth = getCardExpiryMonth();
+            int expiryYear = getCardExpiryYear();
+            payment = new OrderService.PaymentDetails(paymentMethod, cardNumber, expiryMonth, expiryYear);
+        }
+
+        try {
+            PricingEngine.PriceQuote quote = service.quote(currentUser, cart);
+            Order order = service.placeOrder(currentUser, cart, type, payment);
+            if (quote.promotionCents() > 0) {
+                StringBuilder discount = new StringBuilder("🎉 Promotions applied. Discount: $");
+                System.out.println(TextFormat.appendCents(discount, quote.promotionCents()));
+            }
+            String issued = order.takeReorderKey();
+            if (issued != null) {
+                reorderKey = issued;
+            }
+            printPlacedOrder(order);
+        } catch (IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
+    }
+
+    // Repeat the last order without going through the menu, delivery and payment questions again
+    static void reorder() {
+        System.out.println("\n🔁 Reorder Your Last Order");
+        ReorderTemplate last = currentUser.lastOrder;
+        if (last == null) {
+            System.out.println("❌ No previous order to repeat. Please place an order first.");
+            return;
+        }
+        StringBuilder summary = new StringBuilder("🧾 ");
+        for (int i = 0; i < last.items().size(); i++) {
+            Order.Item item = last.items().get(i);
+            summary.append(i == 0 ? "" : ", ").append(item.quantity()).append(" x ").append(item.pizza().name);
+        }
+        summary.append(" | ").append(last.type() == OrderType.DELIVERY ? "Delivery to " + last.deliveryAddress() : "Pickup")
+                .append(" | ").append(last.paymentLabel());
+        System.out.println(summary);
+        // The key from a card order placed in this session confirms the card; otherwise ask for its number
+        String confirmation = last.card() != null && last.card().confirmedBy(reorderKey) ? reorderKey : null;
+        if (last.card() != null && confirmation == null) {
+            System.out.print("💳 Enter the number of the card ending " + last.card().lastFour() + " to confirm: ");
+            confirmation = scanner.nextLine().trim();
+        }
+        try {
+            printPlacedOrder(service.reorder(currentUser, confirmation));
+        } catch (IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
+    }
+
+    static void printPlacedOrder(Order order) {
+        StringBuilder total = new StringBuilder("💸 Total amount after discounts: $");
+        System.out.println(TextFormat.appendCents(total, order.totalCents));
+        if (order.paymentStatus == PaymentStatus.CASH) {
+            System.out.println("💵 Please pay in cash on " + (order.type == OrderType.DELIVERY ? "delivery" : "pickup")
+                    + ". Remaining loyalty points: " + currentUser.loyaltyPoints());
+        } else {
+            System.out.println("💳 Your card payment is being processed; loyalty points are added once it is approved.");
+        }
+        System.out.println("✅ Order placed successfully: " + order);
+        if (order.awaitingKitchen) {
+            System.out.println("🕒 The kitchen is busy right now; your order is in line and goes in as soon as there is room.");
+            return;
+        }
+        long minutes = Math.max(1, (order.readyEstimateMillis - System.currentTimeMillis() + 59_999) / 60_000);
+        System.out.println("⏱️ The kitchen expects it out of the oven in about " + minutes
+                + (minutes == 1 ? " minute." : " minutes."));
+    }
+
+    // Method to get the card number
+    static String getCardNumber() {
+        System.out.print("💳 Enter your card number (16 digits): ");
+        String cardNumber = scanner.nextLine().trim();
+        while (!cardNumber.matches("\\d{16}")) {
+            System.out.print("❌ Invalid card number. It must be 16 digits. Please try again: ");
+            cardNumber = scanner.nextLine().trim();
+        }
+        return cardNumber;
+    }
+
+    // Method to get the card expiry month
+    static int getCardExpiryMonth() {
+        System.out.print("💳 Enter the expiration month (1-12): ");
+        int month = validateNumericInput();
+        while (month < 1 || month > 12) {
+            System.out.print("❌ Invalid expiration month. It must be between 1 and 12. Please try again: ");
+            month = validateNumericInput();
+        }
+        return month;
+    }
+
+    // Method to get the card expiry year
+    static int getCardExpiryYear() {
+        System.out.print("💳 Enter the expiration year (e.g., 2024): ");
+        int year = validateNumericInput();
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+        while (year < currentYear) {
+            System.out.println("❌ Invalid expiration year. It cannot be in the past.");
+            System.out.print("💳 Enter the expiration year (e.g., 2024): ");
+            year = validateNumericInput();
+        }
+        return year;
+    }
+
+    // The public menu and then the user's own pizzas, rendered once per menu version
+    static List<Pizza> viewPizzas() {
+        MenuCatalog.UserMenu menu = service.menuFor(currentUser);
+        System.out.println("\n🍕 Available Pizzas:");
+        System.out.print(menu.text);
+        return menu.pizzas;
+    }
+
+    static int getValidPizzaChoice(int menuSize) {
+        while (true) {
+            System.out.print("💡 Enter the number of the pizza you want: ");
+            int choice = validateNumericInput() - 1; // Adjusting for zero-indexed list
+            if (choice >= 0 && choice < menuSize) {
+                return choice;
+            }
+            System.out.println("❌ Invalid choice. Please select a valid pizza.");
+        }
+    }
+
+    static int getQuantity() {
+        while (true) {
+            System.out.print("💡 How many? (1-" + OrderLine.MAX_QUANTITY + "): ");
+            int quantity = validateNumericInput();
+            if (quantity >= 1 && quantity <= OrderLine.MAX_QUANTITY) {
+                return quantity;
+            }
+            System.out.println("❌ Invalid quantity. Please try again.");
+        }
+    }
+
+    static boolean addAnotherPizza() {
+        System.out.print("💡 Add another pizza? (1 for Yes, 2 for No): ");
+        return validateNumericInput() == 1;
+    }
+
+    static boolean getDeliveryChoice() {
+        System.out.print("💡 Delivery or Pickup? (1 for Delivery, 2 for Pickup): ");
+        int choice = validateNumericInput();
+        return choice == 1;
+    }
+
+    static String getPaymentMethod() {
+        System.out.println("\n💳 Choose your payment method:");
+        for (int i = 0; i < OrderService.PAYMENT_METHODS.size(); i++) {
+            System.out.printf("%d. %s\n", i + 1, OrderService.PAYMENT_METHODS.get(i));
+        }
+        System.out.print("💡 Enter your choice (1-3): ");
+
+        // Validate numeric input
+        int choice = validateNumericInput();
+        if (choice < 1 || choice > OrderService.PAYMENT_METHODS.size()) {
+            return null;  // If invalid choice, return null
+        }
+        return OrderService.PAYMENT_METHODS.get(choice - 1);
+    }
+
+    static void giveFeedbackAndRating() {
+        System.out.println("🌟 Provide Feedback and Rating");
+
+        List<Order> deliveredOrders = service.deliveredOrders(currentUser);
+        if (deliveredOrders.isEmpty()) {
+            System.out.println("❌ You don't have any orders to give feedback for.");
+            return;
+        }
+
+        System.out.println("💬 Select an order to give feedback:");
+        for (int i = 0; i < deliveredOrders.size(); i++) {
+            System.out.println((i + 1) + ". " + deliveredOrders.get(i).pizzaNames());
+        }
+
+        System.out.print("💡 Enter the number of the order to give feedback: ");
+        int orderChoice = validateNumericInput() - 1;
+
+        if (orderChoice >= 0 && orderChoice < deliveredOrders.size()) {
+            Order order = deliveredOrders.get(orderChoice);
+            System.out.print("💬 Enter your feedback: ");
+            String feedback = scanner.nextLine();
+
+            System.out.print("⭐ Rate the pizza (1 to 5): ");
+            int rating = validateNumericInput();
+            try {
+                service.rate(currentUser, order.id, feedback, rating);
+                System.out.println("✅ Thank you for your feedback and rating!");
+            } catch (IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
+                System.out.println("❌ " + e.getMessage());
+            }
+        }
+    }
+
+    static void updateAddress() {
+        System.out.println("\n📍 Update Delivery Address");
+        System.out.println("💡 Choose your area:");
+        for (int i = 0; i < OrderService.COLOMBO_AREAS.size(); i++) {
+            System.out.printf("%d. %s\n", i + 1, OrderService.COLOMBO_AREAS.get(i));
+        }
+        System.out.print("💡 Enter your choice: ");
+        int areaChoice = validateNumericInput() - 1;
+        if (areaChoice < 0 || areaChoice >= OrderService.COLOMBO_AREAS.size()) {
+            System.out.println("❌ Invalid choice.");
+            return;
+        }
+
+        System.out.print("💡 Enter your street name: ");
+        String streetName = scanner.nextLine();
+
+        System.out.print("💡 Enter an identifier (e.g., apartment number, floor): ");
+        String identifier = scanner.nextLine();
+
+        String fullAddress = service.updateAddress(currentUser, areaChoice, streetName, identifier);
+        System.out.println("✅ Address updated to: " + fullAddress);
+    }
+
+    static void viewNotifications() {
+        System.out.println("\n🔔 Notifications:");
+        List<Notification> unread = service.unreadNotifications(currentUser);
+        if (unread.isEmpty()) {
+            System.out.println("❌ No new notifications.");
+        } else {
+            for (Notification notification : unread) {
+                Order order = service.orders.findById(notification.orderId());
+                String pizzaName = order == null ? "Unknown" : order.pizzaNames();
+                System.out.println(notification.render(TextFormat.buffer(), pizzaName));
+            }
+        }
+    }
+
+    static void viewPromotions() {
+        System.out.println("\n🎉 Current Promotions:");
+        for (Promotion promo : service.promotions()) {
+            System.out.println(promo.description);
+        }
+    }
+
+    static void viewUserProfileAndFavorites() {
+        System.out.println("\n👤 User Profile");
+        System.out.println(currentUser);
+        System.out.println("\n🌟 Your Favorite Pizzas:");
+        List<Pizza> favorites = service.favorites(currentUser);
+        if (favorites.isEmpty()) {
+            System.out.println("❌ No favorite pizzas found.");
+        } else {
+            for (Pizza pizza : favorites) {
+                System.out.println(pizza);
+            }
+        }
+        Recommender.Recommendations recommendations = service.recommendations(currentUser);
+        if (!recommendations.usual().isEmpty()) {
+            System.out.println("\n🔁 Reorder Your Usual:");
+            for (Pizza pizza : recommendations.usual()) {
+                System.out.println(pizza);
+            }
+        }
+        if (!recommendations.alsoLike().isEmpty()) {
+            System.out.println("\n✨ You May Also Like:");
+            for (Pizza pizza : recommendations.alsoLike()) {
+                System.out.println(pizza);
+            }
+        }
+    }
+
+    // Method to validate numeric input
+    static int validateNumericInput() {
+        while (true) {
+            try {
+                int choice = Integer.parseInt(scanner.nextLine().trim());  // Parse the user input as integer
+                return choice; // If valid, return the parsed value
+            } catch (NumberFormatException e) {
+                System.out.print("❌ Invalid input. Please enter a valid number: "); // Re-prompt if the input is invalid
+            }
+        }
+    }
+
+    static void addToFavorites() {
+        List<Pizza> menu = viewPizzas();  // Display available pizzas
+        System.out.print("💡 Enter the number of the pizza you want to add to favorites: ");
+        int pizzaChoice = validateNumericInput() - 1;
+        if (pizzaChoice < 0 || pizzaChoice >= menu.size()) {
+            System.out.println("❌ Invalid choice.");
+            return;
+        }
+        Pizza pizza = menu.get(pizzaChoice);
+        if (service.addFavorite(currentUser, pizza.id)) {
+            System.out.println("✅ Added to favorites: " + pizza.name);
+        } else {
+            System.out.println("ℹ️ " + pizza.name + " is already in your favorites.");
+        }
+    }
+
+    static void removeFromFavorites() {
+        System.out.println("\n🌟 Your Favorite Pizzas:");
+        List<Pizza> favorites = service.favorites(currentUser);
+        if (favorites.isEmpty()) {
+            System.out.println("❌ No favorite pizzas found.");
+            return;
+        }
+        for (int i = 0; i < favorites.size(); i++) {
+            System.out.printf("%d. %s\n", i + 1, favorites.get(i));
+        }
+        System.out.print("💡 Enter the number of the pizza you want to remove from favorites: ");
+        int pizzaChoice = validateNumericInput() - 1;
+        if (pizzaChoice < 0 || pizzaChoice >= favorites.size()) {
+            System.out.println("❌ Invalid choice.");
+            return;
+        }
+        Pizza pizza = favorites.get(pizzaChoice);
+        service.removeFavorite(currentUser, pizza);
+        System.out.println("✅ Removed from favorites: " + pizza.name);
+    }
+}
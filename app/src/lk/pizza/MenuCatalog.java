@@ -0,0 +1,168 @@
+package lk.pizza;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Menu Catalog
+// The public menu as a series of immutable, numbered versions, each rendered once: as the numbered
+// text the console prints and as the JSON served by GET /api/menu (already UTF-8 encoded). Adding or
+// retiring a pizza publishes a new version straight away. Ratings only mark the current version
+// stale, and it is rebuilt by the first read at least MAX_STALENESS_MILLIS after it was built, so a
+// burst of ratings costs one rebuild rather than one per rating.
+//
+// Custom pizzas are not on the public menu; each user sees the public menu followed by the pizzas
+// they designed. That per-user menu is cached on the User and rebuilt when the catalog version or
+// the user's own pizzas change. Reading either menu at steady state is a volatile read or two and
+// allocates nothing.
+class MenuCatalog {
+    static final long MAX_STALENESS_MILLIS = 2_000;
+
+    // One version of the public menu
+    static final class Snapshot {
+        final long version;
+        final long builtAtMillis;
+        final List<Pizza> pizzas;
+        final String text;  // Numbered lines, as the console shows them
+        final String json;
+        final byte[] jsonBytes;
+
+        private Snapshot(long version, long builtAtMillis, List<Pizza> pizzas) {
+            this.version = version;
+            this.builtAtMillis = builtAtMillis;
+            this.pizzas = pizzas;
+            this.text = appendLines(new StringBuilder(pizzas.size() * 160), pizzas, 1).toString();
+            this.json = appendJson(new StringBuilder(pizzas.size() * 200), pizzas).toString();
+            this.jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // The menu one user sees: the public menu, then their own pizzas numbered after it
+    static final class UserMenu {
+        final long version;       // Catalog version it was built from
+        final List<Pizza> pizzas; // Public pizzas first
+        final List<Pizza> custom;
+        final String text;
+        final String customJson;
+
+        private UserMenu(Snapshot catalog, List<Pizza> custom) {
+            this.version = catalog.version;
+            this.custom = custom;
+            List<Pizza> all = new ArrayList<>(catalog.pizzas.size() + custom.size());
+            all.addAll(catalog.pizzas);
+            all.addAll(custom);
+            this.pizzas = List.copyOf(all);
+            if (custom.isEmpty()) {
+                this.text = catalog.text;
+            } else {
+                StringBuilder out = new StringBuilder(catalog.text.length() + custom.size() * 160).append(catalog.text);
+                out.append("🧑‍🍳 Your Custom Pizzas:\n");
+                this.text = appendLines(out, custom, catalog.pizzas.size() + 1).toString();
+            }
+            this.customJson = appendJson(new StringBuilder(custom.size() * 200 + 2), custom).toString();
+        }
+    }
+
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: reads run on virtual threads
+    private final List<Pizza> pizzas = new ArrayList<>();   // Guarded by lock
+    private volatile Snapshot current;
+    private volatile boolean stale;
+
+    MenuCatalog(LongSupplier clock) {
+        this.clock = clock;
+        this.current = new Snapshot(1, clock.getAsLong(), List.of());
+    }
+
+    // ---- Changes ----
+
+    void add(Pizza pizza) {
+        lock.lock();
+        try {
+            pizzas.add(pizza);
+            rebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A pizza left the menu; user menus holding it as a custom pizza drop it on their next rebuild
+    void retired(Pizza pizza) {
+        lock.lock();
+        try {
+            pizzas.remove(pizza);
+            rebuild();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ratings or prices shown on the menu changed
+    void invalidate() {
+        stale = true;
+    }
+
+    // ---- Reads ----
+
+    Snapshot snapshot() {
+        Snapshot snapshot = current;
+        if (stale && clock.getAsLong() - snapshot.builtAtMillis >= MAX_STALENESS_MILLIS && lock.tryLock()) {
+            // Whoever gets the lock rebuilds; everyone else serves the current version meanwhile
+            try {
+                if (stale) {
+                    rebuild();
+                }
+                snapshot = current;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    // On the current public menu; not a custom pizza or a retired one
+    boolean isPublic(Pizza pizza) {
+        return current.pizzas.contains(pizza);
+    }
+
+    // The user's menu, rebuilt only when the catalog or their own pizzas changed since last time
+    UserMenu menuFor(User user) {
+        Snapshot catalog = snapshot();
+        UserMenu menu = user.menu;
+        if (menu != null && menu.version == catalog.version) {
+            return menu;
+        }
+        synchronized (user) {
+            user.customPizzas.removeIf(Pizza::isRetired);
+            menu = new UserMenu(catalog, List.copyOf(user.customPizzas));
+            user.menu = menu;
+        }
+        return menu;
+    }
+
+    // Caller holds lock
+    private void rebuild() {
+        stale = false;
+        current = new Snapshot(current.version + 1, clock.getAsLong(), List.copyOf(pizzas));
+    }
+
+    private static StringBuilder appendLines(StringBuilder out, List<Pizza> pizzas, int firstNumber) {
+        for (int i = 0; i < pizzas.size(); i++) {
+            pizzas.get(i).appendListing(out.append(firstNumber + i).append(". ")).append('\n');
+        }
+        return out;
+    }
+
+    private static StringBuilder appendJson(StringBuilder out, List<Pizza> pizzas) {
+        out.append('[');
+        for (int i = 0; i < pizzas.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            pizzas.get(i).appendJson(out);
+        }
+        return out.append(']');
+    }
+}
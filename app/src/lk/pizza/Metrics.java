@@ -0,0 +1,295 @@
+package lk.pizza;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Metrics
+// The service's instrumentation in one place: latency recorders around the hot paths, counters,
+// tick timings of the background schedulers, and gauges that read queue depths when asked. Hot
+// paths only ever touch a LatencyRecorder or a LongAdder; everything else is computed at scrape
+// time, so instrumentation can stay on in production.
+//
+// The same series are served two ways: as Prometheus text (GET /metrics on the HTTP front end)
+// and as attributes of one JMX bean, pizza:type=Metrics. Latencies are in seconds in both.
+class Metrics {
+    static final String OBJECT_NAME = "pizza:type=Metrics";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    private enum Type { COUNTER, GAUGE, SUMMARY }
+
+    // One labelled series of a family; source is a LongSupplier or a LatencyRecorder
+    private record Series(String labels, Object source) {
+    }
+
+    private record Family(String name, String help, Type type, List<Series> series) {
+    }
+
+    // Duration, lag behind schedule and allocation of each run of a periodic task
+    static final class Ticks {
+        final LatencyRecorder duration = new LatencyRecorder();
+        final LatencyRecorder lag = new LatencyRecorder();
+        final LongAdder allocatedBytes = new LongAdder();
+
+        // Call at the end of a run that was due at dueNanos and started at startNanos, having
+        // allocated nothing yet at threadAllocatedBytes() == allocatedAtStart
+        void record(long dueNanos, long startNanos, long allocatedAtStart) {
+            long end = System.nanoTime();
+            duration.record(end - startNanos);
+            lag.record(startNanos - dueNanos);
+            if (allocatedAtStart >= 0) {
+                allocatedBytes.add(threadAllocatedBytes() - allocatedAtStart);
+            }
+        }
+    }
+
+    private final List<Family> families = new CopyOnWriteArrayList<>();
+    private ObjectName registeredAs;
+
+    Metrics() {
+        counter("pizza_jvm_allocated_bytes_total", "Bytes allocated on the heap by all threads since start",
+                () -> THREADS == null ? -1 : THREADS.getTotalThreadAllocatedBytes());
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("pizza_jvm_heap_used_bytes", "Heap in use", () -> memory.getHeapMemoryUsage().getUsed());
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        counter("pizza_jvm_gc_collections_total", "Garbage collections since start", () -> {
+            long total = 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                total += Math.max(0, collector.getCollectionCount());
+            }
+            return total;
+        });
+        counter("pizza_jvm_gc_pause_millis_total", "Time spent in garbage collection since start", () -> {
+            long total = 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                total += Math.max(0, collector.getCollectionTime());
+            }
+            return total;
+        });
+    }
+
+    // Bytes the calling thread has allocated so far, or -1 where that is not available (virtual threads)
+    static long threadAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    // ---- Registration ----
+
+    // A new latency recorder, exported as a summary; name should end in _seconds
+    LatencyRecorder timer(String name, String help) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        add(name, help, Type.SUMMARY, "", recorder);
+        return recorder;
+    }
+
+    void counter(String name, String help, LongSupplier value) {
+        add(name, help, Type.COUNTER, "", value);
+    }
+
+    // One series of a labelled counter, e.g. labels = "to=\"BAKING\""
+    void counter(String name, String help, String labels, LongSupplier value) {
+        add(name, help, Type.COUNTER, labels, value);
+    }
+
+    void gauge(String name, String help, LongSupplier value) {
+        add(name, help, Type.GAUGE, "", value);
+    }
+
+    void gauge(String name, String help, String labels, LongSupplier value) {
+        add(name, help, Type.GAUGE, labels, value);
+    }
+
+    // Duration, lag and allocation of a periodic task, as <prefix>_duration_seconds,
+    // <prefix>_lag_seconds and <prefix>_allocated_bytes_total
+    void ticks(String prefix, String task, Ticks ticks) {
+        add(prefix + "_duration_seconds", "Time taken by each " + task, Type.SUMMARY, "", ticks.duration);
+        add(prefix + "_lag_seconds", "How late each " + task + " started", Type.SUMMARY, "", ticks.lag);
+        add(prefix + "_allocated_bytes_total", "Bytes allocated by " + task + "s", Type.COUNTER, "",
+                (LongSupplier) ticks.allocatedBytes::sum);
+    }
+
+    private synchronized void add(String name, String help, Type type, String labels, Object source) {
+        for (Family family : families) {
+            if (family.name.equals(name)) {
+                family.series.add(new Series(labels, source));
+                return;
+            }
+        }
+        List<Series> series = new CopyOnWriteArrayList<>();
+        series.add(new Series(labels, source));
+        families.add(new Family(name, help, type, series));
+    }
+
+    // ---- Prometheus text ----
+
+    // Every series in the Prometheus text exposition format (version 0.0.4)
+    String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Family family : families) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ')
+                    .append(family.type.name().toLowerCase()).append('\n');
+            for (Series series : family.series) {
+                if (series.source instanceof LatencyRecorder recorder) {
+                    LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+                    for (double quantile : QUANTILES) {
+                        out.append(family.name).append("{quantile=\"").append(quantile).append("\"} ")
+                                .append(seconds(snapshot.percentileNanos(quantile))).append('\n');
+                    }
+                    out.append(family.name).append("_sum ").append(seconds(snapshot.totalNanos)).append('\n');
+                    out.append(family.name).append("_count ").append(snapshot.count).append('\n');
+                } else {
+                    out.append(family.name);
+                    if (!series.labels.isEmpty()) {
+                        out.append('{').append(series.labels).append('}');
+                    }
+                    out.append(' ').append(((LongSupplier) series.source).getAsLong()).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    // ---- JMX ----
+
+    // One JMX attribute and the help text of its family
+    private record Reading(String name, Object value, String help) {
+    }
+
+    // Every series as flat attributes: labels are folded into the name, and each summary becomes
+    // _p50, _p90, _p99, _p999, _max, _mean (seconds) and _count
+    private List<Reading> read() {
+        List<Reading> readings = new ArrayList<>();
+        for (Family family : families) {
+            for (Series series : family.series) {
+                String name = family.name + (series.labels.isEmpty() ? ""
+                        : "_" + series.labels.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("_$", ""));
+                if (series.source instanceof LatencyRecorder recorder) {
+                    LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+                    readings.add(new Reading(name + "_p50", seconds(snapshot.percentileNanos(0.5)), family.help));
+                    readings.add(new Reading(name + "_p90", seconds(snapshot.percentileNanos(0.9)), family.help));
+                    readings.add(new Reading(name + "_p99", seconds(snapshot.percentileNanos(0.99)), family.help));
+                    readings.add(new Reading(name + "_p999", seconds(snapshot.percentileNanos(0.999)), family.help));
+                    readings.add(new Reading(name + "_max", seconds(snapshot.maxNanos), family.help));
+                    readings.add(new Reading(name + "_mean", snapshot.meanNanos() / 1e9, family.help));
+                    readings.add(new Reading(name + "_count", snapshot.count, family.help));
+                } else {
+                    readings.add(new Reading(name, ((LongSupplier) series.source).getAsLong(), family.help));
+                }
+            }
+        }
+        return readings;
+    }
+
+    Map<String, Object> attributes() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (Reading reading : read()) {
+            attributes.put(reading.name, reading.value);
+        }
+        return attributes;
+    }
+
+    // Publish the metrics on the platform MBean server; returns false (and logs) if that failed,
+    // e.g. because another service in this JVM already did
+    synchronized boolean registerMBean() {
+        if (registeredAs != null) {
+            return true;
+        }
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), name);
+            registeredAs = name;
+            return true;
+        } catch (JMException e) {
+            System.err.println("⚠️ Metrics are not available over JMX: " + e.getMessage());
+            return false;
+        }
+    }
+
+    synchronized void unregisterMBean() {
+        if (registeredAs == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(registeredAs);
+        } catch (JMException e) {
+            // Already gone
+        }
+        registeredAs = null;
+    }
+
+    // Read-only view of attributes() for JMX clients
+    private final class Bean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = attributes().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            Map<String, Object> all = attributes();
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                Object value = all.get(name);
+                if (value != null) {
+                    list.add(new Attribute(name, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("Metrics have no operations");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> infos = new ArrayList<>();
+            for (Reading reading : read()) {
+                infos.add(new MBeanAttributeInfo(reading.name, reading.value.getClass().getName(), reading.help,
+                        true, false, false));
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Pizza ordering service metrics",
+                    infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
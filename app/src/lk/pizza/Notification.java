@@ -0,0 +1,16 @@
+package lk.pizza;
+
+// Notification Record
+// A decoded order update. The bus stores updates as primitives and only creates these when a
+// user actually reads their mailbox; text is produced later still, by render().
+record Notification(long orderId, OrderStatus previous, OrderStatus current, long timestampMillis) {
+
+    // Appends e.g. "🔔 Order Update: 📦 Order ID: 7 | Pizza: Margherita | Status: BAKING → OUT_FOR_DELIVERY | At: 18:04:12"
+    StringBuilder render(StringBuilder out, String pizzaName) {
+        out.append("🔔 Order Update: 📦 Order ID: ").append(orderId)
+                .append(" | Pizza: ").append(pizzaName)
+                .append(" | Status: ").append(previous.name()).append(" → ").append(current.name())
+                .append(" | At: ");
+        return TextFormat.appendTime(out, timestampMillis);
+    }
+}
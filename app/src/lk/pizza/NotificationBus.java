@@ -0,0 +1,222 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Notification Bus
+// Producers (the lifecycle engine shards) publish into a bounded lock-free ring buffer and never
+// block. A single dispatcher thread drains the ring into per-user mailboxes. Each mailbox keeps
+// only the most recent notifications and a read cursor, so memory stays flat however long the
+// process runs and users only ever see their own unread updates. An idle dispatcher parks until a
+// producer publishes into the empty ring and unparks it, so a quiet bus costs no CPU.
+//
+// Updates are kept as primitives (order id, packed old/new status, timestamp) in parallel arrays
+// all the way from publish to the mailbox, so publishing allocates nothing. Notification objects
+// and text are only created when a user reads their mailbox.
+class NotificationBus {
+    static final int DEFAULT_RING_CAPACITY = 1 << 16;
+    static final int DEFAULT_MAILBOX_CAPACITY = 50;
+
+    private final long[] ringOrderIds;
+    private final long[] ringUserIds;
+    private final byte[] ringTransitions;
+    private final long[] ringTimestamps;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // Only touched by the dispatcher thread
+    private final int mailboxCapacity;
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicReference<Thread> idle = new AtomicReference<>(); // The dispatcher, while parked
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    NotificationBus() {
+        this(DEFAULT_RING_CAPACITY, DEFAULT_MAILBOX_CAPACITY);
+    }
+
+    NotificationBus(int ringCapacity, int mailboxCapacity) {
+        if (Integer.bitCount(ringCapacity) != 1 || mailboxCapacity < 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two and mailboxes non-empty");
+        }
+        this.ringOrderIds = new long[ringCapacity];
+        this.ringUserIds = new long[ringCapacity];
+        this.ringTransitions = new byte[ringCapacity];
+        this.ringTimestamps = new long[ringCapacity];
+        this.sequences = new AtomicLongArray(ringCapacity);
+        for (int i = 0; i < ringCapacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = ringCapacity - 1;
+        this.mailboxCapacity = mailboxCapacity;
+    }
+
+    synchronized void start() {
+        if (dispatcher != null) {
+            return;
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // Stop the dispatcher and wait for it to exit, so a later start() never runs two of them on head
+    synchronized void shutdown() {
+        Thread stopping = dispatcher;
+        if (stopping == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(stopping);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                stopping.join(); // Prompt: the unpark above wakes a parked dispatcher
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        dispatcher = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Never blocks; returns false (and counts a drop) if the ring is full
+    boolean publish(long orderId, long userId, OrderStatus previous, OrderStatus current, long timestampMillis) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    ringOrderIds[index] = orderId;
+                    ringUserIds[index] = userId;
+                    ringTransitions[index] = packTransition(previous, current);
+                    ringTimestamps[index] = timestampMillis;
+                    // Release the slot to the dispatcher only after the notification is in place. A
+                    // full (volatile) write, so the check of idle below cannot be ordered before it.
+                    sequences.set(index, position + 1);
+                    wakeDispatcher();
+                    return true;
+                }
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            }
+            // Another producer claimed this slot first; retry with the new tail
+        }
+    }
+
+    // Unread notifications for a user, oldest first; reading marks them as read
+    List<Notification> readUnread(long userId) {
+        Mailbox mailbox = mailboxes.get(userId);
+        return mailbox == null ? List.of() : mailbox.readUnread();
+    }
+
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    // Updates published but not yet moved into mailboxes; approximate, as head is the dispatcher's own
+    long backlog() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    // Move everything currently in the ring into mailboxes; returns how many were moved
+    int drain() {
+        int moved = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return moved;
+            }
+            Mailbox mailbox = mailboxes.get(ringUserIds[index]);
+            if (mailbox == null) {
+                mailbox = mailboxes.computeIfAbsent(ringUserIds[index], id -> new Mailbox(mailboxCapacity));
+            }
+            mailbox.add(ringOrderIds[index], ringTransitions[index], ringTimestamps[index]);
+            sequences.lazySet(index, head + ringOrderIds.length);
+            head++;
+            moved++;
+        }
+    }
+
+    private void dispatchLoop() {
+        Thread self = Thread.currentThread();
+        while (running) {
+            if (drain() > 0) {
+                continue;
+            }
+            // Announce going idle, then look once more: an update published before the announcement
+            // was visible is drained here, and the producer of any later one sees it and unparks us
+            idle.set(self);
+            if (drain() > 0 || !running) {
+                idle.set(null);
+                continue;
+            }
+            LockSupport.park(this);
+            idle.set(null);
+        }
+    }
+
+    // Wake the dispatcher if it is parked on an empty ring; only the first producer to see it pays
+    // for the unpark, and while the dispatcher is busy this is a single volatile read
+    private void wakeDispatcher() {
+        Thread sleeping = idle.get();
+        if (sleeping != null && idle.compareAndSet(sleeping, null)) {
+            LockSupport.unpark(sleeping);
+        }
+    }
+
+    private static byte packTransition(OrderStatus previous, OrderStatus current) {
+        return (byte) (previous.ordinal() << 4 | current.ordinal());
+    }
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    // Fixed-size ring of one user's latest notifications; the oldest entry is overwritten when full
+    static final class Mailbox {
+        private final long[] orderIds;
+        private final byte[] transitions;
+        private final long[] timestamps;
+        private long written;
+        private long readCursor;
+
+        Mailbox(int capacity) {
+            orderIds = new long[capacity];
+            transitions = new byte[capacity];
+            timestamps = new long[capacity];
+        }
+
+        synchronized void add(long orderId, byte transition, long timestampMillis) {
+            int slot = (int) (written % orderIds.length);
+            orderIds[slot] = orderId;
+            transitions[slot] = transition;
+            timestamps[slot] = timestampMillis;
+            written++;
+        }
+
+        synchronized List<Notification> readUnread() {
+            // Anything older than one full ring has already been evicted
+            long from = Math.max(readCursor, written - orderIds.length);
+            List<Notification> unread = new ArrayList<>((int) (written - from));
+            for (long i = from; i < written; i++) {
+                int slot = (int) (i % orderIds.length);
+                unread.add(new Notification(orderIds[slot], STATUSES[transitions[slot] >> 4 & 0xF],
+                        STATUSES[transitions[slot] & 0xF], timestamps[slot]));
+            }
+            readCursor = written;
+            return unread;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Order History
+// Delivered orders kept column by column in primitive arrays, for analytics that should not walk
+// the live Order objects (with their Date, boxed rating and feedback strings). One row per order
+// holds its id, user, type, area, charged cents, when it was placed, how long after that it
+// reached each later status, and its rating; a second table holds one row per pizza in the order.
+// Pizza ids are dictionary-encoded into dense codes, so grouping by pizza indexes a plain array.
+//
+// Rows live in fixed-size chunks that are never copied or moved, so appending stays cheap at tens
+// of millions of rows. Each query is one pass over the columns it needs, split by chunk across the
+// fork-join pool and merged at the end. Queries see the rows that existed when they started; a
+// rating added later is visible to the next query.
+//
+// Appends and rating updates take a lock; queries never do. The history is rebuilt from the
+// recovered orders at start-up, so it keeps no files of its own.
+class OrderHistory {
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+    private static final int STAGES = OrderStatus.values().length - 1; // Statuses after RECEIVED
+    private static final int UNKNOWN = -1;                          // A stage time we do not have
+
+    // Pizzas and quantities sold
+    record PizzaPopularity(long pizzaId, long quantity, long orders) {
+    }
+
+    // area is null for pickup orders
+    record AreaRevenue(ColomboArea area, long orders, long revenueCents) {
+    }
+
+    record PizzaRating(long pizzaId, long ratedOrders, double averageRating) {
+    }
+
+    // How long orders stayed in one status before moving on, over the orders where both ends are known
+    record StageDwell(OrderStatus status, long orders, double meanMillis, long maxMillis) {
+    }
+
+    // One order row per index
+    private static final class OrderChunk {
+        final long[] orderIds = new long[CHUNK_ROWS];
+        final long[] userIds = new long[CHUNK_ROWS];
+        final byte[] types = new byte[CHUNK_ROWS];
+        final byte[] areas = new byte[CHUNK_ROWS];        // Area ordinal + 1; 0 for pickup
+        final int[] cents = new int[CHUNK_ROWS];
+        final long[] placedAtMillis = new long[CHUNK_ROWS];
+        final int[][] reachedAfterMillis = new int[STAGES][CHUNK_ROWS]; // By status ordinal - 1; UNKNOWN if not known
+        final byte[] ratingTenths = new byte[CHUNK_ROWS]; // 0 when not rated
+    }
+
+    // One pizza of one order per index
+    private static final class ItemChunk {
+        final int[] orderRows = new int[CHUNK_ROWS];
+        final int[] pizzaCodes = new int[CHUNK_ROWS];
+        final int[] quantities = new int[CHUNK_ROWS];
+    }
+
+    // What a query may read: everything below these counts is fully written
+    private record View(int orders, int items, OrderChunk[] orderChunks, ItemChunk[] itemChunks, long[] pizzaIds,
+                        int pizzaCount) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: rate() runs on virtual threads
+    private final LongIndex<Integer> pizzaCodes = new LongIndex<>(); // Guarded by lock for writes
+    private volatile View view = new View(0, 0, new OrderChunk[0], new ItemChunk[0], new long[16], 0);
+
+    int size() {
+        return view.orders;
+    }
+
+    // ---- Writes ----
+
+    // Add a delivered order; it keeps its row so a later rating can find it
+    void append(Order order) {
+        long[] pizzaIds = new long[order.items.size()];
+        int[] quantities = new int[pizzaIds.length];
+        for (int i = 0; i < pizzaIds.length; i++) {
+            pizzaIds[i] = order.items.get(i).pizza().id;
+            quantities[i] = order.items.get(i).quantity();
+        }
+        lock.lock();
+        try {
+            if (order.historyRow >= 0) {
+                return;
+            }
+            // Read under the lock, so a rating added at the same time lands either here or in rate()
+            order.historyRow = append(order.id, order.user.id, order.type, order.area, order.totalCents,
+                    order.createdAt.getTime(), order.statusMillis, order.pizzaRating, pizzaIds, quantities);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Add one order from its fields and return its row. statusMillis holds when each status was
+    // reached, by ordinal; 0 where it is not known. rating is 0 when not rated.
+    int append(long orderId, long userId, OrderType type, ColomboArea area, long totalCents, long placedAtMillis,
+               long[] statusMillis, double rating, long[] pizzaIds, int[] quantities) {
+        lock.lock();
+        try {
+            View current = view;
+            int row = current.orders;
+            OrderChunk[] orderChunks = current.orderChunks;
+            if ((row & CHUNK_MASK) == 0 && row >>> CHUNK_BITS == orderChunks.length) {
+                orderChunks = Arrays.copyOf(orderChunks, orderChunks.length + 1);
+                orderChunks[orderChunks.length - 1] = new OrderChunk();
+            }
+            OrderChunk chunk = orderChunks[row >>> CHUNK_BITS];
+            int r = row & CHUNK_MASK;
+            chunk.orderIds[r] = orderId;
+            chunk.userIds[r] = userId;
+            chunk.types[r] = (byte) type.ordinal();
+            chunk.areas[r] = (byte) (area == null ? 0 : area.ordinal() + 1);
+            chunk.cents[r] = (int) Math.min(totalCents, Integer.MAX_VALUE);
+            chunk.placedAtMillis[r] = placedAtMillis;
+            for (int stage = 0; stage < STAGES; stage++) {
+                long reached = statusMillis[stage + 1];
+                chunk.reachedAfterMillis[stage][r] = reached <= 0 ? UNKNOWN
+                        : (int) Math.min(Math.max(0, reached - placedAtMillis), Integer.MAX_VALUE);
+            }
+            chunk.ratingTenths[r] = ratingTenths(rating);
+
+            int item = current.items;
+            ItemChunk[] itemChunks = current.itemChunks;
+            long[] dictionary = current.pizzaIds;
+            int pizzaCount = current.pizzaCount;
+            for (int i = 0; i < pizzaIds.length; i++, item++) {
+                if ((item & CHUNK_MASK) == 0 && item >>> CHUNK_BITS == itemChunks.length) {
+                    itemChunks = Arrays.copyOf(itemChunks, itemChunks.length + 1);
+                    itemChunks[itemChunks.length - 1] = new ItemChunk();
+                }
+                Integer code = pizzaCodes.get(pizzaIds[i]);
+                if (code == null) {
+                    code = pizzaCount++;
+                    if (code == dictionary.length) {
+                        // A new array, so queries holding the old view keep a consistent one
+                        dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+                    }
+                    dictionary[code] = pizzaIds[i];
+                    pizzaCodes.put(pizzaIds[i], code);
+                }
+                ItemChunk items = itemChunks[item >>> CHUNK_BITS];
+                items.orderRows[item & CHUNK_MASK] = row;
+                items.pizzaCodes[item & CHUNK_MASK] = code;
+                items.quantities[item & CHUNK_MASK] = quantities[i];
+            }
+            view = new View(row + 1, item, orderChunks, itemChunks, dictionary, pizzaCount);
+            return row;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bring a delivered order's rating up to date
+    void rate(Order order) {
+        lock.lock();
+        try {
+            if (order.historyRow >= 0) {
+                int row = order.historyRow;
+                view.orderChunks[row >>> CHUNK_BITS].ratingTenths[row & CHUNK_MASK] = ratingTenths(order.pizzaRating);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte ratingTenths(double rating) {
+        return (byte) Math.round(Math.min(Math.max(rating, 0), 5) * 10);
+    }
+
+    // ---- Queries ----
+    // Each takes a window on when orders were placed: fromMillis inclusive, toMillis exclusive.
+    // Long.MIN_VALUE and Long.MAX_VALUE cover all of history.
+
+    // Pizzas by quantity sold, most first
+    List<PizzaPopularity> popularPizzas(int limit, long fromMillis, long toMillis) {
+        View v = view;
+        boolean everything = fromMillis == Long.MIN_VALUE && toMillis == Long.MAX_VALUE;
+        long[][] totals = scanItems(v, () -> new long[2][v.pizzaCount], (sums, chunk, count) -> {
+            long[] quantity = sums[0];
+            long[] orders = sums[1];
+            for (int i = 0; i < count; i++) {
+                if (everything || inWindow(v, chunk.orderRows[i], fromMillis, toMillis)) {
+                    int code = chunk.pizzaCodes[i];
+                    quantity[code] += chunk.quantities[i];
+                    orders[code]++;
+                }
+            }
+        });
+        Integer[] codes = new Integer[v.pizzaCount];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = code;
+        }
+        Arrays.sort(codes, Comparator.comparingLong((Integer code) -> -totals[0][code]));
+        List<PizzaPopularity> result = new ArrayList<>(Math.min(limit, codes.length));
+        for (int i = 0; i < codes.length && result.size() < limit && totals[0][codes[i]] > 0; i++) {
+            int code = codes[i];
+            result.add(new PizzaPopularity(v.pizzaIds[code], totals[0][code], totals[1][code]));
+        }
+        return result;
+    }
+
+    // Orders and revenue per Colombo area, in area order, with pickup orders first (area null)
+    List<AreaRevenue> revenueByArea(long fromMillis, long toMillis) {
+        int buckets = ColomboArea.values().length + 1;
+        long[][] totals = scanOrders(view, () -> new long[2][buckets], (sums, chunk, count) -> {
+            long[] orders = sums[0];
+            long[] cents = sums[1];
+            for (int r = 0; r < count; r++) {
+                long placedAt = chunk.placedAtMillis[r];
+                if (placedAt >= fromMillis && placedAt < toMillis) {
+                    int area = chunk.areas[r];
+                    orders[area]++;
+                    cents[area] += chunk.cents[r];
+                }
+            }
+        });
+        List<AreaRevenue> result = new ArrayList<>(buckets);
+        for (int area = 0; area < buckets; area++) {
+            result.add(new AreaRevenue(area == 0 ? null : ColomboArea.values()[area - 1], totals[0][area],
+                    totals[1][area]));
+        }
+        return result;
+    }
+
+    // Average rating of each pizza over the rated orders that included it, best first
+    List<PizzaRating> averageRatingByPizza(long fromMillis, long toMillis) {
+        View v = view;
+        long[][] totals = scanItems(v, () -> new long[2][v.pizzaCount], (sums, chunk, count) -> {
+            long[] rated = sums[0];
+            long[] tenthsTotal = sums[1];
+            for (int i = 0; i < count; i++) {
+                int orderRow = chunk.orderRows[i];
+                // An item chunk covers one or two order chunks, so this lookup stays in cache
+                OrderChunk orders = v.orderChunks[orderRow >>> CHUNK_BITS];
+                int r = orderRow & CHUNK_MASK;
+                int tenths = orders.ratingTenths[r];
+                long placedAt = orders.placedAtMillis[r];
+                if (tenths > 0 && placedAt >= fromMillis && placedAt < toMillis) {
+                    int code = chunk.pizzaCodes[i];
+                    rated[code]++;
+                    tenthsTotal[code] += tenths;
+                }
+            }
+        });
+        List<PizzaRating> result = new ArrayList<>();
+        for (int code = 0; code < v.pizzaCount; code++) {
+            if (totals[0][code] > 0) {
+                result.add(new PizzaRating(v.pizzaIds[code], totals[0][code],
+                        totals[1][code] / 10.0 / totals[0][code]));
+            }
+        }
+        result.sort(Comparator.comparingDouble(PizzaRating::averageRating).reversed());
+        return result;
+    }
+
+    // Time spent in each status before the next, from RECEIVED to OUT_FOR_DELIVERY
+    List<StageDwell> statusDwell(long fromMillis, long toMillis) {
+        long[][] totals = scanOrders(view, () -> new long[3][STAGES], (sums, chunk, count) -> {
+            long[] orders = sums[0];
+            long[] millis = sums[1];
+            long[] max = sums[2];
+            // One column pair at a time, so each pass reads memory in order
+            for (int stage = 0; stage < STAGES; stage++) {
+                int[] entered = stage == 0 ? null : chunk.reachedAfterMillis[stage - 1]; // RECEIVED is at 0
+                int[] left = chunk.reachedAfterMillis[stage];
+                long orderCount = 0;
+                long total = 0;
+                long longest = 0;
+                for (int r = 0; r < count; r++) {
+                    long placedAt = chunk.placedAtMillis[r];
+                    int start = entered == null ? 0 : entered[r];
+                    int end = left[r];
+                    if (placedAt >= fromMillis && placedAt < toMillis && start != UNKNOWN && end != UNKNOWN) {
+                        int dwell = Math.max(0, end - start);
+                        orderCount++;
+                        total += dwell;
+                        longest = Math.max(longest, dwell);
+                    }
+                }
+                orders[stage] += orderCount;
+                millis[stage] += total;
+                max[stage] = Math.max(max[stage], longest);
+            }
+        });
+        List<StageDwell> result = new ArrayList<>(STAGES);
+        for (int stage = 0; stage < STAGES; stage++) {
+            long orders = totals[0][stage];
+            result.add(new StageDwell(OrderStatus.values()[stage], orders,
+                    orders == 0 ? 0 : (double) totals[1][stage] / orders, totals[2][stage]));
+        }
+        return result;
+    }
+
+    // ---- Scans ----
+
+    private interface OrderChunkScan {
+        void scan(long[][] sums, OrderChunk chunk, int count);
+    }
+
+    private interface ItemChunkScan {
+        void scan(long[][] sums, ItemChunk chunk, int count);
+    }
+
+    // Run scan over every order chunk in parallel, each fork-join task into its own partial sums,
+    // then add the partials together
+    private static long[][] scanOrders(View v, Supplier<long[][]> partial, OrderChunkScan scan) {
+        ObjIntConsumer<long[][]> accumulate = (sums, c) -> {
+            int count = Math.min(CHUNK_ROWS, v.orders - (c << CHUNK_BITS));
+            scan.scan(sums, v.orderChunks[c], count);
+        };
+        return IntStream.range(0, chunkCount(v.orders)).parallel().collect(partial, accumulate, OrderHistory::add);
+    }
+
+    private static long[][] scanItems(View v, Supplier<long[][]> partial, ItemChunkScan scan) {
+        ObjIntConsumer<long[][]> accumulate = (sums, c) -> {
+            int count = Math.min(CHUNK_ROWS, v.items - (c << CHUNK_BITS));
+            scan.scan(sums, v.itemChunks[c], count);
+        };
+        return IntStream.range(0, chunkCount(v.items)).parallel().collect(partial, accumulate, OrderHistory::add);
+    }
+
+    private static int chunkCount(int rows) {
+        return (rows + CHUNK_ROWS - 1) >>> CHUNK_BITS;
+    }
+
+    private static boolean inWindow(View v, int orderRow, long fromMillis, long toMillis) {
+        long placedAt = v.orderChunks[orderRow >>> CHUNK_BITS].placedAtMillis[orderRow & CHUNK_MASK];
+        return placedAt >= fromMillis && placedAt < toMillis;
+    }
+
+    // Sum other into into, column by column; the max row of a dwell partial (index 2) is a maximum
+    private static void add(long[][] into, long[][] other) {
+        for (int row = 0; row < into.length; row++) {
+            for (int i = 0; i < into[row].length; i++) {
+                into[row][i] = row == 2 ? Math.max(into[row][i], other[row][i]) : into[row][i] + other[row][i];
+            }
+        }
+    }
+}
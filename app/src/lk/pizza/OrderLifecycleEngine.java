@@ -0,0 +1,205 @@
+package lk.pizza;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Order Lifecycle Engine
+// Tracks only in-flight orders. Orders are spread over shards by id, and each shard keeps a
+// hashed timing wheel, so a tick only touches the orders that are due in that slot rather than
+// the whole order history. Delivered orders are dropped from the wheel as soon as they arrive, and
+// orders whose card payment was declined or failed at their next stage.
+//
+// Other stages can own an order for a while (the kitchen, a delivery waiting for a rider) and hand
+// it back with release(), which advances it and puts it on the wheel again.
+class OrderLifecycleEngine {
+    static final long DEFAULT_STAGE_MILLIS = 10_000;
+    static final long DEFAULT_TICK_MILLIS = 100;
+    static final int WHEEL_SIZE = 512; // Must be a power of two
+
+    interface StatusListener {
+        void onStatusChanged(Order order, OrderStatus previous, OrderStatus current);
+    }
+
+    private final OrderRepository orders;
+    private final Shard[] shards;
+    private final long stageMillis;
+    private final long tickMillis;
+    private final StatusListener listener;
+    private final AtomicInteger activeOrders = new AtomicInteger();
+    final Metrics.Ticks ticks = new Metrics.Ticks(); // Every shard's ticks
+    private ScheduledExecutorService scheduler;
+
+    OrderLifecycleEngine(OrderRepository orders, StatusListener listener) {
+        this(orders, Runtime.getRuntime().availableProcessors(), DEFAULT_STAGE_MILLIS, DEFAULT_TICK_MILLIS, listener);
+    }
+
+    OrderLifecycleEngine(OrderRepository orders, int shardCount, long stageMillis, long tickMillis, StatusListener listener) {
+        if (shardCount < 1 || stageMillis < tickMillis || tickMillis < 1) {
+            throw new IllegalArgumentException("Invalid lifecycle engine configuration");
+        }
+        this.orders = orders;
+        this.stageMillis = stageMillis;
+        this.tickMillis = tickMillis;
+        this.listener = listener;
+        this.shards = new Shard[shardCount];
+        long now = System.nanoTime();
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+            shards[i].startNanos = now;
+        }
+    }
+
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newScheduledThreadPool(shards.length);
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            shard.startNanos = now;
+            // A fixed-rate task never overlaps with itself, so each wheel is only touched by one thread at a time
+            scheduler.scheduleAtFixedRate(shard::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    // Start tracking a newly placed order; its first status change is due one stage from now
+    void track(Order order) {
+        if (order.status == OrderStatus.DELIVERED || order.paymentStatus.isRejected()) {
+            return;
+        }
+        activeOrders.incrementAndGet();
+        shardFor(order).inbox.add(new Entry(order, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stageMillis)));
+    }
+
+    // Move a held order on to its next status now and keep tracking it from there
+    void release(Order order) {
+        activeOrders.incrementAndGet();
+        advance(new Entry(order, 0));
+    }
+
+    // Run one tick of every shard on the calling thread, e.g. from a benchmark; do not mix with start()
+    void tickOnce() {
+        for (Shard shard : shards) {
+            shard.tick();
+        }
+    }
+
+    // Orders on the wheel; orders held elsewhere are not counted until they are released
+    int activeOrderCount() {
+        return activeOrders.get();
+    }
+
+    private Shard shardFor(Order order) {
+        return shards[(int) Math.floorMod(order.id, (long) shards.length)];
+    }
+
+    private void expire(Entry entry) {
+        Order order = entry.order;
+        if (order.paymentStatus.isRejected()) {
+            // The card payment did not go through; the order goes no further
+            activeOrders.decrementAndGet();
+            return;
+        }
+        advance(entry);
+    }
+
+    private void advance(Entry entry) {
+        Order order = entry.order;
+        OrderStatus previous = orders.advance(order);
+        OrderStatus current = order.status;
+        if (previous != null && listener != null) {
+            listener.onStatusChanged(order, previous, current);
+        }
+        if (current == OrderStatus.DELIVERED) {
+            activeOrders.decrementAndGet();
+            return;
+        }
+        // Reuse the entry for the next stage instead of allocating a new one
+        entry.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stageMillis);
+        shardFor(order).inbox.add(entry);
+    }
+
+    // A timer entry for one in-flight order
+    static final class Entry {
+        final Order order;
+        long deadlineNanos;
+        long remainingRounds;
+        Entry next;
+
+        Entry(Order order, long deadlineNanos) {
+            this.order = order;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    // One shard: a timing wheel plus a lock-free inbox for orders scheduled from other threads
+    final class Shard {
+        final ConcurrentLinkedQueue<Entry> inbox = new ConcurrentLinkedQueue<>();
+        final Entry[] wheel = new Entry[WHEEL_SIZE];
+        long startNanos;
+        long currentTick;
+
+        void tick() {
+            long started = System.nanoTime();
+            long allocated = Metrics.threadAllocatedBytes();
+            long due = startNanos + (currentTick + 1) * TimeUnit.MILLISECONDS.toNanos(tickMillis);
+            drainInbox();
+            int slot = (int) (currentTick & (WHEEL_SIZE - 1));
+            Entry entry = wheel[slot];
+            Entry kept = null;
+            wheel[slot] = null;
+            try {
+                while (entry != null) {
+                    Entry next = entry.next;
+                    entry.next = null;
+                    if (entry.remainingRounds <= 0) {
+                        expireQuietly(entry);
+                    } else {
+                        entry.remainingRounds--;
+                        entry.next = kept;
+                        kept = entry;
+                    }
+                    entry = next;
+                }
+            } finally {
+                // Whatever happens to one order, the rest of the slot stays on the wheel and time moves on
+                wheel[slot] = kept;
+                currentTick++;
+            }
+            ticks.record(due, started, allocated);
+        }
+
+        // Never let one bad order cancel the periodic task for the whole shard, or the rest of its slot.
+        // An order whose status change failed is dropped from the wheel rather than retried every tick.
+        private void expireQuietly(Entry entry) {
+            try {
+                expire(entry);
+            } catch (RuntimeException e) {
+                activeOrders.decrementAndGet();
+                System.err.println("❌ Order lifecycle tick failed for order " + entry.order.id + ": " + e);
+            }
+        }
+
+        private void drainInbox() {
+            long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+            Entry entry;
+            while ((entry = inbox.poll()) != null) {
+                long deadlineTick = Math.max(currentTick, (entry.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+                entry.remainingRounds = (deadlineTick - currentTick) / WHEEL_SIZE;
+                int slot = (int) (deadlineTick & (WHEEL_SIZE - 1));
+                entry.next = wheel[slot];
+                wheel[slot] = entry;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package lk.pizza;
+
+// Order Line
+// One menu pizza and how many of it a customer wants
+record OrderLine(long pizzaId, int quantity) {
+    static final int MAX_QUANTITY = 50;
+
+    OrderLine {
+        if (quantity < 1 || quantity > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Quantity must be between 1 and " + MAX_QUANTITY + ".");
+        }
+    }
+}
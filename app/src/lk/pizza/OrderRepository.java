@@ -0,0 +1,109 @@
+package lk.pizza;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Order Repository
+// Thread-safe order store with a primary index by order id and secondary indexes by user id and
+// status. Inserts go straight into concurrent maps, and status changes move the order between the
+// status indexes under the order's own monitor, so lookups never need to scan every order.
+class OrderRepository {
+    private final IdGenerator ids = new IdGenerator();
+    private final ConcurrentHashMap<Long, Order> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentLinkedQueue<Order>> byUser = new ConcurrentHashMap<>();
+    private final EnumMap<OrderStatus, Set<Order>> byStatus = new EnumMap<>(OrderStatus.class);
+
+    OrderRepository() {
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    long nextId() {
+        return ids.next();
+    }
+
+    void add(Order order) {
+        if (byId.putIfAbsent(order.id, order) != null) {
+            throw new IllegalStateException("Order " + order.id + " already exists");
+        }
+        // Keep the id sequence ahead of ids assigned elsewhere (e.g. restored orders)
+        ids.observe(order.id);
+        byUser.computeIfAbsent(order.user.id, id -> new ConcurrentLinkedQueue<>()).add(order);
+        synchronized (order) {
+            byStatus.get(order.status).add(order);
+        }
+    }
+
+    Order findById(long orderId) {
+        return byId.get(orderId);
+    }
+
+    // Orders for one user, oldest first
+    List<Order> findByUser(long userId) {
+        ConcurrentLinkedQueue<Order> userOrders = byUser.get(userId);
+        return userOrders == null ? List.of() : List.copyOf(userOrders);
+    }
+
+    List<Order> findByUserAndStatus(long userId, OrderStatus status) {
+        ConcurrentLinkedQueue<Order> userOrders = byUser.get(userId);
+        if (userOrders == null) {
+            return List.of();
+        }
+        List<Order> result = new ArrayList<>();
+        for (Order order : userOrders) {
+            if (order.status == status) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    // Live, read-only view of the orders currently in the given status
+    Collection<Order> findByStatus(OrderStatus status) {
+        return Collections.unmodifiableSet(byStatus.get(status));
+    }
+
+    int countByStatus(OrderStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    // Atomically move an order from one status to another; fails if the order is no longer in 'from'
+    boolean transition(Order order, OrderStatus from, OrderStatus to) {
+        synchronized (order) {
+            if (order.status != from) {
+                return false;
+            }
+            order.status = to;
+            byStatus.get(from).remove(order);
+            byStatus.get(to).add(order);
+            return true;
+        }
+    }
+
+    // Advance an order to its next stage and note when; returns the previous status, or null if
+    // already delivered
+    OrderStatus advance(Order order) {
+        while (true) {
+            OrderStatus current = order.status;
+            OrderStatus next = current.next();
+            if (next == null) {
+                return null;
+            }
+            // Written before the status so whoever sees the new status also sees its time
+            order.statusMillis[next.ordinal()] = System.currentTimeMillis();
+            if (transition(order, current, next)) {
+                return current;
+            }
+        }
+    }
+}
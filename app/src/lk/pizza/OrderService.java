@@ -0,0 +1,946 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Order Service
+// Session-free API over the ordering system. Every call names the acting user explicitly instead
+// of relying on a global "current user", and all shared state lives in thread-safe stores, so any
+// number of clients (the console, HTTP sessions, batch feeds) can use one instance concurrently.
+//
+// Invalid input is reported with IllegalArgumentException, requests that conflict with the current
+// state (duplicate sign-up, address not set, order not delivered yet) with IllegalStateException,
+// and unknown users, pizzas or orders with NoSuchElementException. Messages are user-facing.
+class OrderService {
+    static final List<String> CRUSTS = PizzaConfig.labels(Crust.values());
+    static final List<String> SAUCES = PizzaConfig.labels(Sauce.values());
+    static final List<String> CHEESES = PizzaConfig.labels(Cheese.values());
+    static final List<String> TOPPINGS = PizzaConfig.labels(Topping.values());
+    static final List<String> COLOMBO_AREAS = ColomboArea.labels();
+    static final List<String> PAYMENT_METHODS = List.of("Credit Card", "Debit Card", "Cash");
+    static final String DEFAULT_PIZZA_NAME = "Custom Pizza";
+    static final long CUSTOM_PIZZA_IDLE_MILLIS = 24 * 60 * 60 * 1000L;
+    static final long HOUSEKEEPING_INTERVAL_MINUTES = 60;
+    static final int MAX_CART_LINES = 20;
+    static final long PAYMENT_DRAIN_MILLIS = 5_000;
+
+    // How the customer pays; card fields are ignored for cash. A repeat order pays with storedCard,
+    // a card from the customer's reorder template, instead of card details.
+    record PaymentDetails(String method, String cardNumber, int expiryMonth, int expiryYear,
+                          ReorderTemplate.Card storedCard) {
+        PaymentDetails(String method, String cardNumber, int expiryMonth, int expiryYear) {
+            this(method, cardNumber, expiryMonth, expiryYear, null);
+        }
+
+        static PaymentDetails cash() {
+            return new PaymentDetails("Cash", null, 0, 0);
+        }
+
+        static PaymentDetails stored(String method, ReorderTemplate.Card card) {
+            return new PaymentDetails(method, null, 0, 0, card);
+        }
+
+        boolean isCard() {
+            return method.equals("Credit Card") || method.equals("Debit Card");
+        }
+    }
+
+    // One customer's cart in a batch submission, e.g. from an aggregator feed
+    record CartRequest(User user, List<OrderLine> lines, OrderType type, PaymentDetails payment) {
+    }
+
+    // What became of one cart in a batch: the placed order, or why it was rejected
+    record CartResult(Order order, RuntimeException error) {
+        boolean placed() {
+            return order != null;
+        }
+    }
+
+    final UserRepository users = new UserRepository();
+    final OrderRepository orders = new OrderRepository();
+    final NotificationBus notifications = new NotificationBus();
+    final Metrics metrics = new Metrics();
+    private final MenuCatalog catalog = new MenuCatalog(System::currentTimeMillis);
+    private final ConcurrentHashMap<Long, Pizza> pizzasById = new ConcurrentHashMap<>();
+    private final IdGenerator pizzaIds = new IdGenerator();
+    private final PizzaInternTable customPizzas = new PizzaInternTable();
+    private final OrderHistory history = new OrderHistory();
+    private final LiveAggregates live = new LiveAggregates(System::currentTimeMillis);
+    private final Recommender recommender = new Recommender(this::visiblePizza, System::currentTimeMillis);
+    private final PricingEngine pricing = new PricingEngine();
+    private final PromotionEngine promotions = new PromotionEngine(pricing::usePromotions);
+    private final Persistence persistence;
+    private final OrderLifecycleEngine lifecycleEngine;
+    private final KitchenScheduler kitchen;
+    private final AdmissionControl admission;
+    private final DeliveryDispatcher dispatcher;
+    private final PaymentPipeline payments;
+    private final LatencyRecorder placeOrderLatency;
+    private final LatencyRecorder placeBatchLatency;
+    private final LatencyRecorder pricingLatency;
+    private final LatencyRecorder loginLatency;
+    private final LatencyRecorder reorderLatency;
+    private final LongAdder[] transitions = new LongAdder[OrderStatus.values().length]; // By the status moved into
+    private ScheduledExecutorService housekeeping;
+
+    OrderService(Path dataDirectory) {
+        this(dataDirectory, new SimulatedPaymentGateway());
+    }
+
+    OrderService(Path dataDirectory, PaymentGateway gateway) {
+        this(dataDirectory, gateway, KitchenScheduler.Config.defaults());
+    }
+
+    OrderService(Path dataDirectory, PaymentGateway gateway, KitchenScheduler.Config kitchenConfig) {
+        this(dataDirectory, gateway, kitchenConfig, AdmissionControl.Config.defaults());
+    }
+
+    OrderService(Path dataDirectory, PaymentGateway gateway, KitchenScheduler.Config kitchenConfig,
+                 AdmissionControl.Config admissionConfig) {
+        this(new Persistence(dataDirectory, OrderService::seedPizzas), gateway, kitchenConfig, admissionConfig);
+    }
+
+    OrderService(Persistence persistence, PaymentGateway gateway, KitchenScheduler.Config kitchenConfig,
+                 AdmissionControl.Config admissionConfig) {
+        this.persistence = persistence;
+        this.payments = new PaymentPipeline(gateway, this::onPaymentChanged);
+        // New orders go through the kitchen at the pace of its stations; deliveries then wait for a
+        // rider run to their area, and the lifecycle engine times the rest
+        this.kitchen = new KitchenScheduler(kitchenConfig, orders, this::onStatusChanged, this::onBaked,
+                System::currentTimeMillis);
+        this.admission = new AdmissionControl(admissionConfig, kitchen, System::nanoTime);
+        this.dispatcher = new DeliveryDispatcher(this::onRunDispatched);
+        this.lifecycleEngine = new OrderLifecycleEngine(orders, this::onStatusChanged);
+        promotions.add(new Promotion("🎉 Seasonal Special: $2 off on orders above $20", 2.0, 20.0));
+        this.placeOrderLatency = metrics.timer("pizza_place_order_seconds",
+                "Time to place one order, cart or single pizza");
+        this.placeBatchLatency = metrics.timer("pizza_place_batch_seconds", "Time to place a batch of carts");
+        this.pricingLatency = metrics.timer("pizza_pricing_quote_seconds", "Time to price a cart");
+        this.loginLatency = metrics.timer("pizza_login_seconds", "Time to look up a user by contact number");
+        this.reorderLatency = metrics.timer("pizza_reorder_seconds", "Time to repeat a customer's last order");
+        registerMetrics();
+    }
+
+    // The built-in menu; persisted pizzas (including ratings of these) are layered on top during recovery
+    static List<Pizza> seedPizzas() {
+        return List.of(
+                new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0),
+                new Pizza(2L, "Pepperoni", "Thick", "Barbecue", "Cheddar", List.of("Pepperoni"), 12.0));
+    }
+
+    // Restore saved state and start tracking in-flight orders
+    void start() throws IOException {
+        PersistentState state = persistence.recover();
+        Set<Long> seedIds = new HashSet<>();
+        for (Pizza seed : seedPizzas()) {
+            seedIds.add(seed.id);
+        }
+        for (Pizza pizza : state.pizzas.values()) {
+            boolean seed = seedIds.contains(pizza.id);
+            addToMenu(pizza, seed);
+            pizzaIds.observe(pizza.id);
+            if (seed) {
+                pizza.pin();
+            } else {
+                // Duplicates saved before interning stay orderable until they are evicted or ordered
+                customPizzas.register(pizza);
+            }
+        }
+        for (User user : state.users.values()) {
+            user.customPizzas.removeIf(pizza -> state.pizzas.get(pizza.id) != pizza); // Retired since saved
+            users.add(user);
+        }
+        Map<User, Order> lastOrders = new HashMap<>();
+        for (Order order : state.orders.values()) {
+            orders.add(order);
+            if (!order.paymentStatus.isRejected()) {
+                lastOrders.merge(order.user, order, (a, b) -> a.id > b.id ? a : b);
+            }
+            for (Order.Item item : order.items) {
+                item.pizza().pin();
+                // Custom pizzas ordered before they were saved per user still show on that user's menu
+                if (!seedIds.contains(item.pizza().id) && !order.user.customPizzas.contains(item.pizza())) {
+                    order.user.customPizzas.add(item.pizza());
+                }
+            }
+            live.recovered(order);
+            if (!order.paymentStatus.isRejected()) {
+                recommender.placed(order);
+            }
+            resumePayment(order);
+            if (order.status == OrderStatus.DELIVERED) {
+                history.append(order);
+            } else if (!kitchen.resume(order)) {
+                lifecycleEngine.track(order);
+            }
+        }
+        // Card details are not kept, so only a last order paid in cash can be repeated straight away
+        for (Order last : lastOrders.values()) {
+            if (last.paymentStatus == PaymentStatus.CASH) {
+                last.user.lastOrder = ReorderTemplate.of(last, PaymentDetails.cash());
+            }
+        }
+        // Only in-flight orders are tracked, so tick cost follows active orders rather than order history
+        notifications.start();
+        lifecycleEngine.start();
+        kitchen.start();
+        dispatcher.start();
+        payments.start();
+        metrics.registerMBean();
+        housekeeping = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-service-housekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeping.scheduleWithFixedDelay(this::evictUnusedCustomPizzas, HOUSEKEEPING_INTERVAL_MINUTES,
+                HOUSEKEEPING_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        housekeeping.scheduleWithFixedDelay(admission::evictIdleBuckets, HOUSEKEEPING_INTERVAL_MINUTES,
+                HOUSEKEEPING_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        live.publish();
+        housekeeping.scheduleAtFixedRate(live::publish, LiveAggregates.PUBLISH_INTERVAL_MILLIS,
+                LiveAggregates.PUBLISH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() throws IOException {
+        if (housekeeping != null) {
+            housekeeping.shutdown();
+        }
+        metrics.unregisterMBean();
+        lifecycleEngine.shutdown();
+        kitchen.shutdown();
+        dispatcher.shutdown();
+        notifications.shutdown();
+        try {
+            payments.shutdown(PAYMENT_DRAIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        persistence.close();
+    }
+
+    // ---- Accounts ----
+
+    User signUp(String name, String contactNumber) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Name cannot be empty.");
+        }
+        if (contactNumber == null || UserRepository.parseContactNumber(contactNumber) < 0) {
+            throw new IllegalArgumentException("Invalid contact number. Please enter a valid 10-digit number.");
+        }
+        persistence.checkWritable();
+        // Duplicate check and insert happen atomically in the repository
+        User user = users.register(name.trim(), contactNumber);
+        if (user == null) {
+            throw new IllegalStateException("Contact number already exists. Please log in.");
+        }
+        persistence.record(new DomainEvent.UserRegistered(user.id, user.name, user.contactNumber));
+        return user;
+    }
+
+    User login(String contactNumber) {
+        long started = System.nanoTime();
+        User user = contactNumber == null ? null : users.findByContactNumber(contactNumber.trim());
+        loginLatency.recordSince(started);
+        if (user == null) {
+            throw new NoSuchElementException("User not found. Please sign up.");
+        }
+        return user;
+    }
+
+    User findUser(long userId) {
+        User user = users.findById(userId);
+        if (user == null) {
+            throw new NoSuchElementException("User not found.");
+        }
+        return user;
+    }
+
+    // areaIndex is zero-based into COLOMBO_AREAS
+    String updateAddress(User user, int areaIndex, String streetName, String identifier) {
+        if (areaIndex < 0 || areaIndex >= COLOMBO_AREAS.size()) {
+            throw new IllegalArgumentException("Invalid area. Please choose one of the listed areas.");
+        }
+        ColomboArea area = ColomboArea.values()[areaIndex];
+        String fullAddress = String.format("%s, %s, %s", area.label, streetName, identifier);
+        persistence.checkWritable();
+        synchronized (user) {
+            user.updateAddress(area, fullAddress);
+            ReorderTemplate last = user.lastOrder;
+            if (last != null) {
+                user.lastOrder = last.withAddress(fullAddress);
+            }
+        }
+        persistence.record(new DomainEvent.AddressUpdated(user.id, fullAddress));
+        return fullAddress;
+    }
+
+    // ---- Menu and favorites ----
+
+    // The public menu, without anyone's custom pizzas
+    MenuCatalog.Snapshot menu() {
+        return catalog.snapshot();
+    }
+
+    // The public menu followed by the user's own custom pizzas
+    MenuCatalog.UserMenu menuFor(User user) {
+        return catalog.menuFor(user);
+    }
+
+    Pizza findPizza(long pizzaId) {
+        Pizza pizza = pizzasById.get(pizzaId);
+        if (pizza == null) {
+            throw new NoSuchElementException("Pizza " + pizzaId + " not found.");
+        }
+        return pizza;
+    }
+
+    // Public pizzas go on everyone's menu; custom ones only on the menus of users who saved them
+    private void addToMenu(Pizza pizza, boolean isPublic) {
+        pizzasById.put(pizza.id, pizza);
+        pricing.putPizza(pizza);
+        if (isPublic) {
+            catalog.add(pizza);
+        }
+    }
+
+    // Identical configurations share one canonical pizza: asking for a configuration that already
+    // exists returns that pizza (under its existing name) instead of adding a copy. Either way it
+    // goes on this user's menu.
+    Pizza customizePizza(User user, String name, String crust, String sauce, String cheese, List<String> toppings) {
+        persistence.checkWritable();
+        long configKey = PizzaConfig.key(crust, sauce, cheese, toppings);
+        String pizzaName = name == null || name.isBlank() ? DEFAULT_PIZZA_NAME : name.trim();
+        Pizza pizza = customPizzas.intern(configKey, key -> {
+            // Priced from its crust, sauce, cheese and toppings rather than a flat rate
+            double basePrice = pricing.customPriceCents(key) / 100.0;
+            Pizza created = new Pizza(pizzaIds.next(), pizzaName, key, basePrice);
+            addToMenu(created, false);
+            persistence.record(new DomainEvent.PizzaCreated(created.id, created.name, created.crust(),
+                    created.sauce(), created.cheese(), created.toppings(), basePrice));
+            return created;
+        }, System.currentTimeMillis());
+        boolean added;
+        synchronized (user) {
+            added = !user.customPizzas.contains(pizza) && user.customPizzas.add(pizza);
+            if (added) {
+                user.menu = null;
+            }
+        }
+        if (added) {
+            persistence.record(new DomainEvent.CustomPizzaSaved(user.id, pizza.id));
+        }
+        return pizza;
+    }
+
+    // Drop custom pizzas nobody has ordered or chosen for a day; returns how many were removed
+    int evictUnusedCustomPizzas() {
+        return customPizzas.evictUnusedSince(System.currentTimeMillis() - CUSTOM_PIZZA_IDLE_MILLIS, pizza -> {
+            pizzasById.remove(pizza.id, pizza);
+            catalog.retired(pizza);
+            pricing.removePizza(pizza.id);
+            persistence.record(new DomainEvent.PizzaRetired(pizza.id));
+        });
+    }
+
+    // False if it was already a favorite
+    boolean addFavorite(User user, long pizzaId) {
+        Pizza pizza = findPizza(pizzaId);
+        pizza.touch(System.currentTimeMillis());
+        boolean added;
+        synchronized (user) {
+            added = user.addToFavorites(pizza);
+        }
+        if (added) {
+            recommender.invalidate(user);
+        }
+        return added;
+    }
+
+    void removeFavorite(User user, Pizza pizza) {
+        boolean removed;
+        synchronized (user) {
+            removed = user.removeFromFavorites(pizza);
+        }
+        if (removed) {
+            recommender.invalidate(user);
+        }
+    }
+
+    List<Pizza> favorites(User user) {
+        synchronized (user) {
+            return List.copyOf(user.favoritePizzas.values());
+        }
+    }
+
+    // "Reorder your usual" and "you may also like", from the user's orders and favorites
+    Recommender.Recommendations recommendations(User user) {
+        return recommender.recommend(user);
+    }
+
+    // A pizza the user can order from their own menu: a public one or one of their custom pizzas
+    private Pizza visiblePizza(User user, long pizzaId) {
+        Pizza pizza = pizzasById.get(pizzaId);
+        if (pizza == null || pizza.isRetired()) {
+            return null;
+        }
+        if (catalog.isPublic(pizza)) {
+            return pizza;
+        }
+        synchronized (user) {
+            return user.customPizzas.contains(pizza) ? pizza : null;
+        }
+    }
+
+    // Promotions currently running, for display
+    List<Promotion> promotions() {
+        return promotions.active(System.currentTimeMillis());
+    }
+
+    void addPromotion(Promotion promotion) {
+        promotions.add(promotion);
+    }
+
+    // Swap in a new promotion set without pausing pricing
+    void reloadPromotions(Collection<Promotion> replacement) {
+        promotions.replaceAll(replacement);
+    }
+
+    // What this cart would cost the user right now, in cents; has no side effects. Lines are merged
+    // as placeOrder() merges them, so the quote matches what the order will be charged.
+    PricingEngine.PriceQuote quote(User user, List<OrderLine> lines) {
+        long started = System.nanoTime();
+        PricingEngine.PriceQuote quote = pricing.quote(mergeLines(lines), user.loyaltyPoints(),
+                System.currentTimeMillis());
+        pricingLatency.recordSince(started);
+        return quote;
+    }
+
+    // Totals in cents for many carts against one consistent price table, e.g. for a checkout page
+    long[] quoteTotals(List<User> owners, List<List<OrderLine>> carts) {
+        int[] loyaltyPoints = new int[owners.size()];
+        List<List<OrderLine>> merged = new ArrayList<>(carts.size());
+        for (int i = 0; i < loyaltyPoints.length; i++) {
+            loyaltyPoints[i] = owners.get(i).loyaltyPoints();
+            merged.add(mergeLines(carts.get(i)));
+        }
+        return pricing.quoteTotals(merged, loyaltyPoints, System.currentTimeMillis());
+    }
+
+    // ---- Orders ----
+
+    Order placeOrder(User user, long pizzaId, OrderType type, PaymentDetails payment) {
+        return placeOrder(user, List.of(new OrderLine(pizzaId, 1)), type, payment);
+    }
+
+    // A whole cart becomes one order: priced, paid, logged and tracked once however many pizzas it holds
+    Order placeOrder(User user, List<OrderLine> lines, OrderType type, PaymentDetails payment) {
+        long started = System.nanoTime();
+        Order order = prepareOrder(user, lines, type, payment);
+        place(order, payment);
+        placeOrderLatency.recordSince(started);
+        return order;
+    }
+
+    // Place the user's last order again as it was: same pizzas, type, address and payment. None of
+    // it is asked for or validated again; only what may have changed since is checked (NoSuchElement
+    // if a pizza has left the menu, IllegalState if there is nothing to repeat, the card expired or
+    // its first charge is still being authorized). Signing in takes only a phone number, so a card
+    // is charged again only with the reorder key issued when it was first used, or its number typed
+    // again (IllegalArgument if neither matches); the charge itself uses the gateway's token.
+    Order reorder(User user, String reorderKeyOrCardNumber) {
+        long started = System.nanoTime();
+        ReorderTemplate last = user.lastOrder;
+        if (last == null) {
+            throw new IllegalStateException("No previous order to repeat. Please place an order first.");
+        }
+        ReorderTemplate.Card card = last.card();
+        if (card != null) {
+            if (System.currentTimeMillis() >= card.validUntilMillis()) {
+                throw new IllegalStateException("The card used last time has expired. Please place a new order.");
+            }
+            if (!card.confirmedBy(reorderKeyOrCardNumber)) {
+                throw new IllegalArgumentException("Please enter the number of the card ending " + card.lastFour()
+                        + " to confirm it.");
+            }
+            if (card.token() == null) {
+                throw new IllegalStateException("The payment for your last order is still being processed. "
+                        + "Please try again shortly.");
+            }
+        }
+        persistence.checkWritable();
+        long now = System.currentTimeMillis();
+        for (Order.Item item : last.items()) {
+            if (!item.pizza().touch(now)) {
+                throw new NoSuchElementException(item.pizza().name + " is no longer on the menu. Please place a new order.");
+            }
+        }
+        Order order = new Order(orders.nextId(), user, last.items(), last.type(), last.deliveryAddress());
+        order.paymentStatus = card != null ? PaymentStatus.PENDING : PaymentStatus.CASH;
+        place(order, last.payment());
+        reorderLatency.recordSince(started);
+        return order;
+    }
+
+    // Charge, log and track a prepared order, and remember it for reorder()
+    private void place(Order order, PaymentDetails payment) {
+        List<DomainEvent> events = new ArrayList<>(3);
+        List<LoyaltyLedger.Transaction> points = stage(order, events);
+        commit(List.of(order), List.of(payment), List.of(points), events);
+    }
+
+    // Place many carts in one pass. Each cart succeeds or fails on its own; the accepted ones and
+    // their loyalty transactions are logged in a single append. Every cart names its own customer,
+    // so this is for trusted in-process callers such as an aggregator feed; the HTTP API, where a
+    // session may only order for its own user, does not offer it.
+    List<CartResult> placeOrders(List<CartRequest> carts) {
+        long started = System.nanoTime();
+        persistence.checkWritable();
+        List<CartResult> results = new ArrayList<>(carts.size());
+        List<Order> staged = new ArrayList<>(carts.size());
+        List<PaymentDetails> payments = new ArrayList<>(carts.size());
+        List<List<LoyaltyLedger.Transaction>> charged = new ArrayList<>(carts.size());
+        List<DomainEvent> events = new ArrayList<>(carts.size() * 3);
+        for (CartRequest cart : carts) {
+            try {
+                Order order = prepareOrder(cart.user(), cart.lines(), cart.type(), cart.payment());
+                charged.add(stage(order, events));
+                staged.add(order);
+                payments.add(cart.payment());
+                results.add(new CartResult(order, null));
+            } catch (IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
+                results.add(new CartResult(null, e));
+            }
+        }
+        commit(staged, payments, charged, events);
+        placeBatchLatency.recordSince(started);
+        return results;
+    }
+
+    // Validate a cart; nothing is charged, pinned or recorded yet
+    private Order prepareOrder(User user, List<OrderLine> lines, OrderType type, PaymentDetails payment) {
+        persistence.checkWritable();
+        List<OrderLine> merged = mergeLines(lines);
+        List<Order.Item> items = new ArrayList<>(merged.size());
+        for (OrderLine line : merged) {
+            items.add(new Order.Item(findPizza(line.pizzaId()), line.quantity()));
+        }
+        validatePayment(payment);
+
+        String deliveryAddress = "";
+        if (type == OrderType.DELIVERY) {
+            if (user.address.equals("Not Set")) {
+                throw new IllegalStateException("Address not set. Please update your address first.");
+            }
+            deliveryAddress = user.address;
+        }
+        // Choosing a pizza keeps it on the menu for the idle period, far longer than placing the order
+        // takes; it is pinned for good in commit(), so an order turned away leaves nothing pinned
+        long now = System.currentTimeMillis();
+        for (Order.Item item : items) {
+            if (!item.pizza().touch(now)) {
+                throw new NoSuchElementException("Pizza " + item.pizza().id + " not found.");
+            }
+        }
+        Order order = new Order(orders.nextId(), user, items, type, deliveryAddress);
+        order.paymentStatus = payment.isCard() ? PaymentStatus.PENDING : PaymentStatus.CASH;
+        if (payment.isCard() && payment.storedCard() == null) {
+            order.reorderKey = ReorderTemplate.Card.newReorderKey();
+        }
+        return order;
+    }
+
+    // Check a cart's size and merge lines for the same pizza into one, keeping first-seen order.
+    // Quotes and orders both go through here, so a cart is priced the same way by each.
+    private static List<OrderLine> mergeLines(List<OrderLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("An order needs at least one pizza.");
+        }
+        if (lines.size() > MAX_CART_LINES) {
+            throw new IllegalArgumentException("An order can hold at most " + MAX_CART_LINES + " different pizzas.");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderLine line : lines) {
+            quantities.merge(line.pizzaId(), line.quantity(), Integer::sum);
+        }
+        if (quantities.size() == lines.size()) {
+            return lines;
+        }
+        List<OrderLine> merged = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            merged.add(new OrderLine(entry.getKey(), entry.getValue())); // Rejects a total over MAX_QUANTITY
+        }
+        return merged;
+    }
+
+    // Charge an order and add its placed and loyalty events to a batch about to be logged
+    private List<LoyaltyLedger.Transaction> stage(Order order, List<DomainEvent> events) {
+        List<LoyaltyLedger.Transaction> points = charge(order);
+        events.add(placedEvent(order));
+        addPointEvents(order.user, points, events);
+        return points;
+    }
+
+    // Log staged orders in one append, then track them, take their payments and remember them for
+    // reorder(). Tracked and paid only once logged, so no status change can reach the log ahead of
+    // its order. If the append fails every staged order is uncharged and the failure rethrown.
+    // Nothing about a staged order is visible until its events are on disk: an order the customer
+    // was told about has to survive a crash, and one that fails to log is undone instead
+    private void commit(List<Order> staged, List<PaymentDetails> payments,
+                        List<List<LoyaltyLedger.Transaction>> points, List<DomainEvent> events) {
+        try {
+            persistence.awaitDurable(persistence.recordAll(events));
+        } catch (IllegalStateException e) {
+            // Newest first, so one user's carts come off their ledger in the order they went on
+            for (int i = staged.size() - 1; i >= 0; i--) {
+                uncharge(staged.get(i), points.get(i));
+            }
+            throw e;
+        }
+        for (int i = 0; i < staged.size(); i++) {
+            Order order = staged.get(i);
+            // Pinning keeps a custom pizza from being evicted now that a logged order refers to it
+            for (Order.Item item : order.items) {
+                item.pizza().pin();
+            }
+            orders.add(order);
+            remember(order, payments.get(i));
+            live.placed(order);
+            recommender.placed(order);
+            admission.enter(order);
+            submitPayment(order, payments.get(i));
+        }
+    }
+
+    // Price the order against the balance when it was placed and pass it through admission control,
+    // which reserves its place in the kitchen or the intake queue or turns it away (Rejected).
+    // Cash orders settle loyalty points now and return the ledger transactions; card orders settle
+    // once the payment is authorized. Nothing after admission can fail.
+    private List<LoyaltyLedger.Transaction> charge(Order order) {
+        long started = System.nanoTime();
+        PricingEngine.PriceQuote price = pricing.quote(order.lines(), order.user.loyaltyPoints(),
+                order.createdAt.getTime());
+        pricingLatency.recordSince(started);
+        admission.admit(order);
+        order.totalCents = price.totalCents();
+        order.pointsEarned = price.pointsEarned();
+        return order.paymentStatus == PaymentStatus.CASH ? settleLoyalty(order) : List.of();
+    }
+
+    // Make the order the user's reorder template, unless a newer order of theirs got there first
+    private static void remember(Order order, PaymentDetails payment) {
+        synchronized (order.user) {
+            ReorderTemplate last = order.user.lastOrder;
+            if (last == null || last.orderId() < order.id) {
+                order.user.lastOrder = ReorderTemplate.of(order, payment);
+            }
+        }
+    }
+
+    // Undo charge() for an order whose events could not be logged or did not reach the disk: the log
+    // failed after the checkWritable() in prepareOrder, so the order is dropped rather than left half placed.
+    // The log is down by then, so the ledger correction stays in memory like the points it cancels.
+    private void uncharge(Order order, List<LoyaltyLedger.Transaction> points) {
+        admission.withdraw(order);
+        if (!points.isEmpty()) {
+            order.user.loyalty.undo(points, System.currentTimeMillis());
+        }
+    }
+
+    // Add loyalty points based on pizza price (for example, $20 pizza gives 20 points), then deduct
+    // the points spent, as one ledger update
+    private static List<LoyaltyLedger.Transaction> settleLoyalty(Order order) {
+        return order.user.loyalty.settleOrder(order.pointsEarned, Payment.pointsSpent(order.totalCents), order.id,
+                System.currentTimeMillis());
+    }
+
+    private static void addPointEvents(User user, List<LoyaltyLedger.Transaction> points, List<DomainEvent> events) {
+        for (LoyaltyLedger.Transaction t : points) {
+            events.add(new DomainEvent.PointsTransaction(user.id, t.sequence, t.kind, t.points, t.balance, t.orderId,
+                    t.atMillis));
+        }
+    }
+
+    // ---- Payments ----
+
+    // The same key for every attempt at one order's payment, so the gateway never charges it twice
+    static String paymentKey(long orderId) {
+        return "order-" + orderId;
+    }
+
+    private void submitPayment(Order order, PaymentDetails payment) {
+        if (payment.isCard()) {
+            String token = payment.storedCard() != null ? payment.storedCard().token() : null;
+            payments.submit(new PaymentGateway.Charge(paymentKey(order.id), order.id, order.totalCents,
+                    payment.cardNumber(), payment.expiryMonth(), payment.expiryYear(), token));
+        }
+    }
+
+    // Card details are never stored, so an authorization cut short by a restart cannot be retried;
+    // authorized payments still get settled
+    private void resumePayment(Order order) {
+        if (order.paymentStatus == PaymentStatus.PENDING) {
+            order.paymentStatus = PaymentStatus.FAILED;
+            persistence.record(new DomainEvent.PaymentChanged(order.id, PaymentStatus.FAILED, ""));
+        } else if (order.paymentStatus == PaymentStatus.AUTHORIZED) {
+            payments.resumeSettlement(new PaymentGateway.Authorization(paymentKey(order.id), order.id,
+                    order.totalCents, order.paymentReference, null));
+        }
+    }
+
+    private void onPaymentChanged(long orderId, PaymentStatus status, String reference, String cardToken) {
+        Order order = orders.findById(orderId);
+        if (order == null) {
+            return;
+        }
+        // The pipeline reports one order's changes one at a time, so no lock is needed here
+        boolean wasRejected = order.paymentStatus.isRejected();
+        order.paymentStatus = status;
+        if (status.isRejected() && !wasRejected) {
+            live.rejected(order);
+            // A declined card is not tried again by a one-tap reorder
+            synchronized (order.user) {
+                ReorderTemplate last = order.user.lastOrder;
+                if (last != null && last.orderId() == order.id) {
+                    order.user.lastOrder = null;
+                }
+            }
+        }
+        if (cardToken != null) {
+            // The card's first authorization gives the token a reorder will charge
+            synchronized (order.user) {
+                ReorderTemplate last = order.user.lastOrder;
+                if (last != null && last.orderId() == order.id && last.card().token() == null) {
+                    order.user.lastOrder = last.withCardToken(cardToken);
+                }
+            }
+        }
+        if (!reference.isEmpty()) {
+            order.paymentReference = reference;
+        }
+        List<DomainEvent> events = new ArrayList<>(3);
+        events.add(new DomainEvent.PaymentChanged(order.id, status, order.paymentReference));
+        if (status == PaymentStatus.AUTHORIZED) {
+            addPointEvents(order.user, settleLoyalty(order), events);
+        }
+        persistence.recordAll(events);
+    }
+
+    private static DomainEvent.OrderPlaced placedEvent(Order order) {
+        return new DomainEvent.OrderPlaced(order.id, order.user.id, order.lines(), order.type, order.deliveryAddress,
+                order.createdAt.getTime(), order.totalCents, order.paymentStatus);
+    }
+
+    Order findOrder(User user, long orderId) {
+        Order order = orders.findById(orderId);
+        if (order == null || !order.user.id.equals(user.id)) {
+            throw new NoSuchElementException("Order " + orderId + " not found.");
+        }
+        return order;
+    }
+
+    List<Order> ordersFor(User user) {
+        return orders.findByUser(user.id);
+    }
+
+    List<Order> deliveredOrders(User user) {
+        return orders.findByUserAndStatus(user.id, OrderStatus.DELIVERED);
+    }
+
+    void rate(User user, long orderId, String feedback, int rating) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5.");
+        }
+        Order order = findOrder(user, orderId);
+        if (order.status != OrderStatus.DELIVERED) {
+            throw new IllegalStateException("You can only rate delivered orders.");
+        }
+        String text = feedback == null ? "" : feedback;
+        persistence.checkWritable();
+        synchronized (order) {
+            order.addFeedback(text);
+            order.addPizzaRating(rating);
+        }
+        history.rate(order);
+        catalog.invalidate();
+        live.rated(rating);
+        persistence.record(new DomainEvent.RatingAdded(order.id, rating, text));
+    }
+
+    List<Notification> unreadNotifications(User user) {
+        return notifications.readUnread(user.id);
+    }
+
+    // ---- Kitchen and delivery ----
+
+    KitchenScheduler.Stats kitchenStats() {
+        return kitchen.stats();
+    }
+
+    AdmissionControl.Stats admissionStats() {
+        return admission.stats();
+    }
+
+    // How long a new order of this type would take to come out of the oven if placed now
+    long kitchenEstimateMillis(OrderType type) {
+        return kitchen.estimateMillis(type);
+    }
+
+    // Backlog and runs so far for every Colombo area, in area order
+    List<DeliveryDispatcher.AreaStats> dispatchStats() {
+        return dispatcher.stats();
+    }
+
+    // ---- Analytics ----
+
+    // Live dashboard figures, at most a second old; see LiveAggregates
+    LiveAggregates.Snapshot liveStats() {
+        return live.snapshot();
+    }
+
+    // Over delivered orders placed in [fromMillis, toMillis); see OrderHistory
+
+    List<OrderHistory.PizzaPopularity> popularPizzas(int limit, long fromMillis, long toMillis) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1.");
+        }
+        return history.popularPizzas(limit, fromMillis, toMillis);
+    }
+
+    List<OrderHistory.AreaRevenue> revenueByArea(long fromMillis, long toMillis) {
+        return history.revenueByArea(fromMillis, toMillis);
+    }
+
+    List<OrderHistory.PizzaRating> averageRatingByPizza(long fromMillis, long toMillis) {
+        return history.averageRatingByPizza(fromMillis, toMillis);
+    }
+
+    List<OrderHistory.StageDwell> statusDwell(long fromMillis, long toMillis) {
+        return history.statusDwell(fromMillis, toMillis);
+    }
+
+    private void onStatusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        transitions[current.ordinal()].increment();
+        live.statusChanged(order, previous, current);
+        persistence.record(new DomainEvent.StatusAdvanced(order.id, current, order.statusMillis[current.ordinal()]));
+        if (current == OrderStatus.DELIVERED) {
+            history.append(order);
+        }
+        notifications.publish(order.id, order.user.id, previous, current, System.currentTimeMillis());
+    }
+
+    // Deliveries wait for a rider run; everything else moves on right away. The order has left the
+    // kitchen, so the next one waiting at intake can go in.
+    private void onBaked(Order order) {
+        if (!dispatcher.offer(order)) {
+            lifecycleEngine.release(order);
+        }
+        admission.drain();
+    }
+
+    private void onRunDispatched(DeliveryDispatcher.Run run) {
+        for (Order order : run.orders()) {
+            lifecycleEngine.release(order);
+        }
+    }
+
+    // ---- Metrics ----
+
+    // Counters and gauges read from the components at scrape time; the latency recorders are made
+    // in the constructor
+    private void registerMetrics() {
+        for (OrderStatus status : OrderStatus.values()) {
+            LongAdder counter = new LongAdder();
+            transitions[status.ordinal()] = counter;
+            if (status != OrderStatus.RECEIVED) {
+                metrics.counter("pizza_status_transitions_total", "Orders moved on to each status",
+                        "to=\"" + status.name() + "\"", counter::sum);
+            }
+        }
+        metrics.ticks("pizza_lifecycle_tick", "lifecycle engine tick", lifecycleEngine.ticks);
+        metrics.ticks("pizza_kitchen_tick", "kitchen scheduling round", kitchen.ticks);
+        metrics.ticks("pizza_dispatch_tick", "delivery dispatch round", dispatcher.ticks);
+
+        String depth = "pizza_queue_depth";
+        String depthHelp = "Work waiting or in progress at each stage";
+        metrics.gauge(depth, depthHelp, "queue=\"intake\"", () -> admission.stats().waiting());
+        metrics.gauge(depth, depthHelp, "queue=\"kitchen_backlog\"", kitchen::backlog);
+        metrics.gauge(depth, depthHelp, "queue=\"prep\"", () -> kitchen.stats().prepQueued());
+        metrics.gauge(depth, depthHelp, "queue=\"oven\"", () -> kitchen.stats().ovenQueued());
+        metrics.gauge(depth, depthHelp, "queue=\"dispatch\"", dispatcher::waitingCount);
+        metrics.gauge(depth, depthHelp, "queue=\"lifecycle\"", lifecycleEngine::activeOrderCount);
+        metrics.gauge(depth, depthHelp, "queue=\"notifications\"", notifications::backlog);
+        metrics.gauge(depth, depthHelp, "queue=\"payment_settlement\"", payments::unsettledCount);
+
+        String admitted = "pizza_admission_total";
+        String admittedHelp = "Orders let in by admission control";
+        metrics.counter(admitted, admittedHelp, "outcome=\"accepted\"", () -> admission.stats().accepted());
+        metrics.counter(admitted, admittedHelp, "outcome=\"queued\"", () -> admission.stats().queued());
+        metrics.counter(admitted, admittedHelp, "outcome=\"admitted_from_queue\"",
+                () -> admission.stats().admittedFromQueue());
+        String shed = "pizza_admission_shed_total";
+        String shedHelp = "Orders turned away by admission control";
+        for (AdmissionControl.Reason reason : AdmissionControl.Reason.values()) {
+            metrics.counter(shed, shedHelp, "reason=\"" + reason.name() + "\"", () -> switch (reason) {
+                case USER_RATE_LIMIT -> admission.stats().shedUserRate();
+                case GLOBAL_RATE_LIMIT -> admission.stats().shedGlobalRate();
+                case KITCHEN_FULL -> admission.stats().shedKitchenFull();
+                case INTAKE_FULL -> admission.stats().shedIntakeFull();
+            });
+        }
+        metrics.counter("pizza_kitchen_completed_total", "Orders baked", () -> kitchen.stats().completed());
+        metrics.counter("pizza_notifications_dropped_total", "Notifications lost to a full ring",
+                notifications::droppedCount);
+        metrics.gauge("pizza_users", "Registered users", users::size);
+        metrics.gauge("pizza_orders", "Orders held in memory", orders::size);
+        for (OrderStatus status : OrderStatus.values()) {
+            metrics.gauge("pizza_orders_in_status", "Orders currently in each status, not counting declined payments",
+                    "status=\"" + status.name() + "\"", () -> live.snapshot().ordersByStatus().get(status));
+        }
+        metrics.gauge("pizza_history_orders", "Delivered orders in the analytics history", history::size);
+    }
+
+    // ---- Validation ----
+
+    static void validatePayment(PaymentDetails payment) {
+        if (payment == null || !PAYMENT_METHODS.contains(payment.method())) {
+            throw new IllegalArgumentException("Invalid payment method. Please select a valid option.");
+        }
+        if (payment.isCard()) {
+            String problem = cardProblem(payment.cardNumber(), payment.expiryMonth(), payment.expiryYear());
+            if (problem != null) {
+                throw new IllegalArgumentException(problem);
+            }
+        }
+    }
+
+    // Returns what is wrong with the card details, or null if they are valid
+    static String cardProblem(String cardNumber, int month, int year) {
+        // Ensure the card number is 16 digits long and contains only numbers
+        if (cardNumber == null || cardNumber.length() != 16 || !cardNumber.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return "Invalid card number. It must be 16 digits and contain only numbers.";
+        }
+
+        // Ensure the expiration month is between 1 and 12
+        if (month < 1 || month > 12) {
+            return "Invalid expiration month. It must be between 1 and 12.";
+        }
+
+        // Ensure the expiration year is not in the past
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+        if (year < currentYear) {
+            return "Invalid expiration year. It cannot be in the past.";
+        }
+
+        // If the expiration year is the current year, ensure the month is not in the past
+        if (year == currentYear && month < Calendar.getInstance().get(Calendar.MONTH) + 1) {
+            return "Invalid expiration date. The month has already passed.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.util.List;
+
+// Payment Gateway
+// What the ordering system needs from a card processor: authorize a charge, then settle authorized
+// charges in batches. Calls block for as long as the processor takes, so PaymentPipeline runs them
+// on virtual threads with timeouts and retries. Authorizing again with the same idempotency key
+// must not charge twice; it returns the first authorization instead.
+//
+// Every authorization carries a token the processor issued for the card, and a later charge can
+// name that token instead of the card details. That way a card can be charged again without
+// anything here keeping or resending its number.
+//
+// An IOException means the call may be retried; Declined means the processor refused the card.
+interface PaymentGateway {
+    // A charge to authorize; idempotencyKey stays the same across retries of one payment. Either the
+    // card details are set, or cardToken names a card the processor already holds (cardNumber null).
+    record Charge(String idempotencyKey, long orderId, long amountCents, String cardNumber, int expiryMonth,
+                  int expiryYear, String cardToken) {
+    }
+
+    // An approved charge, identified at the processor by reference; cardToken charges the same card
+    // again, and is null for authorizations resumed after a restart
+    record Authorization(String idempotencyKey, long orderId, long amountCents, String reference, String cardToken) {
+    }
+
+    // The processor refused the card; retrying will not help
+    final class Declined extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Declined(String message) {
+            super(message);
+        }
+    }
+
+    Authorization authorize(Charge charge) throws IOException;
+
+    // Capture every authorization in the batch; on an IOException none of them counts as settled
+    void settle(List<Authorization> batch) throws IOException;
+}
@@ -0,0 +1,233 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Payment Pipeline
+// Takes card payments off the request thread. Each submitted charge runs on its own virtual
+// thread; a semaphore bounds how many gateway calls are in flight, so a slow gateway queues
+// payments instead of piling up connections. Every attempt has a timeout, and transient failures
+// are retried with backoff under the same idempotency key, so a retry can never charge twice.
+//
+// Authorized charges are settled in batches: whenever enough have queued up, and on a fixed
+// interval for the rest. A failed settlement puts its batch back for the next round. The listener
+// hears about every status change (authorized, declined, failed, settled) in that order per charge.
+//
+// Payments still running when shutdown's timeout runs out are abandoned: interrupted and not
+// reported, so they stay pending exactly as after a crash, and recovery deals with them.
+class PaymentPipeline {
+    static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    static final long DEFAULT_ATTEMPT_TIMEOUT_MILLIS = 2_000;
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+    static final long DEFAULT_RETRY_BACKOFF_MILLIS = 100;
+    static final int DEFAULT_SETTLEMENT_BATCH = 50;
+    static final long DEFAULT_SETTLEMENT_INTERVAL_MILLIS = 1_000;
+
+    interface Listener {
+        // cardToken is the gateway's token for the card with AUTHORIZED, and null otherwise
+        void onPaymentChanged(long orderId, PaymentStatus status, String reference, String cardToken);
+    }
+
+    private final PaymentGateway gateway;
+    private final Listener listener;
+    private final Semaphore inFlight;
+    private final long attemptTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final int settlementBatch;
+    private final long settlementIntervalMillis;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService calls = Executors.newVirtualThreadPerTaskExecutor(); // Gateway calls under a timeout
+    private final ConcurrentLinkedQueue<PaymentGateway.Authorization> unsettled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger unsettledCount = new AtomicInteger();
+    private final ReentrantLock settling = new ReentrantLock(); // Not synchronized: settlement runs on virtual threads
+    private ScheduledExecutorService settler;
+    private volatile boolean abandoned; // Set once shutdown stops waiting for payments in flight
+
+    PaymentPipeline(PaymentGateway gateway, Listener listener) {
+        this(gateway, listener, DEFAULT_MAX_IN_FLIGHT, DEFAULT_ATTEMPT_TIMEOUT_MILLIS, DEFAULT_MAX_ATTEMPTS,
+                DEFAULT_RETRY_BACKOFF_MILLIS, DEFAULT_SETTLEMENT_BATCH, DEFAULT_SETTLEMENT_INTERVAL_MILLIS);
+    }
+
+    PaymentPipeline(PaymentGateway gateway, Listener listener, int maxInFlight, long attemptTimeoutMillis,
+                    int maxAttempts, long retryBackoffMillis, int settlementBatch, long settlementIntervalMillis) {
+        if (maxInFlight < 1 || attemptTimeoutMillis < 1 || maxAttempts < 1 || retryBackoffMillis < 0
+                || settlementBatch < 1 || settlementIntervalMillis < 1) {
+            throw new IllegalArgumentException("Invalid payment pipeline configuration");
+        }
+        this.gateway = gateway;
+        this.listener = listener;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.settlementBatch = settlementBatch;
+        this.settlementIntervalMillis = settlementIntervalMillis;
+    }
+
+    synchronized void start() {
+        if (settler != null) {
+            return;
+        }
+        settler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-settler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        settler.scheduleWithFixedDelay(this::settleAll, settlementIntervalMillis, settlementIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Stop taking payments, let in-flight ones finish (up to the timeout), then settle what is left
+    synchronized void shutdown(long timeoutMillis) throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            abandoned = true;
+            workers.shutdownNow();
+            workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        calls.shutdownNow();
+        if (settler != null) {
+            settler.shutdown();
+            settler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            settler = null;
+        }
+        settleAll();
+    }
+
+    // Authorize a charge in the background; completes with AUTHORIZED, DECLINED or FAILED
+    CompletableFuture<PaymentStatus> submit(PaymentGateway.Charge charge) {
+        CompletableFuture<PaymentStatus> result = new CompletableFuture<>();
+        workers.execute(() -> {
+            PaymentStatus status = authorize(charge);
+            if (status == PaymentStatus.AUTHORIZED && unsettledCount.get() >= settlementBatch) {
+                settleAll();
+            }
+            result.complete(status);
+        });
+        return result;
+    }
+
+    // Queue an authorization from before a restart for settlement
+    void resumeSettlement(PaymentGateway.Authorization authorization) {
+        unsettled.add(authorization);
+        unsettledCount.incrementAndGet();
+    }
+
+    int unsettledCount() {
+        return unsettledCount.get();
+    }
+
+    private PaymentStatus authorize(PaymentGateway.Charge charge) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report(charge.orderId(), PaymentStatus.FAILED, "", null);
+            return PaymentStatus.FAILED;
+        }
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    PaymentGateway.Authorization authorization = attempt(charge);
+                    report(charge.orderId(), PaymentStatus.AUTHORIZED, authorization.reference(),
+                            authorization.cardToken());
+                    unsettled.add(authorization);
+                    unsettledCount.incrementAndGet();
+                    return PaymentStatus.AUTHORIZED;
+                } catch (PaymentGateway.Declined e) {
+                    report(charge.orderId(), PaymentStatus.DECLINED, "", null);
+                    return PaymentStatus.DECLINED;
+                } catch (IOException | TimeoutException e) {
+                    if (attempt == maxAttempts) {
+                        report(charge.orderId(), PaymentStatus.FAILED, "", null);
+                        return PaymentStatus.FAILED;
+                    }
+                    Thread.sleep(retryBackoffMillis << (attempt - 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report(charge.orderId(), PaymentStatus.FAILED, "", null);
+            return PaymentStatus.FAILED;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    // One gateway call, abandoned (and interrupted) once it runs past the attempt timeout
+    private PaymentGateway.Authorization attempt(PaymentGateway.Charge charge)
+            throws IOException, TimeoutException, InterruptedException {
+        Future<PaymentGateway.Authorization> call = calls.submit(() -> gateway.authorize(charge));
+        try {
+            return call.get(attemptTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PaymentGateway.Declined declined) {
+                throw declined;
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Gateway call failed", e.getCause());
+        }
+    }
+
+    // Reports an authorization outcome unless the payment was abandoned. Settlement reports directly:
+    // its last round runs inside shutdown, while the listener is still there.
+    private void report(long orderId, PaymentStatus status, String reference, String cardToken) {
+        if (!abandoned) {
+            listener.onPaymentChanged(orderId, status, reference, cardToken);
+        }
+    }
+
+    // Settle everything queued, a batch at a time; only one caller settles at once
+    private void settleAll() {
+        if (!settling.tryLock()) {
+            return;
+        }
+        try {
+            List<PaymentGateway.Authorization> batch = new ArrayList<>(settlementBatch);
+            while (true) {
+                batch.clear();
+                PaymentGateway.Authorization next;
+                while (batch.size() < settlementBatch && (next = unsettled.poll()) != null) {
+                    batch.add(next);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                unsettledCount.addAndGet(-batch.size());
+                try {
+                    gateway.settle(batch);
+                } catch (IOException | RuntimeException e) {
+                    // Retried on the next round
+                    unsettled.addAll(batch);
+                    unsettledCount.addAndGet(batch.size());
+                    return;
+                }
+                for (PaymentGateway.Authorization authorization : batch) {
+                    listener.onPaymentChanged(authorization.orderId(), PaymentStatus.SETTLED, authorization.reference(),
+                            null);
+                }
+            }
+        } finally {
+            settling.unlock();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Persistence
+// Ties the event log and snapshots together. Recovery loads the latest snapshot and replays the
+// log tail after it. Compaction runs in the background: it seals the current log segment, folds
+// the sealed segments into the previous snapshot offline (never touching live objects), writes
+// the result as a new snapshot and deletes the files it replaces.
+class Persistence {
+    static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 300;
+    static final long UNAVAILABLE_RETRY_AFTER_SECONDS = 30;
+    static final long DURABLE_TIMEOUT_MILLIS = 5_000;
+
+    // A change refused because it could not be saved; the front ends report it as temporarily
+    // unavailable rather than as a conflict with the caller's request
+    static final class Unavailable extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        Unavailable() {
+            super("Changes cannot be saved right now. Please try again later.");
+        }
+    }
+
+    private final Path directory;
+    private final Supplier<List<Pizza>> seedPizzas;
+    private final long snapshotIntervalSeconds;
+    private EventLog log;
+    private ScheduledExecutorService compactor;
+    private long snapshotSeq;
+
+    Persistence(Path directory, Supplier<List<Pizza>> seedPizzas) {
+        this(directory, seedPizzas, DEFAULT_SNAPSHOT_INTERVAL_SECONDS);
+    }
+
+    Persistence(Path directory, Supplier<List<Pizza>> seedPizzas, long snapshotIntervalSeconds) {
+        this.directory = directory;
+        this.seedPizzas = seedPizzas;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    // Rebuild state from disk and open the log for new events
+    synchronized PersistentState recover() throws IOException {
+        if (log != null) {
+            throw new IllegalStateException("Persistence already started");
+        }
+        Files.createDirectories(directory);
+        PersistentState state = loadSnapshot();
+        snapshotSeq = state.lastSeq;
+        long lastSeq = EventLog.recover(directory, state.lastSeq, state::apply);
+        state.lastSeq = lastSeq;
+        log = new EventLog(directory, lastSeq);
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        return state;
+    }
+
+    // Refuse a change before anything is touched when it could not be logged: once the log writer
+    // has failed, every record() throws, and a change already made in memory would be half done
+    void checkWritable() {
+        EventLog current = log;
+        if (current != null && current.failed()) {
+            throw new Unavailable();
+        }
+    }
+
+    // Record an event; returns immediately, the group commit makes it durable shortly after
+    void record(DomainEvent event) {
+        EventLog current = log;
+        if (current != null) {
+            try {
+                current.append(event);
+            } catch (IllegalStateException e) {
+                throw unavailableIfFailed(current, e);
+            }
+        }
+    }
+
+    // Record several events in one append, so they reach the same group commit; returns the
+    // sequence number to pass to awaitDurable(), or -1 if nothing was logged
+    long recordAll(List<DomainEvent> events) {
+        EventLog current = log;
+        if (current != null && !events.isEmpty()) {
+            try {
+                return current.appendAll(events);
+            } catch (IllegalStateException e) {
+                throw unavailableIfFailed(current, e);
+            }
+        }
+        return -1;
+    }
+
+    // Wait until everything up to seq is on disk. If the log fails or stalls for longer than
+    // DURABLE_TIMEOUT_MILLIS this throws Unavailable, and the caller must undo the change.
+    void awaitDurable(long seq) {
+        EventLog current = log;
+        if (current != null && seq >= 0) {
+            try {
+                current.awaitDurable(seq, DURABLE_TIMEOUT_MILLIS);
+            } catch (IOException e) {
+                throw new Unavailable();
+            }
+        }
+    }
+
+    // A log closed by a write failure refuses appends; report that as Unavailable, not a conflict
+    private static IllegalStateException unavailableIfFailed(EventLog log, IllegalStateException e) {
+        return log.failed() ? new Unavailable() : e;
+    }
+
+    synchronized void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdown();
+            compactor = null;
+        }
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    // Fold all sealed segments into a new snapshot
+    synchronized void compact() throws IOException, InterruptedException {
+        if (log == null || log.durableSeq() == snapshotSeq) {
+            return;
+        }
+        long newSegmentStart = log.rotate();
+        List<Path> sealed = new ArrayList<>();
+        for (Path segment : EventLog.listSegments(directory)) {
+            if (EventLog.segmentStartSeq(segment) < newSegmentStart) {
+                sealed.add(segment);
+            }
+        }
+
+        Path previousSnapshot = PersistentState.latestSnapshot(directory);
+        PersistentState state = loadSnapshot();
+        state.lastSeq = EventLog.replay(sealed, state.lastSeq, state::apply);
+        if (state.lastSeq != newSegmentStart - 1) {
+            // A sealed segment is damaged or missing: its records exist nowhere else, so keep them all
+            throw new IOException("Sealed log segments replay only to sequence number " + state.lastSeq + " of "
+                    + (newSegmentStart - 1) + "; not compacting");
+        }
+        Path snapshot = state.write(directory);
+        snapshotSeq = state.lastSeq;
+
+        for (Path segment : sealed) {
+            Files.deleteIfExists(segment);
+        }
+        if (previousSnapshot != null && !previousSnapshot.equals(snapshot)) {
+            Files.deleteIfExists(previousSnapshot);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("❌ Snapshot compaction failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PersistentState loadSnapshot() throws IOException {
+        Path snapshot = PersistentState.latestSnapshot(directory);
+        return snapshot == null ? new PersistentState(seedPizzas.get()) : PersistentState.load(snapshot, seedPizzas.get());
+    }
+}
@@ -0,0 +1,301 @@
+package lk.pizza;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Persistent State
+// Plain, single-threaded model of users, pizzas and orders used while recovering or compacting.
+// It is built from a snapshot plus the event log tail, and can itself be written as a snapshot.
+//
+// Snapshot layout: [int MAGIC][int VERSION][long lastSeq][pizzas][users][orders], each section
+// prefixed with its record count. A pizza carries its star histogram and decay sums once it has
+// been rated (version 1 wrote them for every pizza), a user their loyalty ledger transactions and
+// saved custom pizzas, and an order its items, charged total, payment and the time it reached each
+// status. Snapshots are written to a temporary file and moved into place, so a crash mid-snapshot
+// never leaves a half-written file behind.
+class PersistentState {
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int MAGIC = 0x50495A5A; // "PIZZ"
+    private static final int VERSION = 2;
+
+    final Map<Long, Pizza> pizzas = new LinkedHashMap<>();
+    final Map<Long, User> users = new LinkedHashMap<>();
+    final Map<Long, Order> orders = new LinkedHashMap<>();
+    long lastSeq;
+
+    // Seed pizzas are not in the log, so every state starts from the same menu
+    PersistentState(List<Pizza> seedPizzas) {
+        for (Pizza pizza : seedPizzas) {
+            pizzas.put(pizza.id, pizza);
+        }
+    }
+
+    void apply(long seq, DomainEvent event) {
+        switch (event) {
+            case DomainEvent.UserRegistered e ->
+                    users.putIfAbsent(e.userId(), new User(e.userId(), e.name(), e.contactNumber()));
+            case DomainEvent.PizzaCreated e ->
+                    pizzas.putIfAbsent(e.pizzaId(), new Pizza(e.pizzaId(), e.name(), e.crust(), e.sauce(), e.cheese(),
+                            e.toppings(), e.basePrice()));
+            case DomainEvent.CustomPizzaSaved e -> {
+                User user = users.get(e.userId());
+                Pizza pizza = pizzas.get(e.pizzaId());
+                if (user != null && pizza != null && !user.customPizzas.contains(pizza)) {
+                    user.customPizzas.add(pizza);
+                }
+            }
+            // Users' lists are not searched here; retired pizzas are dropped from them when written or loaded
+            case DomainEvent.PizzaRetired e -> pizzas.remove(e.pizzaId());
+            case DomainEvent.OrderPlaced e -> {
+                User user = users.get(e.userId());
+                List<Order.Item> items = items(e.lines());
+                if (user != null && items != null && !orders.containsKey(e.orderId())) {
+                    Order order = new Order(e.orderId(), user, items, e.type(), e.deliveryAddress());
+                    order.createdAt = new Date(e.createdAtMillis());
+                    order.statusMillis[OrderStatus.RECEIVED.ordinal()] = e.createdAtMillis();
+                    order.totalCents = e.totalCents();
+                    order.paymentStatus = e.payment();
+                    orders.put(order.id, order);
+                }
+            }
+            case DomainEvent.PaymentChanged e -> {
+                Order order = orders.get(e.orderId());
+                if (order != null) {
+                    order.paymentStatus = e.status();
+                    order.paymentReference = e.reference();
+                }
+            }
+            case DomainEvent.StatusAdvanced e -> {
+                Order order = orders.get(e.orderId());
+                if (order != null && e.status().compareTo(order.status) > 0) {
+                    order.status = e.status();
+                    order.statusMillis[e.status().ordinal()] = e.atMillis();
+                }
+            }
+            case DomainEvent.RatingAdded e -> {
+                Order order = orders.get(e.orderId());
+                if (order != null) {
+                    order.addFeedback(e.feedback());
+                    order.addPizzaRating(e.rating());
+                }
+            }
+            case DomainEvent.AddressUpdated e -> {
+                User user = users.get(e.userId());
+                if (user != null) {
+                    user.updateAddress(ColomboArea.fromAddress(e.address()), e.address());
+                }
+            }
+            case DomainEvent.PointsTransaction e -> {
+                User user = users.get(e.userId());
+                if (user != null) {
+                    user.loyalty.replay(e.sequence(), e.kind(), e.points(), e.balance(), e.orderId(), e.atMillis());
+                }
+            }
+        }
+        lastSeq = seq;
+    }
+
+    // The order's pizzas, or null if one of them is unknown
+    private List<Order.Item> items(List<OrderLine> lines) {
+        Order.Item[] items = new Order.Item[lines.size()];
+        for (int i = 0; i < items.length; i++) {
+            Pizza pizza = pizzas.get(lines.get(i).pizzaId());
+            if (pizza == null) {
+                return null;
+            }
+            items[i] = new Order.Item(pizza, lines.get(i).quantity());
+        }
+        return List.of(items);
+    }
+
+    static Path snapshotPath(Path directory, long lastSeq) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lastSeq, SNAPSHOT_SUFFIX));
+    }
+
+    // The snapshot covering the most events, or null if there is none
+    static Path latestSnapshot(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        Path latest = null;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path path : stream) {
+                if (latest == null || path.getFileName().toString().compareTo(latest.getFileName().toString()) > 0) {
+                    latest = path;
+                }
+            }
+        }
+        return latest;
+    }
+
+    static PersistentState load(Path snapshot, List<Pizza> seedPizzas) throws IOException {
+        PersistentState state = new PersistentState(seedPizzas);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC || version < 1 || version > VERSION) {
+                throw new IOException("Unrecognized snapshot format: " + snapshot);
+            }
+            state.lastSeq = in.readLong();
+
+            int pizzaCount = in.readInt();
+            for (int i = 0; i < pizzaCount; i++) {
+                long id = in.readLong();
+                Pizza pizza = new Pizza(id, EventLog.readString(in), EventLog.readString(in), EventLog.readString(in),
+                        EventLog.readString(in), EventLog.readStrings(in), in.readDouble());
+                if (version == 1 || in.readBoolean()) {
+                    long[] histogram = new long[RatingAggregator.MAX_STARS];
+                    for (int star = 0; star < histogram.length; star++) {
+                        histogram[star] = in.readLong();
+                    }
+                    pizza.ratings().restore(histogram, in.readLong(), in.readDouble(), in.readDouble());
+                }
+                state.pizzas.put(id, pizza);
+            }
+
+            int userCount = in.readInt();
+            for (int i = 0; i < userCount; i++) {
+                User user = new User(in.readLong(), EventLog.readString(in), EventLog.readString(in));
+                String address = EventLog.readString(in);
+                user.updateAddress(ColomboArea.fromAddress(address), address);
+                int transactionCount = in.readInt();
+                for (int t = 0; t < transactionCount; t++) {
+                    user.loyalty.replay(in.readLong(), LoyaltyLedger.Kind.values()[in.readByte()], in.readInt(),
+                            in.readInt(), in.readLong(), in.readLong());
+                }
+                int customCount = in.readInt();
+                for (int c = 0; c < customCount; c++) {
+                    Pizza pizza = state.pizzas.get(in.readLong());
+                    if (pizza != null) {
+                        user.customPizzas.add(pizza);
+                    }
+                }
+                state.users.put(user.id, user);
+            }
+
+            int orderCount = in.readInt();
+            for (int i = 0; i < orderCount; i++) {
+                long id = in.readLong();
+                User user = state.users.get(in.readLong());
+                OrderType type = OrderType.values()[in.readByte()];
+                String deliveryAddress = EventLog.readString(in);
+                OrderStatus status = OrderStatus.values()[in.readByte()];
+                Date createdAt = new Date(in.readLong());
+                String feedback = EventLog.readString(in);
+                double pizzaRating = in.readDouble();
+                long totalCents = in.readLong();
+                Order.Item[] items = new Order.Item[in.readInt()];
+                for (int item = 0; item < items.length; item++) {
+                    items[item] = new Order.Item(state.pizzas.get(in.readLong()), in.readInt());
+                }
+                PaymentStatus paymentStatus = PaymentStatus.values()[in.readByte()];
+                String paymentReference = EventLog.readString(in);
+                long[] statusMillis = new long[in.readByte()];
+                for (int s = 0; s < statusMillis.length; s++) {
+                    statusMillis[s] = in.readLong();
+                }
+                Order order = new Order(id, user, List.of(items), type, deliveryAddress);
+                order.status = status;
+                order.createdAt = createdAt;
+                order.feedback = feedback;
+                order.pizzaRating = pizzaRating;
+                order.totalCents = totalCents;
+                order.paymentStatus = paymentStatus;
+                order.paymentReference = paymentReference;
+                System.arraycopy(statusMillis, 0, order.statusMillis, 0, statusMillis.length);
+                state.orders.put(id, order);
+            }
+        }
+        return state;
+    }
+
+    Path write(Path directory) throws IOException {
+        Path target = snapshotPath(directory, lastSeq);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSeq);
+
+            out.writeInt(pizzas.size());
+            for (Pizza pizza : pizzas.values()) {
+                out.writeLong(pizza.id);
+                EventLog.writeString(out, pizza.name);
+                EventLog.writeString(out, pizza.crust());
+                EventLog.writeString(out, pizza.sauce());
+                EventLog.writeString(out, pizza.cheese());
+                EventLog.writeStrings(out, pizza.toppings());
+                out.writeDouble(pizza.basePrice);
+                // Most custom pizzas are never rated; writing a snapshot must not give them an aggregator
+                RatingAggregator ratings = pizza.ratingsIfPresent();
+                out.writeBoolean(ratings != null);
+                if (ratings != null) {
+                    for (long votes : ratings.histogram()) {
+                        out.writeLong(votes);
+                    }
+                    out.writeLong(ratings.landmarkMillis());
+                    out.writeDouble(ratings.decayedWeightedStars());
+                    out.writeDouble(ratings.decayedWeights());
+                }
+            }
+
+            out.writeInt(users.size());
+            for (User user : users.values()) {
+                out.writeLong(user.id);
+                EventLog.writeString(out, user.name);
+                EventLog.writeString(out, user.contactNumber);
+                EventLog.writeString(out, user.address);
+                List<LoyaltyLedger.Transaction> history = user.loyalty.history();
+                out.writeInt(history.size());
+                for (LoyaltyLedger.Transaction t : history) {
+                    out.writeLong(t.sequence);
+                    out.writeByte(t.kind.ordinal());
+                    out.writeInt(t.points);
+                    out.writeInt(t.balance);
+                    out.writeLong(t.orderId);
+                    out.writeLong(t.atMillis);
+                }
+                List<Pizza> custom = new ArrayList<>(user.customPizzas.size());
+                for (Pizza pizza : user.customPizzas) {
+                    if (pizzas.get(pizza.id) == pizza) {
+                        custom.add(pizza);
+                    }
+                }
+                out.writeInt(custom.size());
+                for (Pizza pizza : custom) {
+                    out.writeLong(pizza.id);
+                }
+            }
+
+            out.writeInt(orders.size());
+            for (Order order : orders.values()) {
+                out.writeLong(order.id);
+                out.writeLong(order.user.id);
+                out.writeByte(order.type.ordinal());
+                EventLog.writeString(out, order.deliveryAddress);
+                out.writeByte(order.status.ordinal());
+                out.writeLong(order.createdAt.getTime());
+                EventLog.writeString(out, order.feedback);
+                out.writeDouble(order.pizzaRating);
+                out.writeLong(order.totalCents);
+                out.writeInt(order.items.size());
+                for (Order.Item item : order.items) {
+                    out.writeLong(item.pizza().id);
+                    out.writeInt(item.quantity());
+                }
+                out.writeByte(order.paymentStatus.ordinal());
+                EventLog.writeString(out, order.paymentReference);
+                out.writeByte(order.statusMillis.length);
+                for (long at : order.statusMillis) {
+                    out.writeLong(at);
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,160 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Pizza Options
+// Every choice a customer can make when building a pizza, with the label shown on menus
+interface PizzaOption {
+    String label();
+}
+
+enum Crust implements PizzaOption {
+    THIN("Thin"), THICK("Thick"), STUFFED("Stuffed");
+
+    private final String label;
+
+    Crust(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
+
+enum Sauce implements PizzaOption {
+    TOMATO("Tomato"), BARBECUE("Barbecue"), PESTO("Pesto");
+
+    private final String label;
+
+    Sauce(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
+
+enum Cheese implements PizzaOption {
+    MOZZARELLA("Mozzarella"), CHEDDAR("Cheddar"), VEGAN("Vegan Cheese");
+
+    private final String label;
+
+    Cheese(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
+
+enum Topping implements PizzaOption {
+    PEPPERONI("Pepperoni"), MUSHROOMS("Mushrooms"), OLIVES("Olives"), BASIL("Basil");
+
+    private final String label;
+
+    Topping(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
+
+// Pizza Configuration
+// A pizza's crust, sauce, cheese and toppings packed into one canonical long, so two pizzas are
+// built the same way exactly when their keys are equal. Toppings are a set (order and repeats do
+// not matter), stored as a bit mask in enum order.
+//
+// Key layout: bits 60-63 crust ordinal, 56-59 sauce, 52-55 cheese, 0-51 topping mask.
+final class PizzaConfig {
+    private static final int CRUST_SHIFT = 60;
+    private static final int SAUCE_SHIFT = 56;
+    private static final int CHEESE_SHIFT = 52;
+    private static final long TOPPING_MASK = (1L << CHEESE_SHIFT) - 1;
+    private static final Crust[] CRUSTS = Crust.values();
+    private static final Sauce[] SAUCES = Sauce.values();
+    private static final Cheese[] CHEESES = Cheese.values();
+    private static final Topping[] TOPPINGS = Topping.values();
+
+    private PizzaConfig() {
+    }
+
+    static long key(Crust crust, Sauce sauce, Cheese cheese, long toppingMask) {
+        return (long) crust.ordinal() << CRUST_SHIFT | (long) sauce.ordinal() << SAUCE_SHIFT
+                | (long) cheese.ordinal() << CHEESE_SHIFT | toppingMask & TOPPING_MASK;
+    }
+
+    // Parse menu labels, e.g. "Thin", "Tomato", "Mozzarella", ["Basil"]
+    static long key(String crust, String sauce, String cheese, List<String> toppings) {
+        Crust parsedCrust = parse(CRUSTS, crust, "crust");
+        Sauce parsedSauce = parse(SAUCES, sauce, "sauce");
+        Cheese parsedCheese = parse(CHEESES, cheese, "cheese");
+        long toppingMask = 0;
+        for (String topping : toppings) {
+            toppingMask |= 1L << parse(TOPPINGS, topping, "topping").ordinal();
+        }
+        return key(parsedCrust, parsedSauce, parsedCheese, toppingMask);
+    }
+
+    static Crust crust(long key) {
+        return CRUSTS[(int) (key >>> CRUST_SHIFT & 0xF)];
+    }
+
+    static Sauce sauce(long key) {
+        return SAUCES[(int) (key >>> SAUCE_SHIFT & 0xF)];
+    }
+
+    static Cheese cheese(long key) {
+        return CHEESES[(int) (key >>> CHEESE_SHIFT & 0xF)];
+    }
+
+    static long toppingMask(long key) {
+        return key & TOPPING_MASK;
+    }
+
+    static List<String> toppingLabels(long key) {
+        long mask = toppingMask(key);
+        List<String> labels = new ArrayList<>(Long.bitCount(mask));
+        for (Topping topping : TOPPINGS) {
+            if ((mask & 1L << topping.ordinal()) != 0) {
+                labels.add(topping.label());
+            }
+        }
+        return labels;
+    }
+
+    // Comma-separated topping labels, as shown on menus
+    static StringBuilder appendToppings(StringBuilder out, long key) {
+        long mask = toppingMask(key);
+        boolean first = true;
+        for (Topping topping : TOPPINGS) {
+            if ((mask & 1L << topping.ordinal()) != 0) {
+                out.append(first ? "" : ", ").append(topping.label());
+                first = false;
+            }
+        }
+        return out;
+    }
+
+    static List<String> labels(PizzaOption[] options) {
+        List<String> labels = new ArrayList<>(options.length);
+        for (PizzaOption option : options) {
+            labels.add(option.label());
+        }
+        return List.copyOf(labels);
+    }
+
+    private static <T extends PizzaOption> T parse(T[] options, String label, String what) {
+        for (T option : options) {
+            if (option.label().equals(label)) {
+                return option;
+            }
+        }
+        throw new IllegalArgumentException("Invalid " + what + ": " + label + ". Choose one of " + labels(options) + ".");
+    }
+}
@@ -0,0 +1,43 @@
+package lk.pizza;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+// Pizza Intern Table
+// Keeps one canonical Pizza per custom configuration key, so customers who build the same pizza
+// share a single menu entry instead of each adding a copy. Entries that were never ordered and have
+// not been chosen for a while are evicted; ordered pizzas are pinned and stay for good, because
+// orders refer to them.
+class PizzaInternTable {
+    private final ConcurrentHashMap<Long, Pizza> byConfig = new ConcurrentHashMap<>();
+
+    // The canonical pizza for the configuration, built with the factory if there is none yet (or the
+    // previous one was just retired). The factory runs at most once per call, under the entry's lock.
+    Pizza intern(long configKey, LongFunction<Pizza> factory, long nowMillis) {
+        return byConfig.compute(configKey, (key, existing) ->
+                existing != null && existing.touch(nowMillis) ? existing : factory.apply(key));
+    }
+
+    // Add a pizza restored from disk; returns false if its configuration already has a canonical pizza
+    boolean register(Pizza pizza) {
+        return byConfig.putIfAbsent(pizza.configKey, pizza) == null;
+    }
+
+    // Retires pizzas not chosen since the cutoff and never ordered; returns how many were evicted
+    int evictUnusedSince(long cutoffMillis, Consumer<Pizza> onRetired) {
+        int evicted = 0;
+        for (Pizza pizza : byConfig.values()) {
+            if (pizza.retireIfUnusedSince(cutoffMillis)) {
+                byConfig.remove(pizza.configKey, pizza);
+                onRetired.accept(pizza);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    int size() {
+        return byConfig.size();
+    }
+}
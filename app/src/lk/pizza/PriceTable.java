@@ -0,0 +1,123 @@
+package lk.pizza;
+
+import java.util.Arrays;
+
+// Price Table
+// Every price the order path needs, in whole cents, in one immutable object: the unit price of each
+// pizza on the menu, the component prices custom pizzas are built from (with every crust, sauce,
+// cheese and topping-set combination precomputed), and the promotion rules in force. Changes make a
+// new table, so a quote always sees one consistent set of prices and promotions.
+final class PriceTable {
+    // Component prices for custom pizzas; a thin tomato mozzarella pizza with one topping is $16.50-$17.50
+    static final long DEFAULT_CUSTOM_BASE_CENTS = 1600;
+    static final long[] DEFAULT_CRUST_CENTS = {0, 100, 250};        // Thin, Thick, Stuffed
+    static final long[] DEFAULT_SAUCE_CENTS = {0, 50, 100};         // Tomato, Barbecue, Pesto
+    static final long[] DEFAULT_CHEESE_CENTS = {0, 50, 150};        // Mozzarella, Cheddar, Vegan Cheese
+    static final long[] DEFAULT_TOPPING_CENTS = {150, 100, 100, 50}; // Pepperoni, Mushrooms, Olives, Basil
+
+    private static final int SAUCES = Sauce.values().length;
+    private static final int CHEESES = Cheese.values().length;
+    private static final int TOPPING_BITS = Topping.values().length;
+
+    private final long[] configCents;
+    private final long[] pizzaIds;   // Sorted
+    private final long[] pizzaCents; // Unit price of pizzaIds[i]
+    final PromotionEngine.Rules promotions;
+
+    private PriceTable(long[] configCents, long[] pizzaIds, long[] pizzaCents, PromotionEngine.Rules promotions) {
+        this.configCents = configCents;
+        this.pizzaIds = pizzaIds;
+        this.pizzaCents = pizzaCents;
+        this.promotions = promotions;
+    }
+
+    static PriceTable defaults() {
+        return of(DEFAULT_CUSTOM_BASE_CENTS, DEFAULT_CRUST_CENTS, DEFAULT_SAUCE_CENTS, DEFAULT_CHEESE_CENTS,
+                DEFAULT_TOPPING_CENTS);
+    }
+
+    // An empty menu with the given component prices, indexed by enum ordinal
+    static PriceTable of(long baseCents, long[] crustCents, long[] sauceCents, long[] cheeseCents, long[] toppingCents) {
+        long[] toppingSetCents = new long[1 << TOPPING_BITS];
+        for (int mask = 1; mask < toppingSetCents.length; mask++) {
+            int lowest = Integer.numberOfTrailingZeros(mask);
+            toppingSetCents[mask] = toppingSetCents[mask & (mask - 1)] + toppingCents[lowest];
+        }
+        long[] configCents = new long[crustCents.length * SAUCES * CHEESES << TOPPING_BITS];
+        for (Crust crust : Crust.values()) {
+            for (Sauce sauce : Sauce.values()) {
+                for (Cheese cheese : Cheese.values()) {
+                    for (int mask = 0; mask < toppingSetCents.length; mask++) {
+                        configCents[slot(crust.ordinal(), sauce.ordinal(), cheese.ordinal(), mask)] = baseCents
+                                + crustCents[crust.ordinal()] + sauceCents[sauce.ordinal()]
+                                + cheeseCents[cheese.ordinal()] + toppingSetCents[mask];
+                    }
+                }
+            }
+        }
+        return new PriceTable(configCents, new long[0], new long[0], PromotionEngine.Rules.EMPTY);
+    }
+
+    // Price of a custom pizza built to this configuration
+    long configCents(long configKey) {
+        return configCents[slot(PizzaConfig.crust(configKey).ordinal(), PizzaConfig.sauce(configKey).ordinal(),
+                PizzaConfig.cheese(configKey).ordinal(), (int) PizzaConfig.toppingMask(configKey))];
+    }
+
+    // Unit price of a pizza on the menu, or -1 if it is not on the menu
+    long unitCents(long pizzaId) {
+        int slot = Arrays.binarySearch(pizzaIds, pizzaId);
+        return slot < 0 ? -1 : pizzaCents[slot];
+    }
+
+    int pizzaCount() {
+        return pizzaIds.length;
+    }
+
+    // ---- Copies with one change ----
+
+    PriceTable withPizza(long pizzaId, long unitCents) {
+        int slot = Arrays.binarySearch(pizzaIds, pizzaId);
+        if (slot >= 0) {
+            long[] cents = pizzaCents.clone();
+            cents[slot] = unitCents;
+            return new PriceTable(configCents, pizzaIds, cents, promotions);
+        }
+        int insertAt = -slot - 1;
+        long[] ids = new long[pizzaIds.length + 1];
+        long[] cents = new long[pizzaIds.length + 1];
+        System.arraycopy(pizzaIds, 0, ids, 0, insertAt);
+        System.arraycopy(pizzaCents, 0, cents, 0, insertAt);
+        ids[insertAt] = pizzaId;
+        cents[insertAt] = unitCents;
+        System.arraycopy(pizzaIds, insertAt, ids, insertAt + 1, pizzaIds.length - insertAt);
+        System.arraycopy(pizzaCents, insertAt, cents, insertAt + 1, pizzaIds.length - insertAt);
+        return new PriceTable(configCents, ids, cents, promotions);
+    }
+
+    PriceTable withoutPizza(long pizzaId) {
+        int slot = Arrays.binarySearch(pizzaIds, pizzaId);
+        if (slot < 0) {
+            return this;
+        }
+        long[] ids = new long[pizzaIds.length - 1];
+        long[] cents = new long[pizzaIds.length - 1];
+        System.arraycopy(pizzaIds, 0, ids, 0, slot);
+        System.arraycopy(pizzaCents, 0, cents, 0, slot);
+        System.arraycopy(pizzaIds, slot + 1, ids, slot, ids.length - slot);
+        System.arraycopy(pizzaCents, slot + 1, cents, slot, ids.length - slot);
+        return new PriceTable(configCents, ids, cents, promotions);
+    }
+
+    PriceTable withPromotions(PromotionEngine.Rules rules) {
+        return new PriceTable(configCents, pizzaIds, pizzaCents, rules);
+    }
+
+    static long cents(double dollars) {
+        return Math.round(dollars * 100);
+    }
+
+    private static int slot(int crust, int sauce, int cheese, int toppingMask) {
+        return ((crust * SAUCES + sauce) * CHEESES + cheese) << TOPPING_BITS | toppingMask;
+    }
+}
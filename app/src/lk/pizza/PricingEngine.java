@@ -0,0 +1,119 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// Pricing Engine
+// Prices carts in whole cents from the current PriceTable: unit prices times quantities, then the
+// promotions, then the loyalty discount. Quoting is pure (no locks, no I/O, no printing) and reads
+// the table once, so a quote never mixes old and new prices. Menu and promotion changes swap in a
+// new table atomically.
+//
+// quoteTotals prices a whole batch of carts against one table, reusing its scratch arrays across
+// carts, so a batch allocates a fixed handful of arrays however many lines it holds.
+class PricingEngine {
+    // Breakdown of one cart's price, all in cents
+    record PriceQuote(long subtotalCents, long promotionCents, long loyaltyCents, long totalCents, int pointsEarned) {
+    }
+
+    private static final int SUBTOTAL = 0;
+    private static final int PROMOTION = 1;
+    private static final int LOYALTY = 2;
+    private static final int TOTAL = 3;
+    private static final int POINTS = 4;
+
+    private final AtomicReference<PriceTable> table;
+
+    PricingEngine() {
+        this(PriceTable.defaults());
+    }
+
+    PricingEngine(PriceTable initial) {
+        this.table = new AtomicReference<>(initial);
+    }
+
+    PriceTable table() {
+        return table.get();
+    }
+
+    // ---- Changes ----
+
+    void update(UnaryOperator<PriceTable> change) {
+        table.updateAndGet(change);
+    }
+
+    void putPizza(Pizza pizza) {
+        long unitCents = PriceTable.cents(pizza.basePrice);
+        update(current -> current.withPizza(pizza.id, unitCents));
+    }
+
+    void removePizza(long pizzaId) {
+        update(current -> current.withoutPizza(pizzaId));
+    }
+
+    void usePromotions(PromotionEngine.Rules rules) {
+        update(current -> current.withPromotions(rules));
+    }
+
+    // ---- Quotes ----
+
+    // What a custom pizza of this configuration costs today
+    long customPriceCents(long configKey) {
+        return table.get().configCents(configKey);
+    }
+
+    PriceQuote quote(List<OrderLine> lines, int loyaltyPoints, long nowMillis) {
+        long[] result = new long[5];
+        price(table.get(), lines, loyaltyPoints, nowMillis, new long[lines.size()], new long[2], result);
+        return new PriceQuote(result[SUBTOTAL], result[PROMOTION], result[LOYALTY], result[TOTAL], (int) result[POINTS]);
+    }
+
+    // Totals in cents for many carts at once; loyaltyPoints[i] belongs to the owner of carts.get(i)
+    long[] quoteTotals(List<List<OrderLine>> carts, int[] loyaltyPoints, long nowMillis) {
+        PriceTable current = table.get();
+        int longest = 0;
+        for (List<OrderLine> cart : carts) {
+            longest = Math.max(longest, cart.size());
+        }
+        long[] lineCents = new long[longest];
+        long[] scratch = new long[2];
+        long[] result = new long[5];
+        long[] totals = new long[carts.size()];
+        for (int i = 0; i < totals.length; i++) {
+            price(current, carts.get(i), loyaltyPoints[i], nowMillis, lineCents, scratch, result);
+            totals[i] = result[TOTAL];
+        }
+        return totals;
+    }
+
+    private static void price(PriceTable table, List<OrderLine> lines, int loyaltyPoints, long nowMillis,
+                              long[] lineCents, long[] scratch, long[] result) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("An order needs at least one pizza.");
+        }
+        long subtotal = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            OrderLine line = lines.get(i);
+            long unitCents = table.unitCents(line.pizzaId());
+            if (unitCents < 0) {
+                throw new NoSuchElementException("Pizza " + line.pizzaId() + " not found.");
+            }
+            lineCents[i] = unitCents * line.quantity();
+            subtotal += lineCents[i];
+        }
+
+        // Points are earned per whole dollar of the list price and count towards this order's discount
+        int pointsEarned = (int) (subtotal / 100);
+        LoyaltyTier tier = LoyaltyTier.forPoints(loyaltyPoints);
+        long promotion = table.promotions.discountCents(subtotal, lines, lineCents, tier, nowMillis, scratch);
+        long loyalty = Payment.loyaltyDiscountCents(loyaltyPoints + pointsEarned, subtotal - promotion);
+
+        result[SUBTOTAL] = subtotal;
+        result[PROMOTION] = promotion;
+        result[LOYALTY] = loyalty;
+        result[TOTAL] = subtotal - promotion - loyalty;
+        result[POINTS] = pointsEarned;
+    }
+}
@@ -0,0 +1,182 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Promotion Engine
+// Finds every promotion that applies to an order and combines them. Promotions are indexed by
+// minimum order amount (sorted arrays, one for menu-wide promotions and one per pizza), so a binary
+// search bounds the candidates to those whose threshold the order meets; only their window and tier
+// conditions are checked one by one. Amounts are compared in whole cents.
+//
+// Combining rule: all applicable stackable promotions add up, and the best single exclusive
+// promotion competes against that stack; the customer gets whichever discount is larger, never more
+// than the order amount. For a cart, menu-wide promotions are checked against the cart subtotal and
+// per-pizza promotions against what the cart spends on that pizza.
+//
+// Readers work from an immutable rule set behind a volatile reference, so pricing never locks and
+// never performs I/O. Changes (add, reload) build a new rule set, swap it in, and hand it to
+// the listener (the pricing engine folds it into its own price table).
+class PromotionEngine {
+    // Promotions sorted by threshold, with thresholds and discounts unboxed in cents for the search
+    private static final class Index {
+        final Promotion[] promotions;
+        final long[] thresholdCents;
+        final long[] discountCents;
+
+        Index(List<Promotion> promotions) {
+            this.promotions = promotions.toArray(new Promotion[0]);
+            Arrays.sort(this.promotions, Comparator.comparingDouble(p -> p.minOrderAmount));
+            this.thresholdCents = new long[this.promotions.length];
+            this.discountCents = new long[this.promotions.length];
+            for (int i = 0; i < this.promotions.length; i++) {
+                thresholdCents[i] = PriceTable.cents(this.promotions[i].minOrderAmount);
+                discountCents[i] = PriceTable.cents(this.promotions[i].discountAmount);
+            }
+        }
+
+        // Number of leading promotions whose threshold is at most the amount
+        int eligibleCount(long amountCents) {
+            int low = 0;
+            int high = thresholdCents.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholdCents[mid] <= amountCents) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Adds applicable stackable discounts to totals[0] and keeps the best exclusive one in totals[1]
+        void scan(long amountCents, long pizzaId, LoyaltyTier tier, long nowMillis, long[] totals) {
+            int count = eligibleCount(amountCents);
+            for (int i = 0; i < count; i++) {
+                Promotion promotion = promotions[i];
+                if (!promotion.appliesTo(pizzaId, tier, nowMillis)) {
+                    continue;
+                }
+                if (promotion.stackable) {
+                    totals[0] += discountCents[i];
+                } else if (discountCents[i] > totals[1]) {
+                    totals[1] = discountCents[i];
+                }
+            }
+        }
+    }
+
+    // An immutable set of promotions and its indexes
+    static final class Rules {
+        static final Rules EMPTY = new Rules(List.of());
+
+        final List<Promotion> all;
+        private final Index general;
+        private final long[] pizzaIds; // Sorted; pizzaIndexes[i] belongs to pizzaIds[i]
+        private final Index[] pizzaIndexes;
+
+        private Rules(List<Promotion> promotions) {
+            List<Promotion> general = new ArrayList<>();
+            Map<Long, List<Promotion>> byPizza = new HashMap<>();
+            for (Promotion promotion : promotions) {
+                if (promotion.pizzaId == null) {
+                    general.add(promotion);
+                } else {
+                    byPizza.computeIfAbsent(promotion.pizzaId, id -> new ArrayList<>()).add(promotion);
+                }
+            }
+            this.all = List.copyOf(promotions);
+            this.general = new Index(general);
+            this.pizzaIds = byPizza.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            this.pizzaIndexes = new Index[pizzaIds.length];
+            for (int i = 0; i < pizzaIds.length; i++) {
+                pizzaIndexes[i] = new Index(byPizza.get(pizzaIds[i]));
+            }
+        }
+
+        private Index pizzaIndex(long pizzaId) {
+            int slot = Arrays.binarySearch(pizzaIds, pizzaId);
+            return slot < 0 ? null : pizzaIndexes[slot];
+        }
+
+        // Discount for a whole cart; lineCents[i] is what the cart spends on lines.get(i)
+        long discountCents(long subtotalCents, List<OrderLine> lines, long[] lineCents, LoyaltyTier tier,
+                           long nowMillis, long[] scratch) {
+            scratch[0] = 0;
+            scratch[1] = 0;
+            general.scan(subtotalCents, 0, tier, nowMillis, scratch);
+            if (pizzaIds.length > 0) {
+                for (int i = 0; i < lines.size(); i++) {
+                    long pizzaId = lines.get(i).pizzaId();
+                    Index index = pizzaIndex(pizzaId);
+                    if (index != null) {
+                        index.scan(lineCents[i], pizzaId, tier, nowMillis, scratch);
+                    }
+                }
+            }
+            return Math.min(subtotalCents, Math.max(scratch[0], scratch[1]));
+        }
+    }
+
+    private final Consumer<Rules> listener;
+    private volatile Rules rules = Rules.EMPTY;
+
+    PromotionEngine() {
+        this(rules -> { });
+    }
+
+    PromotionEngine(Consumer<Rules> listener) {
+        this.listener = listener;
+    }
+
+    // The current rule set; pricing reads it once per quote and never locks
+    Rules rules() {
+        return rules;
+    }
+
+    List<Promotion> all() {
+        return rules.all;
+    }
+
+    // Promotions a customer could currently get, e.g. for display
+    List<Promotion> active(long nowMillis) {
+        List<Promotion> active = new ArrayList<>();
+        for (Promotion promotion : rules.all) {
+            if (nowMillis >= promotion.startMillis && !promotion.isExpired(nowMillis)) {
+                active.add(promotion);
+            }
+        }
+        return active;
+    }
+
+    int size() {
+        return rules.all.size();
+    }
+
+    // ---- Changes (copy-on-write; writers serialize, readers never wait) ----
+
+    synchronized void add(Promotion promotion) {
+        List<Promotion> all = new ArrayList<>(rules.all);
+        all.add(promotion);
+        publish(all);
+    }
+
+    // Hot reload: atomically replace the whole promotion set
+    synchronized void replaceAll(Collection<Promotion> promotions) {
+        publish(new ArrayList<>(promotions));
+    }
+
+    // Caller holds the lock, so listeners see rule sets in the order they were made
+    private void publish(List<Promotion> promotions) {
+        Rules next = new Rules(promotions);
+        rules = next;
+        listener.accept(next);
+    }
+}
@@ -0,0 +1,139 @@
+package lk.pizza;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rating Aggregator
+// Star ratings for one pizza, safe to update from any number of threads without losing votes.
+// Each star level is a LongAdder, so concurrent raters on a popular pizza land on different cells
+// instead of fighting over one field; count and average are derived from the five counters.
+//
+// The decayed average uses forward decay: a rating made at time t is weighted by 2^((t - landmark) /
+// halfLife), and the average is sum(weight * stars) / sum(weight). Newer ratings therefore count
+// more, older ones fade, and neither writers nor readers ever rescale existing state. When the
+// weights grow large the landmark moves forward; a rating racing with that move may be dropped
+// from the decayed average (never from the histogram), which happens at most every few months.
+class RatingAggregator {
+    static final int MAX_STARS = 5;
+    static final long DEFAULT_HALF_LIFE_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    private static final double REBASE_HALF_LIVES = 32;
+
+    // Decay sums relative to one landmark; replaced as a whole when the landmark moves
+    private static final class Decay {
+        final long landmarkMillis;
+        final DoubleAdder weightedStars = new DoubleAdder();
+        final DoubleAdder weights = new DoubleAdder();
+
+        Decay(long landmarkMillis) {
+            this.landmarkMillis = landmarkMillis;
+        }
+    }
+
+    private final LongAdder[] histogram = new LongAdder[MAX_STARS];
+    private final long halfLifeMillis;
+    private volatile Decay decay;
+
+    RatingAggregator() {
+        this(DEFAULT_HALF_LIFE_MILLIS, System.currentTimeMillis());
+    }
+
+    RatingAggregator(long halfLifeMillis, long landmarkMillis) {
+        for (int i = 0; i < MAX_STARS; i++) {
+            histogram[i] = new LongAdder();
+        }
+        this.halfLifeMillis = halfLifeMillis;
+        this.decay = new Decay(landmarkMillis);
+    }
+
+    // Record a 1-5 star rating
+    void record(int stars, long nowMillis) {
+        if (stars < 1 || stars > MAX_STARS) {
+            throw new IllegalArgumentException("Rating must be between 1 and " + MAX_STARS + ".");
+        }
+        histogram[stars - 1].increment();
+
+        Decay current = decay;
+        double halfLives = (nowMillis - current.landmarkMillis) / (double) halfLifeMillis;
+        if (halfLives > REBASE_HALF_LIVES) {
+            current = rebase(current, nowMillis);
+            halfLives = (nowMillis - current.landmarkMillis) / (double) halfLifeMillis;
+        }
+        double weight = Math.pow(2, halfLives);
+        current.weightedStars.add(weight * stars);
+        current.weights.add(weight);
+    }
+
+    long count() {
+        long count = 0;
+        for (LongAdder stars : histogram) {
+            count += stars.sum();
+        }
+        return count;
+    }
+
+    // Mean of all ratings ever given, or 0 if there are none
+    double average() {
+        long count = 0;
+        long total = 0;
+        for (int i = 0; i < MAX_STARS; i++) {
+            long votes = histogram[i].sum();
+            count += votes;
+            total += votes * (i + 1);
+        }
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    // Mean with recent ratings weighted more heavily, or 0 if there are none
+    double decayedAverage() {
+        Decay current = decay;
+        double weights = current.weights.sum();
+        return weights == 0 ? 0.0 : current.weightedStars.sum() / weights;
+    }
+
+    // Votes per star level; index 0 holds one-star votes
+    long[] histogram() {
+        long[] counts = new long[MAX_STARS];
+        for (int i = 0; i < MAX_STARS; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    long landmarkMillis() {
+        return decay.landmarkMillis;
+    }
+
+    double decayedWeightedStars() {
+        return decay.weightedStars.sum();
+    }
+
+    double decayedWeights() {
+        return decay.weights.sum();
+    }
+
+    // ---- Restore from a snapshot (before the pizza is shared) ----
+
+    void restore(long[] counts, long landmarkMillis, double weightedStars, double weights) {
+        for (int i = 0; i < MAX_STARS; i++) {
+            histogram[i].reset();
+            histogram[i].add(counts[i]);
+        }
+        Decay restored = new Decay(landmarkMillis);
+        restored.weightedStars.add(weightedStars);
+        restored.weights.add(weights);
+        decay = restored;
+    }
+
+    private synchronized Decay rebase(Decay old, long nowMillis) {
+        if (decay != old) {
+            return decay;
+        }
+        // Re-express the sums against the new landmark; the ratio (the average) is unchanged
+        Decay moved = new Decay(nowMillis);
+        double scale = Math.pow(2, (old.landmarkMillis - nowMillis) / (double) halfLifeMillis);
+        moved.weightedStars.add(old.weightedStars.sum() * scale);
+        moved.weights.add(old.weights.sum() * scale);
+        decay = moved;
+        return moved;
+    }
+}
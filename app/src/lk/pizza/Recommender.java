@@ -0,0 +1,301 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Recommender
+// Suggestions for one user, from what they have ordered, what they have marked as favorite, and what
+// other customers order together:
+//   - "reorder your usual": the pizzas this user orders most
+//   - "you may also like": pizzas often ordered alongside their favorites and usuals that they have
+//     not had yet, scored by cosine similarity so the most popular pizza does not win every list
+// Every counter is updated incrementally as orders are placed: per user, a Space-Saving summary of
+// the pizzas they ordered; per pizza, how many orders held it and a Space-Saving summary of the
+// pizzas ordered with it. Summaries are capped, so memory follows users and pizzas, not order volume.
+//
+// Lists are computed on first request and cached in a bounded LRU, split into stripes so readers
+// rarely meet. An entry is dropped when the user orders or changes favorites, and otherwise lives for
+// CACHE_TTL_MILLIS, which bounds how stale the co-occurrence it reflects can get. A cached lookup is a
+// hash probe; a miss reads a few small summaries, in microseconds, whatever the number of users.
+class Recommender {
+    static final int LIST_SIZE = 5;
+    static final int USUALS_PER_USER = 16;      // Space-Saving counters per user
+    static final int NEIGHBORS_PER_PIZZA = 64;  // Space-Saving counters per pizza
+    static final int POPULAR_PIZZAS = 64;
+    static final int CACHE_CAPACITY = 100_000;
+    static final long CACHE_TTL_MILLIS = 10 * 60_000;
+    private static final int CACHE_STRIPES = 16;
+
+    // Which pizzas a user may be offered: the live pizza with this id if it is on their menu, else null
+    interface Menu {
+        Pizza visible(User user, long pizzaId);
+    }
+
+    record Recommendations(List<Pizza> usual, List<Pizza> alsoLike) {
+    }
+
+    private final Menu menu;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Long, PizzaStats> pizzas = new ConcurrentHashMap<>();
+    private final ReentrantLock popularLock = new ReentrantLock();
+    private final SpaceSaving popular = new SpaceSaving(POPULAR_PIZZAS); // Guarded by popularLock
+    private final CacheStripe[] cache = new CacheStripe[CACHE_STRIPES];
+
+    Recommender(Menu menu, LongSupplier clock) {
+        this.menu = menu;
+        this.clock = clock;
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new CacheStripe(CACHE_CAPACITY / CACHE_STRIPES);
+        }
+    }
+
+    // ---- Updates ----
+
+    // Count a placed (or recovered) order into the user's usuals and the pizza pairs it holds
+    void placed(Order order) {
+        List<Order.Item> items = order.items; // Never two items for the same pizza
+        synchronized (order.user) {
+            if (order.user.orderedPizzas == null) {
+                order.user.orderedPizzas = new SpaceSaving(USUALS_PER_USER);
+            }
+            for (Order.Item item : items) {
+                order.user.orderedPizzas.add(item.pizza().id, 1);
+            }
+        }
+        popularLock.lock();
+        try {
+            for (Order.Item item : items) {
+                popular.add(item.pizza().id, 1);
+            }
+        } finally {
+            popularLock.unlock();
+        }
+        for (Order.Item item : items) {
+            PizzaStats stats = stats(item.pizza().id);
+            stats.lock.lock();
+            try {
+                stats.orders++;
+                for (Order.Item other : items) {
+                    if (other != item) {
+                        stats.neighbors.add(other.pizza().id, 1);
+                    }
+                }
+            } finally {
+                stats.lock.unlock();
+            }
+        }
+        invalidate(order.user);
+    }
+
+    // The user's favorites or orders changed; their next lookup is computed afresh
+    void invalidate(User user) {
+        CacheStripe stripe = stripe(user.id);
+        stripe.lock.lock();
+        try {
+            stripe.entries.remove(user.id);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private PizzaStats stats(long pizzaId) {
+        PizzaStats stats = pizzas.get(pizzaId);
+        return stats != null ? stats : pizzas.computeIfAbsent(pizzaId, id -> new PizzaStats());
+    }
+
+    // ---- Lookups ----
+
+    Recommendations recommend(User user) {
+        long now = clock.getAsLong();
+        CacheStripe stripe = stripe(user.id);
+        stripe.lock.lock();
+        try {
+            Cached cached = stripe.entries.get(user.id);
+            if (cached != null && now - cached.computedAtMillis < CACHE_TTL_MILLIS) {
+                return cached.recommendations;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        Recommendations computed = compute(user);
+        stripe.lock.lock();
+        try {
+            stripe.entries.put(user.id, new Cached(computed, now));
+        } finally {
+            stripe.lock.unlock();
+        }
+        return computed;
+    }
+
+    private Recommendations compute(User user) {
+        long[] usualIds;
+        long[] usualCounts;
+        long[] favoriteIds;
+        synchronized (user) {
+            SpaceSaving ordered = user.orderedPizzas;
+            int size = ordered == null ? 0 : ordered.size();
+            usualIds = new long[size];
+            usualCounts = new long[size];
+            for (int i = 0; i < size; i++) {
+                usualIds[i] = ordered.id(i);
+                usualCounts[i] = ordered.count(i);
+            }
+            favoriteIds = new long[user.favoritePizzas.size()];
+            int i = 0;
+            for (long id : user.favoritePizzas.keySet()) {
+                favoriteIds[i++] = id;
+            }
+        }
+
+        // Usuals: most ordered first
+        List<Pizza> usual = new ArrayList<>(LIST_SIZE);
+        for (int index : byCountDescending(usualCounts)) {
+            Pizza pizza = menu.visible(user, usualIds[index]);
+            if (pizza != null) {
+                usual.add(pizza);
+                if (usual.size() == LIST_SIZE) {
+                    break;
+                }
+            }
+        }
+
+        // Candidates scored against every favorite and usual the user can still order
+        Map<Long, Double> scores = new HashMap<>();
+        for (long seed : favoriteIds) {
+            score(seed, scores);
+        }
+        for (Pizza seed : usual) {
+            if (!contains(favoriteIds, seed.id)) {
+                score(seed.id, scores);
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        List<Pizza> alsoLike = new ArrayList<>(LIST_SIZE);
+        for (Map.Entry<Long, Double> candidate : ranked) {
+            offer(user, candidate.getKey(), usualIds, favoriteIds, alsoLike);
+        }
+        // Too little history yet: fill up with what everyone orders most
+        if (alsoLike.size() < LIST_SIZE) {
+            long[] popularIds;
+            long[] popularCounts;
+            popularLock.lock();
+            try {
+                popularIds = new long[popular.size()];
+                popularCounts = new long[popular.size()];
+                for (int i = 0; i < popularIds.length; i++) {
+                    popularIds[i] = popular.id(i);
+                    popularCounts[i] = popular.count(i);
+                }
+            } finally {
+                popularLock.unlock();
+            }
+            for (int index : byCountDescending(popularCounts)) {
+                offer(user, popularIds[index], usualIds, favoriteIds, alsoLike);
+            }
+        }
+        return new Recommendations(List.copyOf(usual), List.copyOf(alsoLike));
+    }
+
+    // Add every pizza ordered with seed to scores, weighted by co-occurrences / sqrt(orders of each)
+    private void score(long seed, Map<Long, Double> scores) {
+        PizzaStats seedStats = pizzas.get(seed);
+        if (seedStats == null) {
+            return;
+        }
+        long[] ids;
+        long[] counts;
+        long seedOrders;
+        seedStats.lock.lock();
+        try {
+            SpaceSaving neighbors = seedStats.neighbors;
+            seedOrders = seedStats.orders;
+            ids = new long[neighbors.size()];
+            counts = new long[neighbors.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = neighbors.id(i);
+                counts[i] = neighbors.count(i);
+            }
+        } finally {
+            seedStats.lock.unlock();
+        }
+        for (int i = 0; i < ids.length; i++) {
+            PizzaStats candidate = pizzas.get(ids[i]);
+            long candidateOrders = candidate == null ? 0 : candidate.orders; // A racy read is fine for a score
+            if (candidateOrders > 0 && seedOrders > 0) {
+                scores.merge(ids[i], counts[i] / Math.sqrt((double) seedOrders * candidateOrders), Double::sum);
+            }
+        }
+    }
+
+    // Add a pizza to "you may also like" unless the list is full, the user already has it, or it is
+    // not on their menu
+    private void offer(User user, long pizzaId, long[] usualIds, long[] favoriteIds, List<Pizza> alsoLike) {
+        if (alsoLike.size() == LIST_SIZE || contains(usualIds, pizzaId) || contains(favoriteIds, pizzaId)) {
+            return;
+        }
+        Pizza pizza = menu.visible(user, pizzaId);
+        if (pizza != null && !alsoLike.contains(pizza)) {
+            alsoLike.add(pizza);
+        }
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long candidate : ids) {
+            if (candidate == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Indices of counts, largest count first
+    private static int[] byCountDescending(long[] counts) {
+        Integer[] order = new Integer[counts.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        int[] indices = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            indices[i] = order[i];
+        }
+        return indices;
+    }
+
+    private CacheStripe stripe(long userId) {
+        return cache[(Long.hashCode(userId) * 0x9E3779B9) >>> 28 & (CACHE_STRIPES - 1)];
+    }
+
+    // How many orders held a pizza, and what was ordered with it
+    private static final class PizzaStats {
+        final ReentrantLock lock = new ReentrantLock(); // Not synchronized: placeOrder runs on virtual threads
+        final SpaceSaving neighbors = new SpaceSaving(NEIGHBORS_PER_PIZZA); // Guarded by lock
+        volatile long orders; // Written under lock
+    }
+
+    private record Cached(Recommendations recommendations, long computedAtMillis) {
+    }
+
+    // One LRU share of the cache
+    private static final class CacheStripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Long, Cached> entries; // Guarded by lock
+
+        CacheStripe(int capacity) {
+            this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
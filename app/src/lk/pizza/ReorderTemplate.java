@@ -0,0 +1,117 @@
+package lk.pizza;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// Reorder Template
+// A customer's last order, kept so "order it again" is a single call: its pizzas already resolved,
+// the order type, where it went and how it was paid. Everything in it passed validation when that
+// order was placed, so a reorder only checks what can change afterwards: a pizza leaving the menu
+// and a card expiring (compared against validUntilMillis, worked out once here).
+//
+// The card number itself is never kept. A card is remembered by its last four digits (for display),
+// keyed fingerprints of its number and of the reorder key issued with it, and the token the gateway
+// issues once the first charge is authorized (which is what a reorder charges). Signing in takes
+// only a phone number, so a reorder must show that the caller is the one who paid by card: the
+// reorder key, handed back only to whoever placed the order, or else the card number typed again.
+// Like the rest of a payment in flight, this lives only in memory and is never logged or
+// snapshotted. After a restart only cash orders can be repeated until the customer orders again.
+record ReorderTemplate(long orderId, List<Order.Item> items, OrderType type, String deliveryAddress,
+                       String paymentMethod, Card card) {
+
+    // The card an order was paid with; token is null until the gateway has authorized a charge on it
+    record Card(String lastFour, String fingerprint, String reorderKeyFingerprint, String token,
+                long validUntilMillis) {
+        // Per-process key: fingerprints are only compared in memory, so they never need to outlive it.
+        // A Mac is not thread-safe and slow to look up, so each thread keeps one.
+        private static final SecretKeySpec FINGERPRINT_KEY = newKey();
+        private static final ThreadLocal<Mac> FINGERPRINTS = ThreadLocal.withInitial(Card::newMac);
+        private static final SecureRandom REORDER_KEYS = new SecureRandom();
+
+        // A fresh random key, URL-safe, to hand to the customer with an order paid by a new card
+        static String newReorderKey() {
+            byte[] key = new byte[16];
+            REORDER_KEYS.nextBytes(key);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(key);
+        }
+
+        static Card of(OrderService.PaymentDetails payment, String reorderKey) {
+            String number = payment.cardNumber();
+            // A card is good through the last day of its expiry month
+            long validUntil = YearMonth.of(payment.expiryYear(), payment.expiryMonth()).plusMonths(1).atDay(1)
+                    .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new Card(number.substring(number.length() - 4), fingerprint(number), fingerprint(reorderKey), null,
+                    validUntil);
+        }
+
+        // Whether the caller showed the reorder key issued with this card, or the card's own number
+        boolean confirmedBy(String reorderKeyOrCardNumber) {
+            if (reorderKeyOrCardNumber == null) {
+                return false;
+            }
+            byte[] given = fingerprint(reorderKeyOrCardNumber).getBytes(StandardCharsets.US_ASCII);
+            return MessageDigest.isEqual(reorderKeyFingerprint.getBytes(StandardCharsets.US_ASCII), given)
+                    | MessageDigest.isEqual(fingerprint.getBytes(StandardCharsets.US_ASCII), given);
+        }
+
+        private static String fingerprint(String cardNumber) {
+            byte[] digest = FINGERPRINTS.get().doFinal(cardNumber.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        }
+
+        private static Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(FINGERPRINT_KEY);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is unavailable", e);
+            }
+        }
+
+        private static SecretKeySpec newKey() {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            return new SecretKeySpec(key, "HmacSHA256");
+        }
+    }
+
+    // payment is what the order was placed with: new card details, or a card already on a template
+    static ReorderTemplate of(Order order, OrderService.PaymentDetails payment) {
+        Card card = null;
+        if (payment.isCard()) {
+            card = payment.storedCard() != null ? payment.storedCard() : Card.of(payment, order.reorderKey);
+        }
+        return new ReorderTemplate(order.id, order.items, order.type, order.deliveryAddress, payment.method(), card);
+    }
+
+    // The same order to the customer's new address
+    ReorderTemplate withAddress(String address) {
+        return new ReorderTemplate(orderId, items, type, type == OrderType.DELIVERY ? address : deliveryAddress,
+                paymentMethod, card);
+    }
+
+    // The same order, with the token the gateway issued for its card
+    ReorderTemplate withCardToken(String token) {
+        return new ReorderTemplate(orderId, items, type, deliveryAddress, paymentMethod,
+                new Card(card.lastFour(), card.fingerprint(), card.reorderKeyFingerprint(), token, card.validUntilMillis()));
+    }
+
+    // How to pay for a repeat: the stored card, or cash
+    OrderService.PaymentDetails payment() {
+        return card == null ? OrderService.PaymentDetails.cash() : OrderService.PaymentDetails.stored(paymentMethod, card);
+    }
+
+    // "Cash" or "Credit Card ending 4242", never the full number
+    String paymentLabel() {
+        return card == null ? paymentMethod : paymentMethod + " ending " + card.lastFour();
+    }
+}
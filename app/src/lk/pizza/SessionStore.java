@@ -0,0 +1,84 @@
+package lk.pizza;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Session Store
+// Maps opaque bearer tokens to signed-in users, replacing the console's single currentUser for
+// network clients. Sessions expire after a period of inactivity; expired ones are removed lazily
+// on lookup and by an occasional sweep, so idle clients cannot grow the map without bound.
+class SessionStore {
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final int SWEEP_EVERY_CREATES = 4096;
+
+    static final class Session {
+        final String token;
+        final long userId;
+        volatile long lastSeenMillis;
+
+        Session(String token, long userId, long now) {
+            this.token = token;
+            this.userId = userId;
+            this.lastSeenMillis = now;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long idleTimeoutMillis;
+    private final AtomicInteger createdSinceSweep = new AtomicInteger();
+
+    SessionStore() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    SessionStore(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    Session create(long userId) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        Session session = new Session(token, userId, now);
+        sessions.put(token, session);
+        if (createdSinceSweep.incrementAndGet() >= SWEEP_EVERY_CREATES) {
+            createdSinceSweep.set(0);
+            sweep(now);
+        }
+        return session;
+    }
+
+    // The live session for a token, or null if it is unknown or has expired
+    Session find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastSeenMillis > idleTimeoutMillis) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastSeenMillis = now;
+        return session;
+    }
+
+    void remove(String token) {
+        sessions.remove(token);
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    private void sweep(long now) {
+        sessions.values().removeIf(session -> now - session.lastSeenMillis > idleTimeoutMillis);
+    }
+}
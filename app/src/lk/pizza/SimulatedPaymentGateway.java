@@ -0,0 +1,129 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Simulated Payment Gateway
+// In-process stand-in for a card processor, for development, demos and load tests. Every call
+// sleeps for the configured latency (plus up to the configured jitter) and then fails with the
+// configured probability. Half of those failures happen after the charge was recorded, as when a
+// response is lost on the way back, so retries exercise the idempotency keys. Cards ending in 0002
+// are always declined. Cards are tokenized the way a processor's vault does it: one token per card
+// number, and a charge by token is declined if the token is unknown.
+class SimulatedPaymentGateway implements PaymentGateway {
+    static final long DEFAULT_LATENCY_MILLIS = 150;
+    static final long DEFAULT_JITTER_MILLIS = 100;
+    static final double DEFAULT_FAILURE_RATE = 0.05;
+    static final String DECLINED_CARD_SUFFIX = "0002";
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final ConcurrentHashMap<String, Authorization> authorizations = new ConcurrentHashMap<>();
+    private final Set<String> settled = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, String> tokensByCard = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> cardsByToken = new ConcurrentHashMap<>();
+    private final AtomicLong references = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong();
+    private final LongAdder authorizeCalls = new LongAdder();
+    private final LongAdder settlementBatches = new LongAdder();
+    private final LongAdder duplicateSettlements = new LongAdder();
+
+    SimulatedPaymentGateway() {
+        this(DEFAULT_LATENCY_MILLIS, DEFAULT_JITTER_MILLIS, DEFAULT_FAILURE_RATE);
+    }
+
+    SimulatedPaymentGateway(long latencyMillis, long jitterMillis, double failureRate) {
+        if (latencyMillis < 0 || jitterMillis < 0 || failureRate < 0 || failureRate >= 1) {
+            throw new IllegalArgumentException("Invalid simulated gateway configuration");
+        }
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public Authorization authorize(Charge charge) throws IOException {
+        authorizeCalls.increment();
+        pause();
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < failureRate / 2) {
+            throw new IOException("Gateway unavailable (simulated)");
+        }
+        String cardNumber = charge.cardToken() != null ? cardsByToken.get(charge.cardToken()) : charge.cardNumber();
+        if (cardNumber == null) {
+            throw new Declined("Unknown card.");
+        }
+        if (cardNumber.endsWith(DECLINED_CARD_SUFFIX)) {
+            throw new Declined("Card declined.");
+        }
+        Authorization authorization = authorizations.computeIfAbsent(charge.idempotencyKey(), key ->
+                new Authorization(key, charge.orderId(), charge.amountCents(), "AUTH-" + references.incrementAndGet(),
+                        tokenFor(cardNumber)));
+        if (roll < failureRate) {
+            throw new IOException("Gateway response lost (simulated)");
+        }
+        return authorization;
+    }
+
+    @Override
+    public void settle(List<Authorization> batch) throws IOException {
+        pause();
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IOException("Settlement unavailable (simulated)");
+        }
+        for (Authorization authorization : batch) {
+            if (!settled.add(authorization.reference())) {
+                duplicateSettlements.increment();
+            }
+        }
+        settlementBatches.increment();
+    }
+
+    private String tokenFor(String cardNumber) {
+        return tokensByCard.computeIfAbsent(cardNumber, number -> {
+            String token = "CARD-" + tokens.incrementAndGet();
+            cardsByToken.put(token, number);
+            return token;
+        });
+    }
+
+    // Distinct charges authorized, however many times each was retried
+    int authorizationCount() {
+        return authorizations.size();
+    }
+
+    long authorizeCalls() {
+        return authorizeCalls.sum();
+    }
+
+    int settledCount() {
+        return settled.size();
+    }
+
+    long settlementBatches() {
+        return settlementBatches.sum();
+    }
+
+    long duplicateSettlements() {
+        return duplicateSettlements.sum();
+    }
+
+    private void pause() throws IOException {
+        long millis = latencyMillis + (jitterMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+        if (millis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the gateway", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package lk.pizza;
+
+import java.util.Arrays;
+
+// Space Saving
+// Approximate counts of the most frequent ids in a stream, kept in at most a fixed number of
+// counters (the Space-Saving algorithm of Metwally, Agrawal and El Abbadi). An id that is not
+// tracked when every counter is in use takes over the smallest one and inherits its count as its
+// possible overcount, so the heavy hitters always hold a counter and no count is ever understated.
+// Counters are allocated as they are first needed, so a summary of a handful of ids stays small.
+//
+// Not thread-safe; callers lock around it.
+class SpaceSaving {
+    private final int capacity;
+    private long[] ids;
+    private long[] counts;
+    private long[] errors;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        int initial = Math.min(capacity, 4);
+        this.ids = new long[initial];
+        this.counts = new long[initial];
+        this.errors = new long[initial];
+    }
+
+    void add(long id, long count) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                counts[i] += count;
+                return;
+            }
+        }
+        if (size < capacity) {
+            if (size == ids.length) {
+                int grown = Math.min(capacity, size * 2);
+                ids = Arrays.copyOf(ids, grown);
+                counts = Arrays.copyOf(counts, grown);
+                errors = Arrays.copyOf(errors, grown);
+            }
+            ids[size] = id;
+            counts[size] = count;
+            errors[size++] = 0;
+            return;
+        }
+        int smallest = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[smallest]) {
+                smallest = i;
+            }
+        }
+        ids[smallest] = id;
+        errors[smallest] = counts[smallest];
+        counts[smallest] += count;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int index) {
+        return ids[index];
+    }
+
+    // May overstate the id's true count by up to error(index)
+    long count(int index) {
+        return counts[index];
+    }
+
+    long error(int index) {
+        return errors[index];
+    }
+
+    // The count of a tracked id, or 0 if it is not tracked
+    long countOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    // What an untracked id may have reached without being counted: the smallest count once every
+    // counter is in use, and 0 before that
+    long untrackedBound() {
+        if (size < capacity) {
+            return 0;
+        }
+        long minimum = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minimum = Math.min(minimum, counts[i]);
+        }
+        return minimum;
+    }
+}
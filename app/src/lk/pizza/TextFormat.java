@@ -0,0 +1,66 @@
+package lk.pizza;
+
+import java.util.TimeZone;
+
+// Text Formatting Helpers
+// Small replacements for String.format on hot display paths. Each thread reuses one builder, and
+// numbers and times are appended digit by digit instead of going through java.util.Formatter.
+final class TextFormat {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final TimeZone ZONE = TimeZone.getDefault();
+
+    private TextFormat() {
+    }
+
+    // The calling thread's scratch builder, emptied; do not hold on to it across calls
+    static StringBuilder buffer() {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    // Same output as %.Nf for the values we display (prices, ratings)
+    static StringBuilder appendFixed(StringBuilder out, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / scale);
+        if (decimals > 0) {
+            out.append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 0; digit /= 10) {
+                out.append((char) ('0' + (fraction / digit) % 10));
+            }
+        }
+        return out;
+    }
+
+    // Amount in cents as dollars, e.g. 1250 -> 12.50
+    static StringBuilder appendCents(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        out.append(cents / 100).append('.');
+        return appendTwoDigits(out, (int) (cents % 100));
+    }
+
+    // Local wall-clock time as HH:mm:ss
+    static StringBuilder appendTime(StringBuilder out, long epochMillis) {
+        long local = epochMillis + ZONE.getOffset(epochMillis);
+        int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000);
+        appendTwoDigits(out, secondOfDay / 3600).append(':');
+        appendTwoDigits(out, secondOfDay / 60 % 60).append(':');
+        return appendTwoDigits(out, secondOfDay % 60);
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder out, int value) {
+        return out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
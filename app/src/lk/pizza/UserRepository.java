@@ -0,0 +1,66 @@
+package lk.pizza;
+
+// User Repository
+// Registered users indexed by contact number and by id. Contact numbers are exactly 10 digits,
+// so they are stored as primitive long keys rather than strings.
+class UserRepository {
+    private final IdGenerator ids = new IdGenerator();
+    private final LongIndex<User> byContactNumber = new LongIndex<>();
+    private final LongIndex<User> byId = new LongIndex<>();
+
+    // Atomically register a new user; returns null if the contact number is already taken
+    User register(String name, String contactNumber) {
+        User user = byContactNumber.insertIfAbsent(contactKey(contactNumber),
+                key -> new User(ids.next(), name, contactNumber));
+        if (user != null) {
+            byId.put(user.id, user);
+        }
+        return user;
+    }
+
+    // Add an existing user, e.g. one restored from storage
+    void add(User user) {
+        if (byContactNumber.insertIfAbsent(contactKey(user.contactNumber), key -> user) == null) {
+            throw new IllegalStateException("Contact number " + user.contactNumber + " already exists");
+        }
+        ids.observe(user.id);
+        byId.put(user.id, user);
+    }
+
+    User findByContactNumber(String contactNumber) {
+        long key = parseContactNumber(contactNumber);
+        return key < 0 ? null : byContactNumber.get(key);
+    }
+
+    User findById(long userId) {
+        return byId.get(userId);
+    }
+
+    int size() {
+        return byContactNumber.size();
+    }
+
+    static long contactKey(String contactNumber) {
+        long key = parseContactNumber(contactNumber);
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid contact number: " + contactNumber);
+        }
+        return key;
+    }
+
+    // A contact number is exactly 10 digits; parsed by hand rather than with a regex per lookup. -1 if invalid
+    static long parseContactNumber(String contactNumber) {
+        if (contactNumber.length() != 10) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = contactNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+}
@@ -0,0 +1,69 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlTest {
+    private static final Pizza PIZZA = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+
+    // The clock never moves, so no bucket refills: every token back comes from a refund
+    private final AdmissionControl admission = new AdmissionControl(
+            new AdmissionControl.Config(1, 60_000, 2, 60_000, 0, AdmissionControl.Overflow.SHED),
+            new KitchenScheduler(new KitchenScheduler.Config(1, 1, 1, 1, Integer.MAX_VALUE, OrderType.PICKUP, 0),
+                    new OrderRepository(), null, order -> { }, () -> 0L),
+            () -> 0L);
+
+    @Test
+    void withdrawnOrdersGiveBackTheirUserAndGlobalTokens() {
+        User first = new User(1L, "First", "0770000001");
+        User second = new User(2L, "Second", "0770000002");
+        User third = new User(3L, "Third", "0770000003");
+
+        Order placed = order(1, first);
+        admission.admit(placed);
+        assertRejected(AdmissionControl.Reason.USER_RATE_LIMIT, order(2, first));
+        admission.withdraw(placed);
+        admission.admit(order(3, first));
+        assertEquals(1, admission.stats().accepted());
+
+        // The global bucket (two tokens) runs out; the third user keeps the token it took
+        Order other = order(4, second);
+        admission.admit(other);
+        assertRejected(AdmissionControl.Reason.GLOBAL_RATE_LIMIT, order(5, third));
+        admission.withdraw(other);
+        admission.admit(order(6, third));
+        assertEquals(2, admission.stats().accepted());
+        assertEquals(2, admission.stats().shed());
+    }
+
+    // The kitchen holds one order; the same user is turned away for capacity each time, never for rate
+    @Test
+    void turnedAwayOrdersKeepNoTokens() {
+        AdmissionControl full = new AdmissionControl(
+                new AdmissionControl.Config(1, 60_000, 2, 60_000, 0, AdmissionControl.Overflow.SHED),
+                new KitchenScheduler(new KitchenScheduler.Config(1, 1, 1, 1, 1, OrderType.PICKUP, 0),
+                        new OrderRepository(), null, order -> { }, () -> 0L),
+                () -> 0L);
+        full.admit(order(1, new User(2L, "Second", "0770000002")));
+        User user = new User(1L, "First", "0770000001");
+        for (int i = 0; i < 3; i++) {
+            AdmissionControl.Rejected e = assertThrows(AdmissionControl.Rejected.class, () -> full.admit(order(2, user)));
+            assertEquals(AdmissionControl.Reason.KITCHEN_FULL, e.reason);
+        }
+        assertEquals(3, full.stats().shedKitchenFull());
+        assertEquals(0, full.stats().shedUserRate() + full.stats().shedGlobalRate());
+    }
+
+    private void assertRejected(AdmissionControl.Reason reason, Order order) {
+        AdmissionControl.Rejected e = assertThrows(AdmissionControl.Rejected.class, () -> admission.admit(order));
+        assertEquals(reason, e.reason);
+    }
+
+    private static Order order(long id, User user) {
+        return new Order(id, user, PIZZA, OrderType.PICKUP, "");
+    }
+}
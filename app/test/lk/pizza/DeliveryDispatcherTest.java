@@ -0,0 +1,98 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeliveryDispatcherTest {
+    private static final Pizza PIZZA = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+    private static final User USER = new User(1L, "Nimal", "0771234567");
+    private static final long HOUR = 3_600_000;
+
+    private final List<DeliveryDispatcher.Run> runs = new ArrayList<>();
+    private long nextId = 1;
+
+    // A delivery to the area that has finished baking
+    private Order baked(ColomboArea area) {
+        Order order = new Order(nextId++, USER, PIZZA, OrderType.DELIVERY, area.label + ", Galle Road, 12");
+        order.status = OrderStatus.BAKING;
+        order.paymentStatus = PaymentStatus.CASH;
+        return order;
+    }
+
+    @Test
+    void fullBatchLeavesAtOnce() {
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(2, HOUR, 250, runs::add);
+        Order first = baked(ColomboArea.FORT);
+        Order second = baked(ColomboArea.FORT);
+        assertTrue(dispatcher.offer(first));
+        assertTrue(dispatcher.offer(baked(ColomboArea.BORELLA)));
+        assertEquals(List.of(), runs);
+
+        assertTrue(dispatcher.offer(second));
+        assertEquals(1, runs.size());
+        assertEquals(ColomboArea.FORT, runs.get(0).area());
+        assertEquals(List.of(first, second), runs.get(0).orders());
+
+        // Borella's single order waits for its window
+        dispatcher.dispatchDue();
+        assertEquals(1, runs.size());
+        assertEquals(1, dispatcher.waitingCount());
+    }
+
+    @Test
+    void quietAreaLeavesOnceTheWindowPasses() {
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(4, 0, 250, runs::add);
+        Order lone = baked(ColomboArea.PETTAH);
+        dispatcher.offer(lone);
+        dispatcher.dispatchDue();
+        assertEquals(1, runs.size());
+        assertEquals(List.of(lone), runs.get(0).orders());
+        assertEquals(0, dispatcher.waitingCount());
+        DeliveryDispatcher.AreaStats pettah = dispatcher.stats().get(ColomboArea.PETTAH.ordinal());
+        assertEquals(1, pettah.runs());
+        assertEquals(1, pettah.ordersDispatched());
+    }
+
+    // An order whose card was declined while it waited does not ride; a run of none does not leave
+    @Test
+    void rejectedPaymentsAreDroppedFromTheRun() {
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(4, 0, 250, runs::add);
+        Order paid = baked(ColomboArea.FORT);
+        Order declined = baked(ColomboArea.FORT);
+        Order failed = baked(ColomboArea.BORELLA);
+        declined.paymentStatus = PaymentStatus.PENDING;
+        failed.paymentStatus = PaymentStatus.PENDING;
+        dispatcher.offer(paid);
+        dispatcher.offer(declined);
+        dispatcher.offer(failed);
+        declined.paymentStatus = PaymentStatus.DECLINED;
+        failed.paymentStatus = PaymentStatus.FAILED;
+
+        dispatcher.dispatchDue();
+        assertEquals(1, runs.size());
+        assertEquals(List.of(paid), runs.get(0).orders());
+        assertEquals(0, dispatcher.waitingCount());
+        assertEquals(0, dispatcher.stats().get(ColomboArea.BORELLA.ordinal()).runs());
+    }
+
+    @Test
+    void onlyBakedDeliveriesAreTaken() {
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(1, 0, 250, runs::add);
+        Order pickup = new Order(nextId++, USER, PIZZA, OrderType.PICKUP, "");
+        pickup.status = OrderStatus.BAKING;
+        assertFalse(dispatcher.offer(pickup));
+        Order preparing = baked(ColomboArea.FORT);
+        preparing.status = OrderStatus.PREPARING;
+        assertFalse(dispatcher.offer(preparing));
+        Order rejected = baked(ColomboArea.FORT);
+        rejected.paymentStatus = PaymentStatus.DECLINED;
+        assertFalse(dispatcher.offer(rejected));
+        assertEquals(List.of(), runs);
+    }
+}
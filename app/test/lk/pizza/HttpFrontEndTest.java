@@ -0,0 +1,133 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpFrontEndTest {
+    private static final String PICKUP = "{\"pizzaId\":1,\"type\":\"PICKUP\"}";
+
+    @TempDir
+    Path directory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicBoolean logFails = new AtomicBoolean();
+    private OrderService service;
+    private HttpFrontEnd frontEnd;
+
+    private void start(KitchenScheduler.Config kitchen, AdmissionControl.Config admission) throws IOException {
+        // Orders fail to log while logFails is set, as when the event log has failed
+        Persistence persistence = new Persistence(directory, OrderService::seedPizzas) {
+            @Override
+            long recordAll(List<DomainEvent> events) {
+                if (logFails.get() && events.get(0) instanceof DomainEvent.OrderPlaced) {
+                    throw new Persistence.Unavailable();
+                }
+                return super.recordAll(events);
+            }
+        };
+        service = new OrderService(persistence, new SimulatedPaymentGateway(0, 0, 0), kitchen, admission);
+        service.start();
+        frontEnd = new HttpFrontEnd(service, new SessionStore());
+        frontEnd.start(0);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        if (frontEnd != null) {
+            frontEnd.stop();
+            service.shutdown();
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + frontEnd.port() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String signUp(String contactNumber) throws Exception {
+        HttpResponse<String> response = send("POST", "/api/signup", null,
+                "{\"name\":\"Nimal\",\"contactNumber\":\"" + contactNumber + "\"}");
+        assertEquals(200, response.statusCode());
+        return Json.string(Json.parseObject(response.body()), "token");
+    }
+
+    // Bad input is 400, missing things 404, a request the current state forbids 409
+    @Test
+    void serviceErrorsMapToStatuses() throws Exception {
+        start(KitchenScheduler.Config.defaults(), AdmissionControl.Config.defaults());
+        String token = signUp("0771234567");
+
+        assertEquals(400, send("POST", "/api/signup", null, "{\"name\":\"Nimal\",\"contactNumber\":\"12\"}")
+                .statusCode());
+        assertEquals(409, send("POST", "/api/signup", null, "{\"name\":\"Nimal\",\"contactNumber\":\"0771234567\"}")
+                .statusCode());
+        assertEquals(401, send("GET", "/api/me", null, null).statusCode());
+        assertEquals(404, send("GET", "/api/nothing", token, null).statusCode());
+        assertEquals(404, send("GET", "/api/orders/999", token, null).statusCode());
+        assertEquals(405, send("DELETE", "/api/menu", null, null).statusCode());
+
+        HttpResponse<String> placed = send("POST", "/api/orders", token, PICKUP);
+        assertEquals(200, placed.statusCode());
+        long orderId = Json.number(Json.parseObject(placed.body()), "id");
+        assertEquals(400, send("POST", "/api/orders/" + orderId + "/rating", token, "{\"rating\":9}").statusCode());
+        HttpResponse<String> early = send("POST", "/api/orders/" + orderId + "/rating", token, "{\"rating\":5}");
+        assertEquals(409, early.statusCode());
+        assertTrue(early.body().contains("\"error\""));
+    }
+
+    @Test
+    void rateLimitedOrderGets429WithRetryAfter() throws Exception {
+        start(KitchenScheduler.Config.defaults(),
+                new AdmissionControl.Config(1, 3_600_000, 1, 0, 0, AdmissionControl.Overflow.SHED));
+        String token = signUp("0771234567");
+        assertEquals(200, send("POST", "/api/orders", token, PICKUP).statusCode());
+
+        HttpResponse<String> limited = send("POST", "/api/orders", token, PICKUP);
+        assertEquals(429, limited.statusCode());
+        assertTrue(Long.parseLong(limited.headers().firstValue("Retry-After").orElseThrow()) > 0);
+        assertEquals("USER_RATE_LIMIT", Json.string(Json.parseObject(limited.body()), "reason"));
+    }
+
+    @Test
+    void fullKitchenGets503WithRetryAfter() throws Exception {
+        start(new KitchenScheduler.Config(1, 1, 60_000, 60_000, 1, OrderType.PICKUP,
+                KitchenScheduler.DEFAULT_AGING_MILLIS), AdmissionControl.Config.unlimited());
+        assertEquals(200, send("POST", "/api/orders", signUp("0771234567"), PICKUP).statusCode());
+
+        HttpResponse<String> full = send("POST", "/api/orders", signUp("0771234568"), PICKUP);
+        assertEquals(503, full.statusCode());
+        assertTrue(full.headers().firstValue("Retry-After").isPresent());
+        assertEquals("KITCHEN_FULL", Json.string(Json.parseObject(full.body()), "reason"));
+    }
+
+    @Test
+    void unsavedOrderGets503WithRetryAfter() throws Exception {
+        start(KitchenScheduler.Config.defaults(), AdmissionControl.Config.defaults());
+        String token = signUp("0771234567");
+        logFails.set(true);
+
+        HttpResponse<String> unsaved = send("POST", "/api/orders", token, PICKUP);
+        assertEquals(503, unsaved.statusCode());
+        assertEquals(String.valueOf(Persistence.UNAVAILABLE_RETRY_AFTER_SECONDS),
+                unsaved.headers().firstValue("Retry-After").orElseThrow());
+        assertEquals("[]", send("GET", "/api/orders", token, null).body());
+    }
+}
@@ -0,0 +1,56 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KitchenSchedulerTest {
+    private static final Pizza PIZZA = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+    private static final User USER = new User(1L, "Nimal", "0771234567");
+
+    private final List<Order> baked = new ArrayList<>();
+
+    // Two prep stations feed one oven: the third order preps second, and every order waits its turn
+    // at the oven behind those that reach it first
+    @Test
+    void estimatesReplayTheQueuesAhead() {
+        KitchenScheduler kitchen = kitchen(new KitchenScheduler.Config(2, 1, 10, 20, 100, OrderType.PICKUP, 0));
+        List<Long> estimates = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            estimates.add(submit(kitchen, id).readyEstimateMillis);
+        }
+        assertEquals(List.of(30L, 50L, 70L), estimates);
+    }
+
+    // A tick that finds more work due than one batch takes still finishes all of it, in order
+    @Test
+    void oneTickFinishesEverythingDue() {
+        KitchenScheduler kitchen = kitchen(new KitchenScheduler.Config(4, 4, 1, 1, 1_000, OrderType.PICKUP, 0));
+        int count = KitchenScheduler.ADVANCE_BATCH * 5;
+        List<Order> submitted = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            submitted.add(submit(kitchen, id));
+        }
+        kitchen.advance(0);
+        kitchen.advance(count);
+        assertEquals(submitted, baked);
+        assertEquals(count, kitchen.stats().completed());
+        assertEquals(0, kitchen.backlog());
+    }
+
+    // The clock stays at 0: advance() is given the time explicitly
+    private KitchenScheduler kitchen(KitchenScheduler.Config config) {
+        return new KitchenScheduler(config, new OrderRepository(), null, baked::add, () -> 0L);
+    }
+
+    private static Order submit(KitchenScheduler kitchen, long id) {
+        Order order = new Order(id, USER, PIZZA, OrderType.PICKUP, "");
+        order.paymentStatus = PaymentStatus.CASH;
+        kitchen.tryAdmit();
+        kitchen.submit(order);
+        return order;
+    }
+}
@@ -0,0 +1,104 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoyaltyLedgerTest {
+    private static final int THREADS = 64;
+    private static final int OPS_PER_THREAD = 10_000;
+
+    // Many threads earn and redeem on one account; every point and every transaction must be
+    // accounted for, and the history must read back as one gap-free chain
+    @Test
+    void concurrentUpdatesAreNeverLostOrSpentTwice() throws InterruptedException {
+        LoyaltyLedger ledger = new LoyaltyLedger();
+        LongAdder earned = new LongAdder();
+        LongAdder redeemed = new LongAdder();
+        LongAdder transactions = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    if (i % 4 == 3) {
+                        if (ledger.redeem(5, i, 0) != null) {
+                            redeemed.add(5);
+                            transactions.increment();
+                        }
+                    } else {
+                        List<LoyaltyLedger.Transaction> settled = ledger.settleOrder(3, 1, i, 0);
+                        earned.add(3);
+                        redeemed.add(settled.size() - 1);
+                        transactions.add(settled.size());
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(earned.sum() - redeemed.sum(), ledger.balance());
+        assertEquals(transactions.sum(), ledger.last().sequence);
+        long sequence = 0;
+        int balance = 0;
+        for (LoyaltyLedger.Transaction t : ledger.history()) {
+            assertEquals(++sequence, t.sequence);
+            assertEquals(balance + t.points, t.balance);
+            assertTrue(t.balance >= 0, "negative balance at #" + t.sequence);
+            balance = t.balance;
+        }
+    }
+
+    @Test
+    void redeemingMoreThanTheBalanceChangesNothing() {
+        LoyaltyLedger ledger = new LoyaltyLedger();
+        ledger.earn(10, 1, 0);
+        assertNull(ledger.redeem(11, 2, 0));
+        assertEquals(10, ledger.balance());
+        assertEquals(1, ledger.last().sequence);
+    }
+
+    @Test
+    void revertTakesBackOnlyTheNewestSettlement() {
+        LoyaltyLedger ledger = new LoyaltyLedger();
+        ledger.earn(20, 1, 0);
+        List<LoyaltyLedger.Transaction> first = ledger.settleOrder(10, 5, 2, 0);
+        List<LoyaltyLedger.Transaction> second = ledger.settleOrder(4, 0, 3, 0);
+        assertFalse(ledger.revert(first));
+        assertTrue(ledger.revert(second));
+        assertTrue(ledger.revert(first));
+        assertEquals(20, ledger.balance());
+        assertEquals(1, ledger.last().sequence);
+    }
+
+    @Test
+    void undoCancelsASettlementThatIsNoLongerTheNewest() {
+        LoyaltyLedger ledger = new LoyaltyLedger();
+        ledger.earn(20, 1, 0);
+        List<LoyaltyLedger.Transaction> first = ledger.settleOrder(10, 5, 2, 0);
+        ledger.settleOrder(4, 0, 3, 0);
+        ledger.undo(first, 0);
+        assertEquals(24, ledger.balance());
+        assertEquals(LoyaltyLedger.Kind.ADJUST, ledger.last().kind);
+        assertEquals(-5, ledger.last().points);
+        assertEquals(2, ledger.last().orderId);
+    }
+}
@@ -0,0 +1,86 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MenuCatalogTest {
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final MenuCatalog catalog = new MenuCatalog(clock::get);
+
+    private static Pizza pizza(long id, String name) {
+        return new Pizza(id, name, "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+    }
+
+    // Adding and retiring publish a new version at once; reads in between share one snapshot
+    @Test
+    void changesPublishNewVersions() {
+        Pizza margherita = pizza(1, "Margherita");
+        Pizza pepperoni = pizza(2, "Pepperoni");
+        catalog.add(margherita);
+        catalog.add(pepperoni);
+        MenuCatalog.Snapshot snapshot = catalog.snapshot();
+        assertEquals(3, snapshot.version);
+        assertSame(snapshot, catalog.snapshot());
+        assertEquals(List.of(margherita, pepperoni), snapshot.pizzas);
+        assertTrue(snapshot.text.startsWith("1. "));
+        assertTrue(snapshot.text.contains("\n2. "));
+        assertArrayEquals(snapshot.json.getBytes(StandardCharsets.UTF_8), snapshot.jsonBytes);
+
+        catalog.retired(margherita);
+        assertEquals(4, catalog.snapshot().version);
+        assertFalse(catalog.isPublic(margherita));
+        assertTrue(catalog.isPublic(pepperoni));
+    }
+
+    // A burst of ratings marks the menu stale once; it is rebuilt by the first read after the
+    // staleness limit, and only once
+    @Test
+    void staleMenuIsRebuiltAfterTheLimit() {
+        catalog.add(pizza(1, "Margherita"));
+        MenuCatalog.Snapshot built = catalog.snapshot();
+        catalog.invalidate();
+        catalog.invalidate();
+        clock.addAndGet(MenuCatalog.MAX_STALENESS_MILLIS - 1);
+        assertSame(built, catalog.snapshot());
+
+        clock.incrementAndGet();
+        MenuCatalog.Snapshot rebuilt = catalog.snapshot();
+        assertEquals(built.version + 1, rebuilt.version);
+        clock.addAndGet(MenuCatalog.MAX_STALENESS_MILLIS);
+        assertSame(rebuilt, catalog.snapshot());
+    }
+
+    // Custom pizzas follow the public menu; the cached menu is reused until something changes
+    @Test
+    void userMenuAddsTheirPizzasAndIsCached() {
+        catalog.add(pizza(1, "Margherita"));
+        User user = new User(1L, "Nimal", "0771234567");
+        Pizza mine = pizza(100, "Mine");
+        Pizza old = pizza(101, "Old");
+        synchronized (user) {
+            user.customPizzas.add(mine);
+            user.customPizzas.add(old);
+        }
+
+        MenuCatalog.UserMenu menu = catalog.menuFor(user);
+        assertEquals(List.of(mine, old), menu.custom);
+        assertEquals(3, menu.pizzas.size());
+        assertTrue(menu.text.contains("\n2. "));
+        assertSame(menu, catalog.menuFor(user));
+
+        old.retireIfUnusedSince(Long.MAX_VALUE);
+        catalog.add(pizza(2, "Pepperoni"));
+        MenuCatalog.UserMenu rebuilt = catalog.menuFor(user);
+        assertEquals(List.of(mine), rebuilt.custom);
+        assertEquals(catalog.snapshot().version, rebuilt.version);
+    }
+}
@@ -0,0 +1,77 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+    // Every percentile lands within the ~3% bucket width of the exact value, never below it
+    @Test
+    void percentilesStayWithinTheBucketWidth() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            recorder.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(100_000, snapshot.count);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), snapshot.maxNanos);
+        assertEquals(50_000.5e3, snapshot.meanNanos(), 1e-3);
+        for (double fraction : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = TimeUnit.MICROSECONDS.toNanos(Math.round(fraction * 100_000));
+            long reported = snapshot.percentileNanos(fraction);
+            assertTrue(reported >= exact && reported <= exact * 1.032,
+                    "p" + fraction + " was " + reported + " for " + exact);
+        }
+        assertEquals(snapshot.maxNanos, snapshot.percentileNanos(1.0));
+    }
+
+    @Test
+    void smallValuesAreExactAndOutliersClamped() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.snapshot().percentileNanos(0.99));
+        recorder.record(-5);
+        recorder.record(17);
+        recorder.record(TimeUnit.DAYS.toNanos(1));
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(0, snapshot.percentileNanos(0.3));
+        assertEquals(17, snapshot.percentileNanos(0.5));
+        assertEquals(LatencyRecorder.MAX_TRACKABLE_NANOS, snapshot.maxNanos);
+    }
+
+    @Test
+    void scrapeWritesPrometheusText() {
+        Metrics metrics = new Metrics();
+        metrics.counter("pizza_test_total", "Things counted", "to=\"BAKING\"", () -> 3);
+        metrics.counter("pizza_test_total", "Things counted", "to=\"DELIVERED\"", () -> 4);
+        metrics.gauge("pizza_test_depth", "Queue depth", () -> 9);
+        metrics.timer("pizza_test_seconds", "Time per thing").record(TimeUnit.MILLISECONDS.toNanos(2));
+
+        String text = metrics.scrape();
+        assertEquals(1, text.split("# HELP pizza_test_total ", -1).length - 1);
+        assertTrue(text.contains("# TYPE pizza_test_total counter\n"
+                + "pizza_test_total{to=\"BAKING\"} 3\n"
+                + "pizza_test_total{to=\"DELIVERED\"} 4\n"));
+        assertTrue(text.contains("# TYPE pizza_test_depth gauge\npizza_test_depth 9\n"));
+        assertTrue(text.contains("# TYPE pizza_test_seconds summary\n"));
+        assertTrue(text.contains("pizza_test_seconds{quantile=\"0.5\"} "));
+        assertTrue(text.contains("pizza_test_seconds_sum 0.002\npizza_test_seconds_count 1\n"));
+    }
+
+    // JMX attributes fold labels into the name and spell out each summary's percentiles
+    @Test
+    void attributesFlattenLabelsAndSummaries() {
+        Metrics metrics = new Metrics();
+        metrics.counter("pizza_test_total", "Things counted", "to=\"BAKING\"", () -> 3);
+        metrics.timer("pizza_test_seconds", "Time per thing").record(TimeUnit.MILLISECONDS.toNanos(2));
+
+        Map<String, Object> attributes = metrics.attributes();
+        assertEquals(3L, attributes.get("pizza_test_total_to_BAKING"));
+        assertEquals(1L, attributes.get("pizza_test_seconds_count"));
+        assertEquals(0.002, (Double) attributes.get("pizza_test_seconds_max"), 1e-12);
+        assertTrue(attributes.containsKey("pizza_test_seconds_p999"));
+    }
+}
@@ -0,0 +1,90 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationBusTest {
+    private static final int PRODUCERS = 4;
+    private static final int UPDATES_PER_PRODUCER = 10_000;
+    private static final long SHARED_USER = 99;
+
+    private final NotificationBus bus = new NotificationBus(1 << 17, PRODUCERS * UPDATES_PER_PRODUCER);
+
+    @AfterEach
+    void shutdown() {
+        bus.shutdown();
+    }
+
+    // Each producer writes to its own user and to one shared user. Nothing may be dropped, and every
+    // mailbox must hold each producer's updates in the order that producer published them.
+    @Test
+    void updatesArriveInPublishOrderPerProducer() throws InterruptedException {
+        bus.start();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long user = p;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < UPDATES_PER_PRODUCER; i++) {
+                    bus.publish(i, user, OrderStatus.RECEIVED, OrderStatus.PREPARING, i);
+                    bus.publish(user * UPDATES_PER_PRODUCER + i, SHARED_USER, OrderStatus.PREPARING,
+                            OrderStatus.BAKING, i);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(0, bus.droppedCount());
+        for (long user = 0; user < PRODUCERS; user++) {
+            List<Notification> received = readAll(user, UPDATES_PER_PRODUCER);
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(i, received.get(i).orderId());
+                assertEquals(OrderStatus.PREPARING, received.get(i).current());
+            }
+        }
+        long[] next = new long[PRODUCERS];
+        for (Notification notification : readAll(SHARED_USER, PRODUCERS * UPDATES_PER_PRODUCER)) {
+            int producer = (int) (notification.orderId() / UPDATES_PER_PRODUCER);
+            assertEquals(producer * (long) UPDATES_PER_PRODUCER + next[producer]++, notification.orderId());
+        }
+    }
+
+    // Once the ring has been empty for a while the dispatcher is parked; a new update must wake it
+    @Test
+    void anIdleDispatcherWakesForANewUpdate() throws InterruptedException {
+        bus.start();
+        Thread.sleep(50);
+        assertTrue(bus.publish(7, 1, OrderStatus.BAKING, OrderStatus.OUT_FOR_DELIVERY, 0));
+        List<Notification> received = readAll(1, 1);
+        assertEquals(7, received.get(0).orderId());
+    }
+
+    private List<Notification> readAll(long user, int expected) throws InterruptedException {
+        List<Notification> received = new ArrayList<>();
+        for (int i = 0; i < 5_000 && received.size() < expected; i++) {
+            received.addAll(bus.readUnread(user));
+            if (received.size() < expected) {
+                Thread.sleep(1);
+            }
+        }
+        assertEquals(expected, received.size());
+        return received;
+    }
+}
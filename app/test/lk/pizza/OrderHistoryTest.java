@@ -0,0 +1,80 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderHistoryTest {
+    // Enough rows to fill one chunk and start another, so the parallel scans merge partials
+    private static final int ROWS = OrderHistory.CHUNK_ROWS + 1_000;
+
+    // Row i is placed at i: every third is a delivery to Fort, every fourth also has pizza 2, even
+    // rows are rated (5 with pizza 2, 3 without)
+    private static OrderHistory history() {
+        OrderHistory history = new OrderHistory();
+        for (int i = 0; i < ROWS; i++) {
+            boolean delivery = i % 3 == 0;
+            long[] statusMillis = {i, i + 10, i + 30, delivery ? i + 60 : 0, i + 100};
+            double rating = i % 4 == 0 ? 5 : i % 2 == 0 ? 3 : 0;
+            long[] pizzaIds = i % 4 == 0 ? new long[] {1, 2} : new long[] {1};
+            int[] quantities = i % 4 == 0 ? new int[] {2, 1} : new int[] {1};
+            history.append(i, i % 10, delivery ? OrderType.DELIVERY : OrderType.PICKUP,
+                    delivery ? ColomboArea.FORT : null, 1_000, i, statusMillis, rating, pizzaIds, quantities);
+        }
+        return history;
+    }
+
+    private static long count(int modulus) {
+        return (ROWS + modulus - 1) / modulus;
+    }
+
+    @Test
+    void popularPizzasAddUpEveryChunk() {
+        OrderHistory history = history();
+        assertEquals(ROWS, history.size());
+        long withTwo = count(4);
+        assertEquals(List.of(new OrderHistory.PizzaPopularity(1, ROWS + withTwo, ROWS),
+                        new OrderHistory.PizzaPopularity(2, withTwo, withTwo)),
+                history.popularPizzas(10, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(List.of(new OrderHistory.PizzaPopularity(1, 125, 100)),
+                history.popularPizzas(1, 0, 100));
+    }
+
+    @Test
+    void revenueIsGroupedByArea() {
+        List<OrderHistory.AreaRevenue> revenue = history().revenueByArea(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(ColomboArea.values().length + 1, revenue.size());
+        long deliveries = count(3);
+        assertNull(revenue.get(0).area());
+        assertEquals(ROWS - deliveries, revenue.get(0).orders());
+        assertEquals(new OrderHistory.AreaRevenue(ColomboArea.FORT, deliveries, deliveries * 1_000),
+                revenue.get(ColomboArea.FORT.ordinal() + 1));
+        assertEquals(0, revenue.get(ColomboArea.MUTWAL.ordinal() + 1).orders());
+    }
+
+    @Test
+    void ratingsAverageOverRatedOrdersOnly() {
+        List<OrderHistory.PizzaRating> ratings = history().averageRatingByPizza(Long.MIN_VALUE, Long.MAX_VALUE);
+        long fives = count(4);
+        long rated = count(2);
+        assertEquals(2, ratings.size());
+        assertEquals(new OrderHistory.PizzaRating(2, fives, 5.0), ratings.get(0));
+        assertEquals(1, ratings.get(1).pizzaId());
+        assertEquals(rated, ratings.get(1).ratedOrders());
+        assertEquals((5.0 * fives + 3.0 * (rated - fives)) / rated, ratings.get(1).averageRating(), 1e-9);
+    }
+
+    // A stage counts only the orders where both its start and its end are known
+    @Test
+    void dwellSkipsUnknownStageTimes() {
+        List<OrderHistory.StageDwell> dwell = history().statusDwell(Long.MIN_VALUE, Long.MAX_VALUE);
+        long deliveries = count(3);
+        assertEquals(new OrderHistory.StageDwell(OrderStatus.RECEIVED, ROWS, 10, 10), dwell.get(0));
+        assertEquals(new OrderHistory.StageDwell(OrderStatus.PREPARING, ROWS, 20, 20), dwell.get(1));
+        assertEquals(new OrderHistory.StageDwell(OrderStatus.BAKING, deliveries, 30, 30), dwell.get(2));
+        assertEquals(new OrderHistory.StageDwell(OrderStatus.OUT_FOR_DELIVERY, deliveries, 40, 40), dwell.get(3));
+    }
+}
@@ -0,0 +1,40 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderLifecycleEngineTest {
+    // One shard, so every order lands on the same wheel and one failing order shares slots with the rest
+    @Test
+    void oneFailingOrderDoesNotStrandTheOthers() {
+        OrderRepository orders = new OrderRepository();
+        User user = new User(1L, "Test", "0770000000");
+        Pizza pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+        Order[] placed = new Order[5];
+        for (int i = 0; i < placed.length; i++) {
+            placed[i] = new Order(orders.nextId(), user, pizza, OrderType.DELIVERY, "Street");
+            orders.add(placed[i]);
+        }
+        Order bad = placed[2];
+        OrderLifecycleEngine engine = new OrderLifecycleEngine(orders, 1, 1, 1, (order, previous, current) -> {
+            if (order == bad) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+        for (Order order : placed) {
+            engine.track(order);
+        }
+
+        for (int i = 0; i < 10_000 && engine.activeOrderCount() > 0; i++) {
+            engine.tickOnce();
+        }
+
+        assertEquals(0, engine.activeOrderCount());
+        for (Order order : placed) {
+            assertEquals(order == bad ? OrderStatus.PREPARING : OrderStatus.DELIVERED, order.status);
+        }
+    }
+}
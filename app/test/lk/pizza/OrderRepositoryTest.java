@@ -0,0 +1,109 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderRepositoryTest {
+    private static final Pizza PIZZA = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+    private static final int THREADS = 8;
+
+    private static Order order(OrderRepository repository, User user) {
+        Order order = new Order(repository.nextId(), user, PIZZA, OrderType.PICKUP, "");
+        repository.add(order);
+        return order;
+    }
+
+    @Test
+    void indexesFollowInsertsAndTransitions() {
+        OrderRepository repository = new OrderRepository();
+        User nimal = new User(1L, "Nimal", "0771234567");
+        User kamala = new User(2L, "Kamala", "0771234568");
+        Order first = order(repository, nimal);
+        Order second = order(repository, nimal);
+        Order third = order(repository, kamala);
+
+        assertEquals(3, repository.size());
+        assertEquals(List.of(first, second), repository.findByUser(1));
+        assertEquals(List.of(), repository.findByUser(3));
+        assertEquals(3, repository.countByStatus(OrderStatus.RECEIVED));
+
+        assertEquals(OrderStatus.RECEIVED, repository.advance(second));
+        assertTrue(second.statusMillis[OrderStatus.PREPARING.ordinal()] > 0);
+        assertFalse(repository.transition(third, OrderStatus.PREPARING, OrderStatus.BAKING));
+        assertEquals(List.of(second), repository.findByUserAndStatus(1, OrderStatus.PREPARING));
+        assertEquals(2, repository.countByStatus(OrderStatus.RECEIVED));
+        assertTrue(repository.findByStatus(OrderStatus.PREPARING).contains(second));
+
+        while (repository.advance(first) != null) {
+            // Through to DELIVERED
+        }
+        assertEquals(OrderStatus.DELIVERED, first.status);
+        assertNull(repository.advance(first));
+        assertEquals(1, repository.countByStatus(OrderStatus.DELIVERED));
+        assertThrows(IllegalStateException.class, () -> repository.add(first));
+    }
+
+    // Restored orders keep their ids, and new ids continue after the highest one
+    @Test
+    void newIdsFollowRestoredOnes() {
+        OrderRepository repository = new OrderRepository();
+        repository.add(new Order(41L, new User(1L, "Nimal", "0771234567"), PIZZA, OrderType.PICKUP, ""));
+        assertTrue(repository.nextId() > 41);
+    }
+
+    // Threads racing to advance the same orders move each one exactly one stage per success, and
+    // every order sits in exactly one status index at the end
+    @Test
+    void racingAdvancesNeverSkipOrLoseAStage() throws InterruptedException {
+        OrderRepository repository = new OrderRepository();
+        User user = new User(1L, "Nimal", "0771234567");
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            orders.add(order(repository, user));
+        }
+        AtomicInteger advanced = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 2; round++) {
+                    for (Order order : orders) {
+                        if (repository.advance(order) != null) {
+                            advanced.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int stages = OrderStatus.values().length - 1;
+        assertEquals(orders.size() * stages, advanced.get());
+        assertEquals(orders.size(), repository.countByStatus(OrderStatus.DELIVERED));
+        for (OrderStatus status : OrderStatus.values()) {
+            if (status != OrderStatus.DELIVERED) {
+                assertEquals(0, repository.countByStatus(status));
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderServiceTest {
+    @TempDir
+    Path directory;
+
+    private final List<PaymentGateway.Charge> charges = new CopyOnWriteArrayList<>();
+    private OrderService service;
+
+    @BeforeEach
+    void start() throws IOException {
+        // An instant gateway that never fails, recording what it was asked to charge
+        SimulatedPaymentGateway gateway = new SimulatedPaymentGateway(0, 0, 0) {
+            @Override
+            public Authorization authorize(Charge charge) throws IOException {
+                charges.add(charge);
+                return super.authorize(charge);
+            }
+        };
+        service = new OrderService(directory, gateway);
+        service.start();
+    }
+
+    @AfterEach
+    void shutdown() throws IOException {
+        service.shutdown();
+    }
+
+    @Test
+    void quotesMergeRepeatedPizzasLikeTheOrderDoes() {
+        // Only met once both Margheritas count towards it
+        service.addPromotion(new Promotion("$3 off two Margheritas", 3.0, 15.0, 0, Promotion.ALWAYS, 1L,
+                LoyaltyTier.BRONZE, false));
+        User user = service.signUp("Nimal", "0771234567");
+        List<OrderLine> split = List.of(new OrderLine(1, 1), new OrderLine(2, 1), new OrderLine(1, 1));
+        List<OrderLine> merged = List.of(new OrderLine(1, 2), new OrderLine(2, 1));
+
+        PricingEngine.PriceQuote quote = service.quote(user, split);
+        assertEquals(service.quote(user, merged), quote);
+        assertEquals(300, quote.promotionCents());
+        assertArrayEquals(new long[] {quote.totalCents(), quote.totalCents()},
+                service.quoteTotals(List.of(user, user), List.of(split, merged)));
+
+        Order order = service.placeOrder(user, split, OrderType.PICKUP, OrderService.PaymentDetails.cash());
+        assertEquals(quote.totalCents(), order.totalCents);
+        assertEquals(2, order.items.size());
+    }
+
+    // A custom pizza is pinned by an order that is placed, never by one turned away
+    @Test
+    void onlyPlacedOrdersPinCustomPizzas() {
+        User user = service.signUp("Nimal", "0771234567");
+        Pizza ordered = service.customizePizza(user, "Mine", "Thin", "Tomato", "Mozzarella", List.of("Olives"));
+        Pizza refused = service.customizePizza(user, "Other", "Thick", "Tomato", "Mozzarella", List.of("Mushrooms"));
+        service.placeOrder(user, ordered.id, OrderType.PICKUP, OrderService.PaymentDetails.cash());
+        for (int i = 1; i < AdmissionControl.DEFAULT_USER_BURST; i++) {
+            service.placeOrder(user, 1L, OrderType.PICKUP, OrderService.PaymentDetails.cash());
+        }
+        assertThrows(AdmissionControl.Rejected.class,
+                () -> service.placeOrder(user, refused.id, OrderType.PICKUP, OrderService.PaymentDetails.cash()));
+
+        assertFalse(ordered.retireIfUnusedSince(Long.MAX_VALUE));
+        assertTrue(refused.retireIfUnusedSince(Long.MAX_VALUE));
+    }
+
+    @Test
+    void cardReorderIsConfirmedByKeyOrNumberAndChargedByToken() throws InterruptedException {
+        User user = service.signUp("Nimal", "0771234567");
+        String number = "4111111111111111";
+        OrderService.PaymentDetails card = new OrderService.PaymentDetails("Credit Card", number, 12,
+                Calendar.getInstance().get(Calendar.YEAR) + 2);
+        Order first = service.placeOrder(user, List.of(new OrderLine(1, 1)), OrderType.PICKUP, card);
+        String reorderKey = first.takeReorderKey();
+        assertNotNull(reorderKey);
+        assertNull(first.takeReorderKey());
+        for (int i = 0; i < 5_000 && user.lastOrder.card().token() == null; i++) {
+            Thread.sleep(1);
+        }
+        ReorderTemplate last = user.lastOrder;
+        assertNotNull(last.card().token());
+        assertEquals("Credit Card ending 1111", last.paymentLabel());
+        assertFalse(last.toString().contains(number));
+
+        assertThrows(IllegalArgumentException.class, () -> service.reorder(user, null));
+        assertThrows(IllegalArgumentException.class, () -> service.reorder(user, "4111111111112222"));
+        assertThrows(IllegalArgumentException.class, () -> service.reorder(user, ReorderTemplate.Card.newReorderKey()));
+        Order again = service.reorder(user, reorderKey);
+        assertNull(again.takeReorderKey());
+        Order byNumber = service.reorder(user, number);
+        for (int i = 0; i < 5_000 && charges.size() < 3; i++) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, charges.size());
+        List<Long> repeated = List.of(charges.get(1).orderId(), charges.get(2).orderId());
+        assertTrue(repeated.containsAll(List.of(again.id, byNumber.id)));
+        for (PaymentGateway.Charge repeat : charges.subList(1, 3)) {
+            assertNull(repeat.cardNumber());
+            assertEquals(last.card().token(), repeat.cardToken());
+        }
+    }
+
+    // Two orders on one account that fail to log together both come off the ledger, whichever of
+    // them is taken back first
+    @Test
+    void ordersThatFailToLogTogetherLeaveNoPointsBehind() throws Exception {
+        CyclicBarrier bothCharged = new CyclicBarrier(2);
+        Persistence failing = new Persistence(directory.resolve("failing"), OrderService::seedPizzas) {
+            @Override
+            long recordAll(List<DomainEvent> events) {
+                if (!(events.get(0) instanceof DomainEvent.OrderPlaced)) {
+                    return super.recordAll(events);
+                }
+                try {
+                    bothCharged.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                throw new Persistence.Unavailable();
+            }
+        };
+        OrderService racing = new OrderService(failing, new SimulatedPaymentGateway(0, 0, 0),
+                KitchenScheduler.Config.defaults(), AdmissionControl.Config.defaults());
+        racing.start();
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            User user = racing.signUp("Nimal", "0771234567");
+            user.loyalty.earn(500, 0, System.currentTimeMillis());
+            Callable<Order> place = () -> racing.placeOrder(user, 1L, OrderType.PICKUP,
+                    OrderService.PaymentDetails.cash());
+            for (Future<Order> result : callers.invokeAll(List.of(place, place))) {
+                ExecutionException e = assertThrows(ExecutionException.class, result::get);
+                assertInstanceOf(Persistence.Unavailable.class, e.getCause());
+            }
+            assertEquals(500, user.loyaltyPoints());
+            assertEquals(0, racing.admissionStats().accepted());
+        } finally {
+            callers.shutdown();
+            racing.shutdown();
+        }
+    }
+}
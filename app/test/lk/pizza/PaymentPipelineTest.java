@@ -0,0 +1,116 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PaymentPipelineTest {
+    private static final PaymentGateway.Charge CHARGE =
+            new PaymentGateway.Charge("order-7-pay", 7, 1_250, "4111111111111111", 12, 2030, null);
+
+    // Answers each authorize call with the next scripted step; settle fails as often as told
+    private static final class ScriptedGateway implements PaymentGateway {
+        final List<String> keys = Collections.synchronizedList(new ArrayList<>());
+        final List<List<Authorization>> settled = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> steps;
+        private volatile int settleFailures;
+
+        ScriptedGateway(int settleFailures, String... steps) {
+            this.steps = List.of(steps);
+            this.settleFailures = settleFailures;
+        }
+
+        @Override
+        public Authorization authorize(Charge charge) throws IOException {
+            int call = keys.size();
+            keys.add(charge.idempotencyKey());
+            switch (steps.get(Math.min(call, steps.size() - 1))) {
+                case "io" -> throw new IOException("connection reset");
+                case "slow" -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        throw new IOException("interrupted");
+                    }
+                }
+                case "decline" -> throw new Declined("insufficient funds");
+                default -> { }
+            }
+            return new Authorization(charge.idempotencyKey(), charge.orderId(), charge.amountCents(),
+                    "ref-" + charge.idempotencyKey(), "tok-1");
+        }
+
+        @Override
+        public void settle(List<Authorization> batch) throws IOException {
+            if (settleFailures > 0) {
+                settleFailures--;
+                throw new IOException("settlement unavailable");
+            }
+            settled.add(List.copyOf(batch));
+        }
+    }
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private PaymentPipeline pipeline(PaymentGateway gateway, int settlementBatch) {
+        return new PaymentPipeline(gateway, (orderId, status, reference, token) -> events.add(orderId + " " + status),
+                4, 200, 3, 1, settlementBatch, 60_000);
+    }
+
+    // Transient failures and timeouts are retried under the charge's own key, so the processor
+    // can tell them apart from a second payment
+    @Test
+    void retriesKeepTheIdempotencyKey() throws Exception {
+        ScriptedGateway gateway = new ScriptedGateway(0, "io", "slow", "ok");
+        PaymentPipeline payments = pipeline(gateway, 100);
+        assertEquals(PaymentStatus.AUTHORIZED, payments.submit(CHARGE).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("order-7-pay", "order-7-pay", "order-7-pay"), gateway.keys);
+        assertEquals(List.of("7 AUTHORIZED"), events);
+        assertEquals(1, payments.unsettledCount());
+        payments.shutdown(1_000);
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() throws Exception {
+        ScriptedGateway gateway = new ScriptedGateway(0, "io");
+        PaymentPipeline payments = pipeline(gateway, 100);
+        assertEquals(PaymentStatus.FAILED, payments.submit(CHARGE).get(5, TimeUnit.SECONDS));
+        assertEquals(3, gateway.keys.size());
+        assertEquals(List.of("7 FAILED"), events);
+        payments.shutdown(1_000);
+    }
+
+    @Test
+    void declinesAreNotRetried() throws Exception {
+        ScriptedGateway gateway = new ScriptedGateway(0, "decline");
+        PaymentPipeline payments = pipeline(gateway, 100);
+        assertEquals(PaymentStatus.DECLINED, payments.submit(CHARGE).get(5, TimeUnit.SECONDS));
+        assertEquals(1, gateway.keys.size());
+        assertEquals(List.of("7 DECLINED"), events);
+        assertEquals(0, payments.unsettledCount());
+        payments.shutdown(1_000);
+    }
+
+    // A full batch settles right away; when that fails the batch goes back in the queue and the
+    // next round (here the one shutdown runs) settles it
+    @Test
+    void failedSettlementIsRequeued() throws Exception {
+        ScriptedGateway gateway = new ScriptedGateway(1, "ok");
+        PaymentPipeline payments = pipeline(gateway, 1);
+        assertEquals(PaymentStatus.AUTHORIZED, payments.submit(CHARGE).get(5, TimeUnit.SECONDS));
+        assertEquals(1, payments.unsettledCount());
+        assertEquals(List.of(), gateway.settled);
+
+        payments.shutdown(1_000);
+        assertEquals(0, payments.unsettledCount());
+        assertEquals(1, gateway.settled.size());
+        assertEquals("order-7-pay", gateway.settled.get(0).get(0).idempotencyKey());
+        assertEquals(List.of("7 AUTHORIZED", "7 SETTLED"), events);
+    }
+}
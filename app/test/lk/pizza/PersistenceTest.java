@@ -0,0 +1,109 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistenceTest {
+    private static final long NEVER = 1_000_000; // Seconds between background compactions
+
+    @TempDir
+    Path directory;
+
+    // A crash mid-write leaves half a record at the end of the newest segment; it is cut off, and
+    // what is logged after the restart is still there after the next one
+    @Test
+    void aTornTailIsCutOffAndLoggingCarriesOn() throws IOException {
+        register(0, 3);
+        Path segment = EventLog.listSegments(directory).get(0);
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        Persistence restarted = open();
+        assertEquals(3, restarted.recover().users.size());
+        restarted.record(new DomainEvent.UserRegistered(4, "User 4", "0770000004"));
+        restarted.close();
+
+        Persistence again = open();
+        assertEquals(4, again.recover().users.size());
+        again.close();
+    }
+
+    // Damage in a segment that was sealed by a restart is not a crash artifact: later records cannot
+    // be replayed in order, so recovery refuses to start rather than drop the middle of the history
+    @Test
+    void damageInASealedSegmentStopsRecovery() throws IOException {
+        register(0, 3);
+        register(3, 3);
+        assertEquals(2, EventLog.listSegments(directory).size());
+        corrupt(EventLog.listSegments(directory).get(0));
+
+        assertThrows(IOException.class, () -> open().recover());
+    }
+
+    // Compaction must not delete sealed segments it could not fold completely into the snapshot
+    @Test
+    void compactionKeepsSegmentsItCannotReplay() throws IOException, InterruptedException {
+        register(0, 3);
+        Persistence persistence = open();
+        persistence.recover();
+        persistence.record(new DomainEvent.UserRegistered(4, "User 4", "0770000004"));
+        Path damaged = EventLog.listSegments(directory).get(0);
+        corrupt(damaged);
+
+        assertThrows(IOException.class, persistence::compact);
+        assertNull(PersistentState.latestSnapshot(directory));
+        assertTrue(Files.exists(damaged));
+        persistence.close();
+    }
+
+    // A caller that gives up waiting for the disk undoes its change, so the log must stop taking
+    // records rather than let them become durable later
+    @Test
+    void aWriteThatIsNotDurableInTimeFailsTheLog() throws IOException {
+        EventLog log = new EventLog(directory, 0);
+        long seq = log.append(new DomainEvent.UserRegistered(1, "User 1", "0770000001"));
+        log.awaitDurable(seq, 5_000);
+
+        assertThrows(IOException.class, () -> log.awaitDurable(seq + 1, 10));
+        assertTrue(log.failed());
+        assertThrows(IllegalStateException.class,
+                () -> log.append(new DomainEvent.UserRegistered(2, "User 2", "0770000002")));
+        assertThrows(IOException.class, log::close);
+    }
+
+    private Persistence open() {
+        return new Persistence(directory, OrderService::seedPizzas, NEVER);
+    }
+
+    // Start, log count users after the first ones and shut down cleanly
+    private void register(int first, int count) throws IOException {
+        Persistence persistence = open();
+        persistence.recover();
+        for (int id = first + 1; id <= first + count; id++) {
+            persistence.record(new DomainEvent.UserRegistered(id, "User " + id, "077000000" + id));
+        }
+        persistence.close();
+    }
+
+    // Flip a byte inside the first record's body, so its checksum no longer matches
+    private static void corrupt(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, 20);
+            buffer.flip();
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xFF));
+            channel.write(buffer, 20);
+        }
+    }
+}
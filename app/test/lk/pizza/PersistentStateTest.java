@@ -0,0 +1,76 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PersistentStateTest {
+    @TempDir
+    Path directory;
+
+    private static final String ADDRESS = ColomboArea.KOLLUPITIYA.label + ", Galle Road, 12";
+
+    @Test
+    void snapshotReadsBackWhatWasWritten() throws IOException {
+        PersistentState state = new PersistentState(OrderService.seedPizzas());
+        state.apply(1, new DomainEvent.UserRegistered(7, "Nimal", "0771234567"));
+        state.apply(2, new DomainEvent.AddressUpdated(7, ADDRESS));
+        state.apply(3, new DomainEvent.PizzaCreated(100, "Mine", "Thin", "Pesto", "Cheddar", List.of("Olives"), 14.5));
+        state.apply(4, new DomainEvent.CustomPizzaSaved(7, 100));
+        state.apply(5, new DomainEvent.OrderPlaced(50, 7, List.of(new OrderLine(1, 2), new OrderLine(100, 1)),
+                OrderType.DELIVERY, ADDRESS, 1_000, 3_450, PaymentStatus.CASH));
+        state.apply(6, new DomainEvent.PointsTransaction(7, 1, LoyaltyLedger.Kind.EARN, 34, 34, 50, 1_000));
+        state.apply(7, new DomainEvent.StatusAdvanced(50, OrderStatus.PREPARING, 2_000));
+        state.apply(8, new DomainEvent.RatingAdded(50, 4, "Good"));
+
+        PersistentState loaded = PersistentState.load(state.write(directory), OrderService.seedPizzas());
+
+        assertEquals(8, loaded.lastSeq);
+        User user = loaded.users.get(7L);
+        assertEquals("0771234567", user.contactNumber);
+        assertEquals(ColomboArea.KOLLUPITIYA, user.area);
+        assertEquals(34, user.loyalty.balance());
+        assertSame(loaded.pizzas.get(100L), user.customPizzas.get(0));
+        Order order = loaded.orders.get(50L);
+        assertSame(user, order.user);
+        assertEquals(List.of(new Order.Item(loaded.pizzas.get(1L), 2), new Order.Item(loaded.pizzas.get(100L), 1)),
+                order.items);
+        assertEquals(ColomboArea.KOLLUPITIYA, order.area);
+        assertEquals(3_450, order.totalCents);
+        assertEquals(PaymentStatus.CASH, order.paymentStatus);
+        assertEquals(OrderStatus.PREPARING, order.status);
+        assertEquals(2_000, order.statusMillis[OrderStatus.PREPARING.ordinal()]);
+        assertEquals("Good", order.feedback);
+        assertEquals(1, loaded.pizzas.get(100L).ratingCount());
+        assertNull(loaded.pizzas.get(2L).ratingsIfPresent());
+    }
+
+    @Test
+    void everyEventSurvivesEncoding() throws IOException {
+        List<DomainEvent> events = List.of(
+                new DomainEvent.UserRegistered(1, "Nimal", "0771234567"),
+                new DomainEvent.PizzaCreated(2, "Mine", "Thin", "Pesto", "Cheddar", List.of("Olives", "Basil"), 14.5),
+                new DomainEvent.CustomPizzaSaved(1, 2),
+                new DomainEvent.PizzaRetired(2),
+                new DomainEvent.OrderPlaced(3, 1, List.of(new OrderLine(2, 3)), OrderType.PICKUP, "", 10, 4_350,
+                        PaymentStatus.PENDING),
+                new DomainEvent.StatusAdvanced(3, OrderStatus.BAKING, 20),
+                new DomainEvent.PaymentChanged(3, PaymentStatus.AUTHORIZED, "auth-1"),
+                new DomainEvent.RatingAdded(3, 5, "Great"),
+                new DomainEvent.AddressUpdated(1, ADDRESS),
+                new DomainEvent.PointsTransaction(1, 4, LoyaltyLedger.Kind.REDEEM, -5, 10, 3, 30));
+        for (DomainEvent event : events) {
+            byte[] encoded = EventLog.encode(event);
+            assertEquals(event, EventLog.decode(new DataInputStream(new ByteArrayInputStream(encoded))));
+        }
+    }
+}
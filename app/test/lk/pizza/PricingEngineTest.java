@@ -0,0 +1,78 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PricingEngineTest {
+    private static PricingEngine engine(double... prices) {
+        PricingEngine pricing = new PricingEngine();
+        for (int i = 0; i < prices.length; i++) {
+            pricing.putPizza(new Pizza((long) i + 1, "Pizza " + (i + 1), 0, prices[i]));
+        }
+        return pricing;
+    }
+
+    // Menu prices are rounded to cents once; quantities and sums never pick up binary fractions
+    @Test
+    void pricesAddUpInWholeCents() {
+        PricingEngine pricing = engine(0.29, 19.99);
+        PricingEngine.PriceQuote quote = pricing.quote(List.of(new OrderLine(1, 3), new OrderLine(2, 3)), 0, 0);
+        assertEquals(87 + 5_997, quote.subtotalCents());
+        assertEquals(60, quote.pointsEarned());
+        // The points this order earns count towards its discount: 5% of 60.84 is 304.2 cents
+        assertEquals(304, quote.loyaltyCents());
+        assertEquals(6_084 - 304, quote.totalCents());
+    }
+
+    // The loyalty discount rounds half a cent up and the parts always add back to the subtotal
+    @Test
+    void loyaltyDiscountRoundsHalfUp() {
+        PricingEngine pricing = engine(10.10, 10.09);
+        PricingEngine.PriceQuote half = pricing.quote(List.of(new OrderLine(1, 1)), 1, 0);
+        assertEquals(51, half.loyaltyCents());
+        assertEquals(1_010 - 51, half.totalCents());
+        PricingEngine.PriceQuote under = pricing.quote(List.of(new OrderLine(2, 1)), 1, 0);
+        assertEquals(50, under.loyaltyCents());
+        assertEquals(1_009 - 50, under.totalCents());
+    }
+
+    @Test
+    void promotionComesOffBeforeTheLoyaltyDiscount() {
+        PricingEngine pricing = engine(12.34);
+        PromotionEngine promotions = new PromotionEngine(pricing::usePromotions);
+        promotions.add(new Promotion("Two off", 2.01, 10));
+        PricingEngine.PriceQuote quote = pricing.quote(List.of(new OrderLine(1, 1)), 1, 0);
+        assertEquals(201, quote.promotionCents());
+        // 5% of 10.33 is 51.65 cents
+        assertEquals(52, quote.loyaltyCents());
+        assertEquals(quote.subtotalCents() - quote.promotionCents() - quote.loyaltyCents(), quote.totalCents());
+    }
+
+    @Test
+    void batchTotalsMatchSingleQuotes() {
+        PricingEngine pricing = engine(0.29, 19.99, 10.10);
+        List<List<OrderLine>> carts = List.of(
+                List.of(new OrderLine(1, 7)),
+                List.of(new OrderLine(2, 1), new OrderLine(3, 2), new OrderLine(1, 1)),
+                List.of(new OrderLine(3, 1)));
+        int[] points = {0, 1, 250};
+        long[] expected = new long[carts.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = pricing.quote(carts.get(i), points[i], 0).totalCents();
+        }
+        assertArrayEquals(expected, pricing.quoteTotals(carts, points, 0));
+    }
+
+    @Test
+    void unknownPizzaIsRejected() {
+        PricingEngine pricing = engine(10.00);
+        assertThrows(NoSuchElementException.class, () -> pricing.quote(List.of(new OrderLine(9, 1)), 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> pricing.quote(List.of(), 0, 0));
+    }
+}
@@ -0,0 +1,91 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PromotionEngineTest {
+    private static final List<OrderLine> ONE_LINE = List.of(new OrderLine(1, 1));
+
+    private static Promotion stackable(double discount, double minOrder) {
+        return new Promotion("stack " + discount, discount, minOrder, 0, Promotion.ALWAYS, null,
+                LoyaltyTier.BRONZE, true);
+    }
+
+    private static Promotion exclusive(double discount, double minOrder) {
+        return new Promotion("exclusive " + discount, discount, minOrder);
+    }
+
+    private static long discount(PromotionEngine engine, long subtotalCents) {
+        return engine.rules().discountCents(subtotalCents, ONE_LINE, new long[] {subtotalCents},
+                LoyaltyTier.BRONZE, 1_000, new long[2]);
+    }
+
+    // Stackable promotions add up; the stack and the best exclusive one compete, the larger wins
+    @Test
+    void stackCompetesWithTheBestExclusive() {
+        PromotionEngine engine = new PromotionEngine();
+        engine.add(stackable(3, 0));
+        engine.add(stackable(4, 10));
+        engine.add(exclusive(5, 0));
+        engine.add(exclusive(6, 0));
+        assertEquals(700, discount(engine, 2_000));
+
+        engine.add(exclusive(8, 15));
+        assertEquals(800, discount(engine, 2_000));
+        // Below the 10.00 and 15.00 thresholds only 3.00 stacks, so the 6.00 exclusive wins
+        assertEquals(600, discount(engine, 999));
+    }
+
+    @Test
+    void discountNeverExceedsTheOrder() {
+        PromotionEngine engine = new PromotionEngine();
+        engine.add(stackable(3, 0));
+        engine.add(stackable(4, 0));
+        assertEquals(250, discount(engine, 250));
+    }
+
+    // A per-pizza promotion is checked against what the cart spends on that pizza, not the subtotal
+    @Test
+    void pizzaPromotionsUseTheLineAmount() {
+        PromotionEngine engine = new PromotionEngine();
+        engine.add(new Promotion("pizza 2", 2, 10, 0, Promotion.ALWAYS, 2L, LoyaltyTier.BRONZE, true));
+        List<OrderLine> lines = List.of(new OrderLine(1, 1), new OrderLine(2, 1));
+        PromotionEngine.Rules rules = engine.rules();
+        assertEquals(0, rules.discountCents(3_000, lines, new long[] {2_500, 500}, LoyaltyTier.BRONZE, 0,
+                new long[2]));
+        assertEquals(200, rules.discountCents(3_000, lines, new long[] {1_500, 1_500}, LoyaltyTier.BRONZE, 0,
+                new long[2]));
+    }
+
+    @Test
+    void windowAndTierLimitWhoGetsAPromotion() {
+        PromotionEngine engine = new PromotionEngine();
+        engine.add(new Promotion("gold", 5, 0, 0, Promotion.ALWAYS, null, LoyaltyTier.GOLD, false));
+        engine.add(new Promotion("later", 7, 0, 2_000, 3_000, null, LoyaltyTier.BRONZE, false));
+        PromotionEngine.Rules rules = engine.rules();
+        assertEquals(0, discount(engine, 2_000));
+        assertEquals(500, rules.discountCents(2_000, ONE_LINE, new long[] {2_000}, LoyaltyTier.GOLD, 1_000,
+                new long[2]));
+        assertEquals(700, rules.discountCents(2_000, ONE_LINE, new long[] {2_000}, LoyaltyTier.BRONZE, 2_000,
+                new long[2]));
+        assertEquals(0, rules.discountCents(2_000, ONE_LINE, new long[] {2_000}, LoyaltyTier.BRONZE, 3_000,
+                new long[2]));
+    }
+
+    @Test
+    void listenerSeesEveryRuleSetInOrder() {
+        List<PromotionEngine.Rules> seen = new ArrayList<>();
+        PromotionEngine engine = new PromotionEngine(seen::add);
+        engine.add(exclusive(1, 0));
+        engine.replaceAll(List.of(exclusive(2, 0), stackable(1, 0)));
+        assertEquals(2, seen.size());
+        assertEquals(1, seen.get(0).all.size());
+        assertSame(engine.rules(), seen.get(1));
+        assertEquals(2, engine.size());
+    }
+}
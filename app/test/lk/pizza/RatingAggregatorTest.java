@@ -0,0 +1,61 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RatingAggregatorTest {
+    private static final int THREADS = 64;
+    private static final int RATINGS_PER_THREAD = 20_000;
+
+    // Every thread rates the same popular pizza; afterwards no vote may be missing
+    @Test
+    void concurrentRatingsAreNeverLost() throws InterruptedException {
+        Pizza pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < RATINGS_PER_THREAD; i++) {
+                    pizza.updateRating(1 + (i + offset) % 5);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals((long) THREADS * RATINGS_PER_THREAD, pizza.ratingCount());
+        assertEquals(3.0, pizza.rating(), 1e-9);
+    }
+
+    @Test
+    void recentRatingsOutweighOldOnes() {
+        long day = 24 * 60 * 60 * 1000L;
+        RatingAggregator ratings = new RatingAggregator(day, 0);
+        ratings.record(1, 0);
+        ratings.record(5, 7 * day);
+        assertEquals(3.0, ratings.average(), 1e-9);
+        assertEquals(5.0, ratings.decayedAverage(), 0.05);
+    }
+
+    @Test
+    void rejectsRatingsOutsideOneToFiveStars() {
+        RatingAggregator ratings = new RatingAggregator();
+        assertThrows(IllegalArgumentException.class, () -> ratings.record(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> ratings.record(6, 0));
+    }
+}
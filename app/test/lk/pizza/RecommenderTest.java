@@ -0,0 +1,105 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RecommenderTest {
+    private final Map<Long, Pizza> pizzas = new HashMap<>();
+    private final Set<Long> hidden = new HashSet<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final Recommender recommender =
+            new Recommender((user, id) -> hidden.contains(id) ? null : pizzas.get(id), clock::get);
+    private long nextId = 1;
+
+    RecommenderTest() {
+        for (long id = 1; id <= 4; id++) {
+            pizzas.put(id, new Pizza(id, "Pizza " + id, "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0));
+        }
+    }
+
+    private void order(User user, long... pizzaIds) {
+        List<Order.Item> items = new ArrayList<>();
+        for (long id : pizzaIds) {
+            items.add(new Order.Item(pizzas.get(id), 1));
+        }
+        recommender.placed(new Order(nextId++, user, items, OrderType.PICKUP, ""));
+    }
+
+    private List<Pizza> pizzas(long... ids) {
+        List<Pizza> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(pizzas.get(id));
+        }
+        return list;
+    }
+
+    // Others order 1 with 2 ten times and with 3 twice; Nimal orders 1 three times and 4 once.
+    // Pizzas 1, 2, 3 and 4 are then in 15, 10, 2 and 1 orders.
+    private User history() {
+        User others = new User(2L, "Kamala", "0771234568");
+        for (int i = 0; i < 10; i++) {
+            order(others, 1, 2);
+        }
+        order(others, 1, 3);
+        order(others, 1, 3);
+        User nimal = new User(1L, "Nimal", "0771234567");
+        order(nimal, 1);
+        order(nimal, 1);
+        order(nimal, 4);
+        order(nimal, 1);
+        return nimal;
+    }
+
+    @Test
+    void usualsFirstThenWhatIsOrderedWithThem() {
+        Recommender.Recommendations recommendations = recommender.recommend(history());
+        assertEquals(pizzas(1, 4), recommendations.usual());
+        // 2 scores 10 / sqrt(15 x 10), ahead of 3 at 2 / sqrt(15 x 2)
+        assertEquals(pizzas(2, 3), recommendations.alsoLike());
+    }
+
+    // Without any history of their own, a user is offered what everyone orders most, apart from
+    // their favorites
+    @Test
+    void newUserGetsPopularPizzasButNotTheirFavorites() {
+        history();
+        User newcomer = new User(3L, "Sunil", "0771234569");
+        newcomer.favoritePizzas.put(2L, pizzas.get(2L));
+        Recommender.Recommendations recommendations = recommender.recommend(newcomer);
+        assertEquals(List.of(), recommendations.usual());
+        assertEquals(pizzas(1, 3, 4), recommendations.alsoLike());
+    }
+
+    @Test
+    void cachedUntilTheUserOrdersOrTheEntryExpires() {
+        User nimal = history();
+        Recommender.Recommendations first = recommender.recommend(nimal);
+        assertSame(first, recommender.recommend(nimal));
+
+        hidden.add(2L);
+        clock.addAndGet(Recommender.CACHE_TTL_MILLIS - 1);
+        assertSame(first, recommender.recommend(nimal));
+        clock.incrementAndGet();
+        Recommender.Recommendations expired = recommender.recommend(nimal);
+        assertNotSame(first, expired);
+        assertEquals(pizzas(3), expired.alsoLike());
+
+        order(nimal, 3);
+        order(nimal, 3);
+        Recommender.Recommendations reordered = recommender.recommend(nimal);
+        assertNotSame(expired, reordered);
+        assertEquals(pizzas(1, 3, 4), reordered.usual());
+        assertEquals(List.of(), reordered.alsoLike());
+    }
+}
@@ -0,0 +1,79 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+    private static final int CAPACITY = 20;
+
+    // A skewed stream over many more ids than counters: every estimate must bracket the true count
+    // and every id that made up more than 1/CAPACITY of the stream must still hold a counter
+    @Test
+    void estimatesStayWithinTheirErrorBounds() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 100_000; i++) {
+            // Cubing skews the draw towards low ids
+            double u = random.nextDouble();
+            long id = (long) (u * u * u * 500);
+            long count = 1 + random.nextInt(3);
+            summary.add(id, count);
+            exact.merge(id, count, Long::sum);
+            total += count;
+        }
+
+        assertEquals(CAPACITY, summary.size());
+        for (int i = 0; i < summary.size(); i++) {
+            long truth = exact.get(summary.id(i));
+            assertTrue(summary.count(i) >= truth, "count understated for id " + summary.id(i));
+            assertTrue(summary.count(i) - summary.error(i) <= truth, "error too small for id " + summary.id(i));
+        }
+        long bound = summary.untrackedBound();
+        assertTrue(bound <= total / CAPACITY);
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long estimate = summary.countOf(entry.getKey());
+            if (estimate == 0) {
+                assertTrue(entry.getValue() <= bound, "untracked id " + entry.getKey() + " above the bound");
+            }
+            if (entry.getValue() > total / CAPACITY) {
+                assertTrue(estimate > 0, "heavy hitter " + entry.getKey() + " lost its counter");
+            }
+        }
+    }
+
+    // Until every counter is in use the counts are exact
+    @Test
+    void countsAreExactBelowCapacity() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        for (long id = 0; id < CAPACITY; id++) {
+            summary.add(id, id + 1);
+            summary.add(id, 1);
+        }
+        assertEquals(CAPACITY, summary.size());
+        assertEquals(2, summary.untrackedBound());
+        for (int i = 0; i < summary.size(); i++) {
+            assertEquals(summary.id(i) + 2, summary.count(i));
+            assertEquals(0, summary.error(i));
+        }
+
+        // The next new id takes over the smallest counter and inherits its count as error
+        summary.add(100, 5);
+        assertEquals(0, summary.countOf(0));
+        assertEquals(7, summary.countOf(100));
+        assertEquals(CAPACITY, summary.size());
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving(0));
+    }
+}
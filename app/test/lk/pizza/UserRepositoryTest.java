@@ -0,0 +1,81 @@
+package lk.pizza;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserRepositoryTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void usersAreFoundByContactNumberAndId() {
+        UserRepository users = new UserRepository();
+        User nimal = users.register("Nimal", "0771234567");
+        assertSame(nimal, users.findByContactNumber("0771234567"));
+        assertSame(nimal, users.findById(nimal.id));
+        assertNull(users.register("Someone else", "0771234567"));
+        assertNull(users.findByContactNumber("077123456"));
+        assertNull(users.findByContactNumber("07712345x7"));
+        assertEquals(1, users.size());
+    }
+
+    @Test
+    void contactNumbersAreExactlyTenDigits() {
+        assertEquals(771_234_567L, UserRepository.parseContactNumber("0771234567"));
+        assertEquals(-1, UserRepository.parseContactNumber("077 1234567"));
+        assertEquals(-1, UserRepository.parseContactNumber("07712345678"));
+        assertThrows(IllegalArgumentException.class, () -> UserRepository.contactKey("+94771234567"));
+    }
+
+    // Restored users keep their ids; new ones are numbered after them and never reuse a number
+    @Test
+    void restoredUsersKeepTheirIdsAndNumbers() {
+        UserRepository users = new UserRepository();
+        users.add(new User(41L, "Nimal", "0771234567"));
+        assertEquals(42L, users.register("Kamala", "0771234568").id);
+        assertThrows(IllegalStateException.class, () -> users.add(new User(50L, "Again", "0771234567")));
+    }
+
+    // Many threads signing up with the same numbers: each number is taken exactly once
+    @Test
+    void concurrentSignUpsTakeEachNumberOnce() throws InterruptedException {
+        UserRepository users = new UserRepository();
+        AtomicInteger registered = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (users.register("User " + i, String.valueOf(7_100_000_000L + i)) != null) {
+                        registered.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1_000, registered.get());
+        assertEquals(1_000, users.size());
+        for (int i = 0; i < 1_000; i++) {
+            User user = users.findByContactNumber(String.valueOf(7_100_000_000L + i));
+            assertSame(user, users.findById(user.id));
+        }
+    }
+}
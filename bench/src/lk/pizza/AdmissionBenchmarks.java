@@ -0,0 +1,62 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Admission Benchmarks
+// The admission decision for orders from many users at once, with the default limits: mostly turned
+// away by the per-user or global bucket, as during a promotion spike. The kitchen never fills, and
+// admitted orders are not submitted, so only the decision itself is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdmissionBenchmarks {
+    static final int ADMISSION_USERS = 100_000;
+
+    AdmissionControl admission;
+    Order[] pool;
+
+    @Setup
+    public void setUp() {
+        KitchenScheduler kitchen = new KitchenScheduler(new KitchenScheduler.Config(1, 1, 1, 1, Integer.MAX_VALUE,
+                OrderType.PICKUP, 0), new OrderRepository(), null, order -> { }, System::currentTimeMillis);
+        admission = new AdmissionControl(AdmissionControl.Config.defaults(), kitchen, System::nanoTime);
+        Pizza pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+        pool = new Order[ADMISSION_USERS];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Order((long) i, new User((long) i, "User " + i, "0770000000"), pizza, OrderType.PICKUP, "");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("# " + admission.stats());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean admit(Caller caller) {
+        try {
+            admission.admit(pool[caller.pick(pool.length)]);
+            return true;
+        } catch (AdmissionControl.Rejected e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package lk.pizza;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+// Benchmark Caller
+// One per benchmark thread: its index and a running call count, used to spread the calls of several
+// threads over the fixtures without two threads walking them in step.
+@State(Scope.Thread)
+public class Caller {
+    int thread;
+    long call;
+
+    @Setup
+    public void setUp(ThreadParams params) {
+        thread = params.getThreadIndex();
+    }
+
+    long next() {
+        return call++;
+    }
+
+    // A fixture index for this call, in [0, size)
+    int pick(int size) {
+        return (int) ((thread * 7919L + call++) % size);
+    }
+}
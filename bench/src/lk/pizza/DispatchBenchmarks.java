@@ -0,0 +1,79 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Dispatch Benchmarks
+// Ready deliveries spread over every area from several kitchen threads, every fourth order in an area
+// completing a run (orders stay BAKING as the run listener does nothing, so the pool is reused); and
+// one dispatch round with a large backlog that is not yet due, whose cost follows areas, not orders.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmarks {
+    static final int DISPATCH_BACKLOG = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Offers {
+        Order[] pool;
+        DeliveryDispatcher dispatcher;
+
+        @Setup
+        public void setUp() {
+            pool = deliveryPool(4096);
+            dispatcher = new DeliveryDispatcher(4, 60_000, 1_000, run -> { });
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Backlog {
+        DeliveryDispatcher dispatcher;
+
+        @Setup
+        public void setUp() {
+            dispatcher = new DeliveryDispatcher(Integer.MAX_VALUE, 3_600_000, 1_000, run -> { });
+            for (Order order : deliveryPool(DISPATCH_BACKLOG)) {
+                dispatcher.offer(order);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean offer(Offers offers, Caller caller) {
+        return offers.dispatcher.offer(offers.pool[(int) ((caller.thread * 1024L + caller.next()) % offers.pool.length)]);
+    }
+
+    @Benchmark
+    public int round(Backlog backlog) {
+        backlog.dispatcher.dispatchDue();
+        return backlog.dispatcher.waitingCount();
+    }
+
+    static Order[] deliveryPool(int size) {
+        User user = new User(1L, "Bench", "0770000000");
+        Pizza pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+        ColomboArea[] areas = ColomboArea.values();
+        Order[] pool = new Order[size];
+        for (int i = 0; i < size; i++) {
+            String address = areas[i % areas.length].label + ", Bench Street, " + i;
+            pool[i] = new Order((long) i, user, pizza, OrderType.DELIVERY, address);
+            pool[i].status = OrderStatus.BAKING;
+        }
+        return pool;
+    }
+}
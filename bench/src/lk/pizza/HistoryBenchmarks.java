@@ -0,0 +1,91 @@
+package lk.pizza;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// History Benchmarks
+// Full scans of HISTORY_ORDERS delivered orders of one or two pizzas each, placed over a year; one
+// operation is one whole query.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class HistoryBenchmarks {
+    static final int HISTORY_ORDERS = 10_000_000;
+    static final int HISTORY_PIZZAS = 500;
+    static final long START = 1_700_000_000_000L;
+
+    OrderHistory history;
+    long from;
+
+    @Setup
+    public void setUp() {
+        history = new OrderHistory();
+        OrderType[] types = OrderType.values();
+        ColomboArea[] areas = ColomboArea.values();
+        long[] statusMillis = new long[OrderStatus.values().length];
+        long[] one = new long[1];
+        long[] two = new long[2];
+        int[] quantities = {1, 2};
+        long filling = System.nanoTime();
+        for (int i = 0; i < HISTORY_ORDERS; i++) {
+            long placedAt = START + i * 3_000L;
+            for (int s = 0; s < statusMillis.length; s++) {
+                statusMillis[s] = placedAt + s * (60_000L + i % 600_000);
+            }
+            long[] pizzas = i % 3 == 0 ? two : one;
+            pizzas[0] = 1 + i % HISTORY_PIZZAS;
+            two[1] = 1 + (i % HISTORY_PIZZAS + 1 + i % 7) % HISTORY_PIZZAS; // Never the same as pizzas[0]
+            OrderType type = types[i % types.length];
+            history.append(i, i % 1_000_000, type, type == OrderType.DELIVERY ? areas[i % areas.length] : null,
+                    1_500 + i % 4_000, placedAt, statusMillis, i % 4 == 0 ? 1 + i % 5 : 0, pizzas, quantities);
+        }
+        System.out.printf(Locale.ROOT, "# %d orders appended in %d ms%n", HISTORY_ORDERS,
+                (System.nanoTime() - filling) / 1_000_000);
+        from = START + HISTORY_ORDERS * 3_000L / 4;
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("# " + history.popularPizzas(3, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Benchmark
+    public int popularPizzas() {
+        return history.popularPizzas(10, Long.MIN_VALUE, Long.MAX_VALUE).size();
+    }
+
+    @Benchmark
+    public int popularPizzasWindow() {
+        return history.popularPizzas(10, from, Long.MAX_VALUE).size();
+    }
+
+    @Benchmark
+    public int revenueByArea() {
+        return history.revenueByArea(Long.MIN_VALUE, Long.MAX_VALUE).size();
+    }
+
+    @Benchmark
+    public int averageRatingByPizza() {
+        return history.averageRatingByPizza(Long.MIN_VALUE, Long.MAX_VALUE).size();
+    }
+
+    @Benchmark
+    public int statusDwell() {
+        return history.statusDwell(Long.MIN_VALUE, Long.MAX_VALUE).size();
+    }
+}
@@ -0,0 +1,147 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Kitchen Simulation
+// Replays a Friday evening rush through KitchenScheduler on a simulated clock: no threads, no
+// sleeping, and the same seed always gives the same run. Orders arrive as a Poisson stream whose
+// rate rises to the peak halfway through and falls off again; the clock jumps straight from one
+// arrival or station finish to the next. Reports throughput, orders turned away, time in the
+// kitchen per order type and how far the ETAs given at order time were off.
+//
+//   java -cp bench/target/benchmarks.jar lk.pizza.KitchenSimulation [-seed 42] [-hours 4] [-peak 40] [-pickup 0.4] [-prep 4] [-ovens 6]
+//       [-prepSeconds 300] [-bakeSeconds 600] [-backlog 200] [-priority PICKUP] [-agingSeconds 900]
+//
+// -peak is orders per hour at the height of the rush.
+final class KitchenSimulation {
+    private static final long HOUR_MILLIS = 3_600_000;
+
+    public static void main(String[] args) {
+        long seed = 42;
+        double hours = 4;
+        double peakPerHour = 40;
+        double pickupShare = 0.4;
+        int prepStations = 4;
+        int ovenSlots = 6;
+        long prepSeconds = 300;
+        long bakeSeconds = 600;
+        int backlog = KitchenScheduler.DEFAULT_MAX_BACKLOG;
+        OrderType priority = OrderType.PICKUP;
+        long agingSeconds = 900;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-seed" -> seed = Long.parseLong(args[++i]);
+                case "-hours" -> hours = Double.parseDouble(args[++i]);
+                case "-peak" -> peakPerHour = Double.parseDouble(args[++i]);
+                case "-pickup" -> pickupShare = Double.parseDouble(args[++i]);
+                case "-prep" -> prepStations = Integer.parseInt(args[++i]);
+                case "-ovens" -> ovenSlots = Integer.parseInt(args[++i]);
+                case "-prepSeconds" -> prepSeconds = Long.parseLong(args[++i]);
+                case "-bakeSeconds" -> bakeSeconds = Long.parseLong(args[++i]);
+                case "-backlog" -> backlog = Integer.parseInt(args[++i]);
+                case "-priority" -> priority = OrderType.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                case "-agingSeconds" -> agingSeconds = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        KitchenScheduler.Config config = new KitchenScheduler.Config(prepStations, ovenSlots, prepSeconds * 1000,
+                bakeSeconds * 1000, backlog, priority, agingSeconds * 1000);
+        run(config, seed, (long) (hours * HOUR_MILLIS), peakPerHour, pickupShare);
+    }
+
+    static void run(KitchenScheduler.Config config, long seed, long durationMillis, double peakPerHour,
+                    double pickupShare) {
+        long[] now = {0};
+        OrderRepository orders = new OrderRepository();
+        User user = new User(1L, "Simulated", "0770000000");
+        Pizza pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+        Map<Long, long[]> admitted = new HashMap<>(); // Order id -> {arrived at, promised ready at}
+        List<List<Long>> waits = List.of(new ArrayList<>(), new ArrayList<>());
+        List<Long> etaErrors = new ArrayList<>();
+        KitchenScheduler kitchen = new KitchenScheduler(config, orders, null, order -> {
+            long[] times = admitted.remove(order.id);
+            waits.get(order.type.ordinal()).add(now[0] - times[0]);
+            etaErrors.add(now[0] - times[1]);
+        }, () -> now[0]);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long nextArrival = nextArrival(random, 0, durationMillis, peakPerHour);
+        int arrived = 0;
+        int shed = 0;
+        int maxBacklog = 0;
+        while (nextArrival < durationMillis || kitchen.nextEventMillis() != Long.MAX_VALUE) {
+            if (nextArrival < durationMillis && nextArrival <= kitchen.nextEventMillis()) {
+                now[0] = nextArrival;
+                kitchen.advance(now[0]);
+                arrived++;
+                OrderType type = random.nextDouble() < pickupShare ? OrderType.PICKUP : OrderType.DELIVERY;
+                if (kitchen.tryAdmit()) {
+                    Order order = new Order(orders.nextId(), user, pizza, type, "");
+                    orders.add(order);
+                    kitchen.submit(order);
+                    admitted.put(order.id, new long[] {now[0], order.readyEstimateMillis});
+                    kitchen.advance(now[0]);
+                } else {
+                    shed++;
+                }
+                maxBacklog = Math.max(maxBacklog, kitchen.backlog());
+                nextArrival = nextArrival(random, now[0], durationMillis, peakPerHour);
+            } else {
+                now[0] = kitchen.nextEventMillis();
+                kitchen.advance(now[0]);
+            }
+        }
+
+        KitchenScheduler.Stats stats = kitchen.stats();
+        System.out.printf(Locale.ROOT, "# %s%n", config);
+        System.out.printf(Locale.ROOT, "%d orders arrived over %.1f h (peak %.0f/h): %d baked, %d turned away, "
+                        + "max backlog %d, kitchen empty at %.1f h%n", arrived, durationMillis / (double) HOUR_MILLIS,
+                peakPerHour, stats.completed(), shed, maxBacklog, now[0] / (double) HOUR_MILLIS);
+        for (OrderType type : OrderType.values()) {
+            long[] sorted = sorted(waits.get(type.ordinal()));
+            System.out.printf(Locale.ROOT, "%-8s %5d orders, minutes in kitchen: p50 %5.1f  p95 %5.1f  max %5.1f%n",
+                    type, sorted.length, minutes(sorted, 0.50), minutes(sorted, 0.95), minutes(sorted, 1.0));
+        }
+        long[] errors = sorted(etaErrors);
+        long[] absolute = Arrays.stream(errors).map(Math::abs).sorted().toArray();
+        System.out.printf(Locale.ROOT, "ETA error minutes (actual - promised): p5 %5.1f  p50 %5.1f  p95 %5.1f, "
+                        + "|error| p50 %5.1f  p95 %5.1f%n", minutes(errors, 0.05), minutes(errors, 0.50),
+                minutes(errors, 0.95), minutes(absolute, 0.50), minutes(absolute, 0.95));
+    }
+
+    // Next arrival of a Poisson stream whose rate follows the rush, drawn by thinning a peak-rate stream
+    private static long nextArrival(SplittableRandom random, long fromMillis, long durationMillis, double peakPerHour) {
+        double peakPerMilli = peakPerHour / HOUR_MILLIS;
+        double t = fromMillis;
+        while (t < durationMillis) {
+            t += -Math.log(1 - random.nextDouble()) / peakPerMilli;
+            if (random.nextDouble() < rushShape(t / durationMillis)) {
+                return (long) t;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // Share of the peak rate at this point of the evening: a third of it at the edges, all of it midway
+    private static double rushShape(double fraction) {
+        return 1.0 / 3 + 2.0 / 3 * Math.sin(Math.PI * Math.min(1, Math.max(0, fraction)));
+    }
+
+    private static long[] sorted(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static double minutes(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 60_000.0;
+    }
+}
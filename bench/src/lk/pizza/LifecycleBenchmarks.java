@@ -0,0 +1,64 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Lifecycle Benchmarks
+// One new order placed and one tick of every shard, with historySize delivered orders already stored.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LifecycleBenchmarks {
+    @Param({"10000", "100000", "1000000"})
+    public int historySize;
+
+    OrderRepository orders;
+    OrderLifecycleEngine engine;
+    Order[] pool;
+
+    @Setup
+    public void setUp() {
+        orders = new OrderRepository();
+        User user = new User(1L, "Bench", "0770000000");
+        Pizza pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+        for (int i = 0; i < historySize; i++) {
+            Order order = new Order(orders.nextId(), user, pizza, OrderType.DELIVERY, "Bench Street");
+            order.status = OrderStatus.DELIVERED;
+            orders.add(order);
+        }
+        engine = new OrderLifecycleEngine(orders, Runtime.getRuntime().availableProcessors(), 1, 1,
+                (order, previous, current) -> { });
+        // New orders are recycled from a small pool so the store does not grow during the run
+        pool = new Order[1024];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Order(orders.nextId(), user, pizza, OrderType.DELIVERY, "Bench Street");
+            pool[i].status = OrderStatus.DELIVERED;
+            orders.add(pool[i]);
+        }
+    }
+
+    @Benchmark
+    public int tick(Caller caller) {
+        Order order = pool[(int) (caller.next() % pool.length)];
+        if (orders.transition(order, OrderStatus.DELIVERED, OrderStatus.RECEIVED)) {
+            engine.track(order);
+        }
+        engine.tickOnce();
+        return engine.activeOrderCount();
+    }
+}
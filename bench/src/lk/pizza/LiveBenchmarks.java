@@ -0,0 +1,74 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Live Aggregate Benchmarks
+// Counting a new two-pizza order into the live aggregates, from many threads at once, over
+// HISTORY_PIZZAS distinct pizzas; then building the dashboard snapshot from a full hour.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LiveBenchmarks {
+    static final int HISTORY_PIZZAS = 500;
+
+    LiveAggregates live;
+    Order[] pool;
+
+    @Setup
+    public void setUp() {
+        live = new LiveAggregates(System::currentTimeMillis);
+        User user = new User(1L, "Bench", "0770000000");
+        pool = new Order[HISTORY_PIZZAS];
+        for (int i = 0; i < pool.length; i++) {
+            Pizza first = new Pizza((long) i, "P" + i, "Thin", "Tomato", "Mozzarella", List.of(), 10.0);
+            Pizza second = new Pizza((long) (i + 1) % pool.length, "P", "Thin", "Tomato", "Mozzarella", List.of(), 10.0);
+            pool[i] = new Order((long) i, user, List.of(new Order.Item(first, 1), new Order.Item(second, 2)),
+                    OrderType.PICKUP, "");
+            pool[i].totalCents = 3_000;
+        }
+        // Orders already counted, so that publish() summarises a busy window
+        for (int i = 0; i < 100_000; i++) {
+            live.placed(pool[i % pool.length]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        live.publish();
+        System.out.println("# " + live.snapshot().last5Minutes().topPizzas().subList(0, 3));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int placed(Caller caller) {
+        // Mostly the first 10 pizzas, the rest spread over all of them
+        long i = caller.next();
+        long spread = caller.thread * 7919L + i;
+        int pick = (int) (spread % 10 < 6 ? i % 10 : spread % pool.length);
+        live.placed(pool[pick]);
+        return pick;
+    }
+
+    @Benchmark
+    public long publish() {
+        live.publish();
+        return live.snapshot().lastHour().orders();
+    }
+}
@@ -0,0 +1,166 @@
+package lk.pizza;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load Generator
+// Drives the HTTP front end with many concurrent ordering sessions, one virtual thread each. Every
+// session signs up, then loops: read the menu, place a pickup order, check its status and poll
+// notifications. Reports request throughput, latency percentiles and error counts.
+//
+// Without -url an in-process server is started on an ephemeral port with a throwaway data directory
+// a kitchen too big to ever turn orders away and no admission rate limits, so the run measures the
+// request path only.
+// Large session counts need a matching open-file limit (ulimit -n) on both client and server.
+//
+//   java -cp bench/target/benchmarks.jar lk.pizza.LoadGenerator [-sessions 10000] [-rounds 5] [-url http://localhost:8080]
+final class LoadGenerator {
+    private static final String[] OPERATIONS = {"signup", "menu", "order", "status", "notifications"};
+
+    public static void main(String[] args) throws Exception {
+        int sessions = 10_000;
+        int rounds = 5;
+        String url = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-sessions" -> sessions = Integer.parseInt(args[++i]);
+                case "-rounds" -> rounds = Integer.parseInt(args[++i]);
+                case "-url" -> url = args[++i];
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        OrderService service = null;
+        HttpFrontEnd frontEnd = null;
+        if (url == null) {
+            KitchenScheduler.Config kitchen = new KitchenScheduler.Config(1024, 1024,
+                    KitchenScheduler.DEFAULT_PREP_MILLIS, KitchenScheduler.DEFAULT_BAKE_MILLIS, Integer.MAX_VALUE,
+                    OrderType.PICKUP, KitchenScheduler.DEFAULT_AGING_MILLIS);
+            service = new OrderService(Files.createTempDirectory("pizza-load"), new SimulatedPaymentGateway(), kitchen,
+                    AdmissionControl.Config.unlimited());
+            service.start();
+            frontEnd = new HttpFrontEnd(service, new SessionStore());
+            frontEnd.start(0);
+            url = "http://localhost:" + frontEnd.port();
+        }
+
+        try {
+            run(URI.create(url + "/api/"), sessions, rounds);
+        } finally {
+            if (frontEnd != null) {
+                frontEnd.stop();
+                service.shutdown();
+            }
+        }
+    }
+
+    private static void run(URI api, int sessions, int rounds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long[][] latencies = new long[sessions][];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(sessions);
+        // Spread contact numbers out so repeated runs against a persistent server rarely collide
+        long contactBase = 7_000_000_000L + (System.currentTimeMillis() % 1_000_000) * 1000;
+
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < sessions; s++) {
+                int session = s;
+                executor.execute(() -> {
+                    try {
+                        latencies[session] = session(client, api, contactBase + session, rounds, errors);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long[] all = Arrays.stream(latencies).filter(l -> l != null).flatMapToLong(Arrays::stream)
+                .filter(l -> l > 0).sorted().toArray();
+        System.out.printf(Locale.ROOT, "%d sessions x %d rounds: %d requests in %.2f s (%.0f req/s), %d errors%n",
+                sessions, rounds, all.length, elapsed / 1e9, all.length / (elapsed / 1e9), errors.get());
+        if (all.length > 0) {
+            System.out.printf(Locale.ROOT, "latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                    percentile(all, 0.999), all[all.length - 1] / 1e6);
+        }
+    }
+
+    // Returns the latency of every successful request in nanoseconds; failed requests record 0
+    private static long[] session(HttpClient client, URI api, long contactNumber, int rounds, AtomicLong errors) {
+        long[] latencies = new long[1 + rounds * (OPERATIONS.length - 1)];
+        int next = 0;
+        try {
+            long start = System.nanoTime();
+            Map<String, Object> signedIn = send(client, api.resolve("signup"), null,
+                    "{\"name\":\"Load " + contactNumber + "\",\"contactNumber\":\"" + contactNumber + "\"}");
+            latencies[next++] = System.nanoTime() - start;
+            String token = Json.string(signedIn, "token");
+
+            for (int round = 0; round < rounds; round++) {
+                start = System.nanoTime();
+                send(client, api.resolve("menu"), token, null);
+                latencies[next++] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Map<String, Object> order = send(client, api.resolve("orders"), token,
+                        "{\"pizzaId\":" + (1 + round % 2) + ",\"type\":\"PICKUP\",\"paymentMethod\":\"Cash\"}");
+                latencies[next++] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                send(client, api.resolve("orders/" + Json.number(order, "id")), token, null);
+                latencies[next++] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                send(client, api.resolve("notifications"), token, null);
+                latencies[next++] = System.nanoTime() - start;
+            }
+        } catch (Exception e) {
+            if (errors.getAndIncrement() == 0) {
+                System.err.println("First session error: " + e);
+            }
+        }
+        return latencies;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> send(HttpClient client, URI uri, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri.getPath() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        Object parsed = Json.parse(response.body());
+        return parsed instanceof Map ? (Map<String, Object>) parsed : Map.of();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,51 @@
+package lk.pizza;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Login Benchmarks
+// Finding a user by contact number among many, alone and from many threads at once.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmarks {
+    static final int LOGIN_USERS = 100_000;
+
+    UserRepository users;
+    String[] contactNumbers;
+
+    @Setup
+    public void setUp() {
+        users = new UserRepository();
+        contactNumbers = new String[LOGIN_USERS];
+        for (int i = 0; i < LOGIN_USERS; i++) {
+            contactNumbers[i] = String.format("07%08d", i * 7919L % 100_000_000);
+            users.register("User " + i, contactNumbers[i]);
+        }
+    }
+
+    @Benchmark
+    public long findByContactNumber(Caller caller) {
+        return users.findByContactNumber(contactNumbers[caller.pick(LOGIN_USERS)]).id;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long findByContactNumberContended(Caller caller) {
+        return users.findByContactNumber(contactNumbers[caller.pick(LOGIN_USERS)]).id;
+    }
+}
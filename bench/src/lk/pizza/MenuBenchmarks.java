@@ -0,0 +1,59 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Menu Benchmarks
+// Reading the public menu and a user's menu while nothing changes, and again with a rating arriving
+// on every read (the menu is then rebuilt at most every MAX_STALENESS_MILLIS).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class MenuBenchmarks {
+    MenuCatalog catalog;
+    User user;
+
+    @Setup
+    public void setUp() {
+        catalog = new MenuCatalog(System::currentTimeMillis);
+        for (Pizza pizza : OrderService.seedPizzas()) {
+            catalog.add(pizza);
+        }
+        user = new User(1L, "Bench", "0770000000");
+        for (int i = 0; i < 5; i++) {
+            user.customPizzas.add(new Pizza(100L + i, "Custom " + i, "Thin", "Tomato", "Mozzarella", List.of("Basil"), 12.0));
+        }
+    }
+
+    @Benchmark
+    public int readPublic() {
+        return catalog.snapshot().jsonBytes.length;
+    }
+
+    @Benchmark
+    public int readUser() {
+        return catalog.menuFor(user).text.length();
+    }
+
+    @Benchmark
+    public int readUserWhileRating() {
+        catalog.invalidate();
+        return catalog.menuFor(user).text.length();
+    }
+}
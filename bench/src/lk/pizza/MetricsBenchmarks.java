@@ -0,0 +1,57 @@
+package lk.pizza;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Metrics Benchmarks
+// Timing one event the way the hot paths do: a nanoTime() at the start, then recordSince(), which
+// reads the clock again and counts the duration; alone and from many threads at once.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmarks {
+    LatencyRecorder recorder;
+
+    @Setup
+    public void setUp() {
+        recorder = new Metrics().timer("bench_seconds", "Benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        System.out.printf(Locale.ROOT, "# %d events, p50 %d ns, p99 %d ns%n", snapshot.count,
+                snapshot.percentileNanos(0.5), snapshot.percentileNanos(0.99));
+    }
+
+    @Benchmark
+    public long recordSince() {
+        long started = System.nanoTime();
+        recorder.recordSince(started);
+        return started;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long recordSinceContended() {
+        long started = System.nanoTime();
+        recorder.recordSince(started);
+        return started;
+    }
+}
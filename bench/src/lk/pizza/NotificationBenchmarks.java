@@ -0,0 +1,46 @@
+package lk.pizza;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Notification Benchmarks
+// Status changes published from several lifecycle threads while the dispatcher drains the ring.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationBenchmarks {
+    NotificationBus bus;
+
+    @Setup
+    public void setUp() {
+        bus = new NotificationBus();
+        bus.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean publish(Caller caller) {
+        long i = caller.next();
+        return bus.publish(i, caller.thread * 1000L + i % 1000, OrderStatus.BAKING, OrderStatus.OUT_FOR_DELIVERY, i);
+    }
+}
@@ -0,0 +1,91 @@
+package lk.pizza;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Order Benchmarks
+// Placing an order through the whole service (pricing, admission, log, live figures, payment) from a
+// full cart request, and repeating a customer's last order in one call. Half the customers pay cash,
+// half by card: a card reorder is confirmed with the reorder key from the first order and charged by
+// the gateway's token. The kitchen and admission limits are lifted so every call
+// is accepted: the latency distribution (p50, p99, p99.9) is that of orders taken, not turned away.
+// The gateway answers at once so payments keep up and tokens are issued before the reorder run.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class OrderBenchmarks {
+    static final int REORDER_USERS = 10_000;
+
+    OrderService service;
+    User[] users;
+    String[] reorderKeys;
+    List<OrderLine> cart;
+    OrderService.PaymentDetails card;
+
+    @Setup
+    public void setUp() throws Exception {
+        KitchenScheduler.Config kitchen = new KitchenScheduler.Config(64, 64, 1, 1, Integer.MAX_VALUE,
+                OrderType.PICKUP, KitchenScheduler.DEFAULT_AGING_MILLIS);
+        service = new OrderService(Files.createTempDirectory("pizza-orders"), new SimulatedPaymentGateway(0, 0, 0),
+                kitchen, AdmissionControl.Config.unlimited());
+        service.start();
+        users = new User[REORDER_USERS];
+        reorderKeys = new String[REORDER_USERS];
+        card = new OrderService.PaymentDetails("Credit Card", "4111111111111111", 12,
+                Calendar.getInstance().get(Calendar.YEAR) + 2);
+        cart = List.of(new OrderLine(1, 2), new OrderLine(2, 1));
+        for (int u = 0; u < users.length; u++) {
+            users[u] = service.signUp("User " + u, String.valueOf(7_100_000_000L + u));
+            reorderKeys[u] = service.placeOrder(users[u], cart, OrderType.PICKUP, payment(u)).takeReorderKey();
+        }
+        // A card is only charged again once the gateway has issued its token
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (int u = 1; u < users.length; u += 2) {
+            while (users[u].lastOrder.card().token() == null) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Card payments did not complete");
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public long place(Caller caller) {
+        int u = (int) (caller.next() % users.length);
+        return service.placeOrder(users[u], cart, OrderType.PICKUP, payment(u)).id;
+    }
+
+    @Benchmark
+    public long reorder(Caller caller) {
+        int u = (int) (caller.next() % users.length);
+        return service.reorder(users[u], reorderKeys[u]).id;
+    }
+
+    private OrderService.PaymentDetails payment(int u) {
+        return u % 2 == 0 ? OrderService.PaymentDetails.cash() : card;
+    }
+}
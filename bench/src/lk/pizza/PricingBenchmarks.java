@@ -0,0 +1,120 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Pricing Benchmarks
+// Promotion, loyalty discount and loyalty deduction as done by placeOrder() for one pizza; a batch of
+// mixed carts priced against one table; and the cart discount from dozens of live promotions
+// (thresholds, windows, per-pizza and tier-gated, some stackable), alone and from many threads.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingBenchmarks {
+    static final int PRICED_PIZZA_COUNT = 200;
+    static final int PRICED_CART_COUNT = 100;
+    static final int PROMOTION_COUNT = 64;
+
+    PricingEngine pricing;
+    List<OrderLine> single;
+    List<List<OrderLine>> carts;
+    int[] loyaltyPoints;
+
+    PromotionEngine promotions;
+    LoyaltyTier[] tiers;
+    long now;
+    long[] amountCents;
+    List<List<OrderLine>> promotionCarts;
+    long[][] lineCents;
+
+    @Setup
+    public void setUp() {
+        pricing = new PricingEngine();
+        PromotionEngine placed = new PromotionEngine(pricing::usePromotions);
+        placed.add(new Promotion("$2 off on orders above $20", 2.0, 20.0));
+        for (long id = 1; id <= PRICED_PIZZA_COUNT; id++) {
+            pricing.putPizza(new Pizza(id, "Pizza " + id, "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0 + id % 8));
+        }
+        single = List.of(new OrderLine(1, 1));
+        carts = new ArrayList<>();
+        loyaltyPoints = new int[PRICED_CART_COUNT];
+        for (int c = 0; c < PRICED_CART_COUNT; c++) {
+            List<OrderLine> cart = new ArrayList<>();
+            for (int line = 0; line <= c % 4; line++) {
+                cart.add(new OrderLine(1 + (c * 7 + line) % PRICED_PIZZA_COUNT, 1 + line));
+            }
+            carts.add(cart);
+            loyaltyPoints[c] = c % 3 == 0 ? 0 : 150;
+        }
+
+        promotions = new PromotionEngine();
+        now = System.currentTimeMillis();
+        tiers = LoyaltyTier.values();
+        for (int i = 0; i < PROMOTION_COUNT; i++) {
+            long end = i % 5 == 0 ? now - 1 : Promotion.ALWAYS;
+            Long pizzaId = i % 3 == 0 ? (long) (1 + i % 4) : null;
+            promotions.add(new Promotion("Promotion " + i, 0.5 + i % 7, 5.0 * (i % 16), 0, end, pizzaId,
+                    tiers[i % tiers.length], i % 2 == 0));
+        }
+        // Single-pizza carts at four amounts, priced the way PricingEngine does: the cart discount in
+        // cents from the current rule set, with scratch space kept per thread
+        amountCents = new long[] {800, 2400, 4500, 9000};
+        promotionCarts = new ArrayList<>();
+        lineCents = new long[amountCents.length][];
+        for (int k = 0; k < amountCents.length; k++) {
+            promotionCarts.add(List.of(new OrderLine(1 + k, 1)));
+            lineCents[k] = new long[] {amountCents[k]};
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Scratch {
+        final long[] cents = new long[2];
+    }
+
+    @Benchmark
+    public long placeOrderPricing() {
+        PricingEngine.PriceQuote quote = pricing.quote(single, 100, System.currentTimeMillis());
+        return quote.totalCents() + quote.pointsEarned() - Payment.pointsSpent(quote.totalCents());
+    }
+
+    @Benchmark
+    public long quoteTotals(Caller caller) {
+        long[] totals = pricing.quoteTotals(carts, loyaltyPoints, System.currentTimeMillis());
+        return totals[caller.pick(totals.length)];
+    }
+
+    @Benchmark
+    public long promotionQuote(Caller caller, Scratch scratch) {
+        return promotionDiscount(caller, scratch);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long promotionQuoteContended(Caller caller, Scratch scratch) {
+        return promotionDiscount(caller, scratch);
+    }
+
+    private long promotionDiscount(Caller caller, Scratch scratch) {
+        long i = caller.next();
+        int k = (int) (i & 3);
+        return amountCents[k] - promotions.rules().discountCents(amountCents[k], promotionCarts.get(k), lineCents[k],
+                tiers[(int) (i % 3)], now, scratch.cents);
+    }
+}
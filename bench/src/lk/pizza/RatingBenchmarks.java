@@ -0,0 +1,45 @@
+package lk.pizza;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Rating Benchmarks
+// Every thread rates the same popular pizza (RatingAggregatorTest checks that no vote is lost).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RatingBenchmarks {
+    Pizza pizza;
+
+    @Setup
+    public void setUp() {
+        pizza = new Pizza(1L, "Margherita", "Thin", "Tomato", "Mozzarella", List.of("Basil"), 10.0);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void updateRatingContended(Caller caller) {
+        pizza.updateRating(1 + (int) ((caller.next() + caller.thread) % 5));
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void updateRatingContended64(Caller caller) {
+        pizza.updateRating(1 + (int) ((caller.next() + caller.thread) % 5));
+    }
+}
@@ -0,0 +1,90 @@
+package lk.pizza;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Recommendation Benchmarks
+// Recommendations for RECOMMEND_USERS users with three orders each over HISTORY_PIZZAS pizzas: a
+// lookup the cache answers, and one computed afresh because the user's entry was just dropped.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(8)
+@State(Scope.Benchmark)
+public class RecommendBenchmarks {
+    static final int RECOMMEND_USERS = 1_000_000;
+    static final int HISTORY_PIZZAS = 500;
+
+    Recommender recommender;
+    User[] users;
+
+    @Setup
+    public void setUp() {
+        Pizza[] menu = new Pizza[HISTORY_PIZZAS];
+        for (int i = 0; i < menu.length; i++) {
+            menu[i] = new Pizza((long) i, "P" + i, "Thin", "Tomato", "Mozzarella", List.of(), 10.0);
+        }
+        recommender = new Recommender((user, pizzaId) -> pizzaId < menu.length ? menu[(int) pizzaId] : null,
+                System::currentTimeMillis);
+        users = new User[RECOMMEND_USERS];
+        long filling = System.nanoTime();
+        for (int u = 0; u < users.length; u++) {
+            users[u] = new User((long) u, "User " + u, "0770000000");
+            for (int n = 0; n < 3; n++) {
+                // Skewed towards the first pizzas, with a second pizza close to the first
+                int first = (int) ((long) (u * 31 + n * 17) * (u * 31 + n * 17) % HISTORY_PIZZAS) % (HISTORY_PIZZAS / (1 + n));
+                int second = (first + 1 + (u + n) % 5) % HISTORY_PIZZAS;
+                recommender.placed(new Order((long) u * 3 + n, users[u],
+                        List.of(new Order.Item(menu[first], 1), new Order.Item(menu[second], 1)), OrderType.PICKUP, ""));
+            }
+            if (u % 10 == 0) {
+                users[u].addToFavorites(menu[u % 20]);
+            }
+        }
+        System.out.printf(Locale.ROOT, "# %d users, %d orders counted in %d ms%n", users.length, users.length * 3,
+                (System.nanoTime() - filling) / 1_000_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Recommender.Recommendations sample = recommender.recommend(users[10]);
+        System.out.println("# usual " + names(sample.usual()) + ", also like " + names(sample.alsoLike()));
+    }
+
+    @Benchmark
+    public int cached(Caller caller) {
+        return recommender.recommend(users[caller.pick(Recommender.CACHE_CAPACITY / 2)]).alsoLike().size();
+    }
+
+    @Benchmark
+    public int computed(Caller caller) {
+        User user = users[(int) ((caller.thread * 7919L + caller.next() * 104_729L) % users.length)];
+        recommender.invalidate(user);
+        return recommender.recommend(user).alsoLike().size();
+    }
+
+    private static List<String> names(List<Pizza> pizzas) {
+        List<String> names = new ArrayList<>();
+        for (Pizza pizza : pizzas) {
+            names.add(pizza.name);
+        }
+        return names;
+    }
+}